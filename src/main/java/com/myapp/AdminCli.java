@@ -0,0 +1,177 @@
+package com.myapp;
+
+import com.myapp.config.ExplainQuery;
+import com.myapp.config.MySQLConnection;
+import com.myapp.config.QueryPlanChecker;
+import com.myapp.config.SchemaMigrator;
+import com.myapp.dao.ExportDAO;
+import com.myapp.dao.PasswordMigrationDAO;
+import com.myapp.dao.ScoreDAO;
+import com.myapp.dao.UserAuthDAO;
+import com.myapp.dao.UserDAO;
+import com.myapp.services.ExportService;
+import com.myapp.services.ImportService;
+import com.myapp.services.PasswordMigrationJob;
+import com.myapp.services.RollupService;
+import com.myapp.utils.PasswordUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Outils d'administration en ligne de commande (sans interface JavaFX)
+ */
+public class AdminCli {
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            printUsage();
+            System.exit(2);
+        }
+
+        int status;
+        try {
+            status = run(args);
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            status = 1;
+        } finally {
+            MySQLConnection.shutdown();
+        }
+        System.exit(status);
+    }
+
+    private static int run(String[] args) throws SQLException, IOException {
+        switch (args[0]) {
+            case "migrate":
+                new SchemaMigrator().migrate();
+                return 0;
+            case "check":
+                return checkQueryPlans();
+            case "export":
+                return export(args);
+            case "import":
+                return importCsv(args);
+            case "rollup-rebuild":
+                return rebuildRollups();
+            case "password-migrate":
+                return migratePasswords();
+            default:
+                printUsage();
+                return 2;
+        }
+    }
+
+    /**
+     * Vérifie qu'aucune requête des DAO ne parcourt une table entière
+     */
+    private static int checkQueryPlans() throws SQLException {
+        List<ExplainQuery> queries = new ArrayList<>();
+        queries.addAll(ScoreDAO.explainQueries());
+        queries.addAll(UserAuthDAO.explainQueries());
+        queries.addAll(UserDAO.explainQueries());
+        queries.addAll(PasswordMigrationDAO.explainQueries());
+
+        List<String> problems = new QueryPlanChecker().check(queries);
+        if (problems.isEmpty()) {
+            System.out.println("Tous les plans d'exécution utilisent un index (" + queries.size() + " requêtes)");
+            return 0;
+        }
+        System.err.println(problems.size() + " requête(s) sans index adapté:");
+        problems.forEach(p -> System.err.println("  " + p));
+        return 1;
+    }
+
+    /**
+     * export <scores|users> <fichier.csv|fichier.ndjson>
+     */
+    private static int export(String[] args) throws SQLException, IOException {
+        if (args.length != 3) {
+            printUsage();
+            return 2;
+        }
+        ExportDAO.Dataset dataset;
+        try {
+            dataset = ExportDAO.Dataset.valueOf(args[1].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Jeu de données inconnu: " + args[1]);
+            return 2;
+        }
+        ExportService.Format format = ExportService.Format.fromFileName(args[2]);
+
+        ExportService.ExportResult result = new ExportService().export(dataset, format, Path.of(args[2]),
+                (rows, bytes, rowsPerSecond) -> System.out.printf("  %d lignes, %.1f Mo, %.0f lignes/s%n",
+                        rows, bytes / (1024.0 * 1024.0), rowsPerSecond));
+        System.out.println("Export " + dataset + " (" + format + ") terminé: " + result);
+        return 0;
+    }
+
+    /**
+     * import <users|scores> <fichier.csv>
+     */
+    private static int importCsv(String[] args) throws SQLException, IOException {
+        if (args.length != 3) {
+            printUsage();
+            return 2;
+        }
+        ExportDAO.Dataset dataset;
+        try {
+            dataset = ExportDAO.Dataset.valueOf(args[1].toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Jeu de données inconnu: " + args[1]);
+            return 2;
+        }
+
+        ImportService.ImportReport report = new ImportService().importCsv(dataset, Path.of(args[2]),
+                (rows, imported, rejected) -> System.out.printf("  %d lignes, %d importées, %d rejetées%n",
+                        rows, imported, rejected));
+        for (ImportService.Issue issue : report.issues()) {
+            System.out.println("  " + issue);
+        }
+        if (report.issues().size() < report.rejected()) {
+            System.out.println("  ... " + (report.rejected() - report.issues().size()) + " autre(s) rejet(s)");
+        }
+        System.out.println("Import " + dataset + " terminé: " + report);
+        return report.rejected() == 0 ? 0 : 1;
+    }
+
+    /**
+     * Recalcule les agrégats des scores depuis la table scores
+     */
+    private static int rebuildRollups() throws SQLException {
+        long start = System.currentTimeMillis();
+        int written = new RollupService().rebuild((doneUntil, last, rows) ->
+                System.out.println("  jusqu'au " + doneUntil + " / " + last + ", " + rows + " lignes"));
+        System.out.println("Agrégats des scores reconstruits: " + written + " lignes en "
+                + (System.currentTimeMillis() - start) + " ms");
+        return 0;
+    }
+
+    /**
+     * Re-hache les mots de passe stockés en Base64 et marque les hashes illisibles (reprend une migration interrompue)
+     */
+    private static int migratePasswords() throws SQLException {
+        PasswordUtils.calibrate();
+        PasswordMigrationJob.MigrationReport report = new PasswordMigrationJob().run(
+                (scanned, total, rehashed, reset, usersPerSecond) ->
+                        System.out.printf("  %d / %d comptes, %d re-haché(s), %d à réinitialiser, %.0f comptes/s%n",
+                                scanned, total, rehashed, reset, usersPerSecond));
+        System.out.println("Migration des mots de passe terminée: " + report);
+        System.out.println("Mots de passe " + PasswordUtils.getStats());
+        return 0;
+    }
+
+    private static void printUsage() {
+        System.out.println("Usage: AdminCli <commande>");
+        System.out.println("  migrate   applique les migrations de schéma manquantes");
+        System.out.println("  check     vérifie avec EXPLAIN qu'aucune requête des DAO ne parcourt une table entière");
+        System.out.println("  export <scores|users> <fichier>  exporte en flux (CSV, ou NDJSON si .ndjson/.jsonl/.json)");
+        System.out.println("  import <users|scores> <fichier>  importe un CSV avec ligne d'en-tête");
+        System.out.println("  rollup-rebuild  recalcule les agrégats des scores (quotidiens et totaux par joueur)");
+        System.out.println("  password-migrate  re-hache les anciens mots de passe (reprend une migration interrompue)");
+    }
+}
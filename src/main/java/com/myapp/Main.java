@@ -1,23 +1,68 @@
 package com.myapp;
 
+import com.myapp.config.MySQLConnection;
+import com.myapp.config.QueryMetrics;
+import com.myapp.config.SchemaMigrator;
+import com.myapp.dao.EntityCache;
+import com.myapp.services.AvailabilityService;
+import com.myapp.services.LoginThrottle;
+import com.myapp.services.RollupService;
+import com.myapp.services.ScoreJournal;
+import com.myapp.services.ScoreWriteBehindQueue;
+import com.myapp.utils.DbExecutor;
+import com.myapp.utils.PasswordUtils;
 import com.myapp.utils.SceneManager;
+import com.myapp.utils.UserSession;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
+import java.sql.SQLException;
+
 public class Main extends Application {
+    // Requêtes les plus coûteuses affichées à l'arrêt
+    private static final int QUERY_STATS_SHOWN = 10;
+
+    @Override
+    public void init() {
+        // Mettre le schéma à jour avant le premier écran ; l'application reste utilisable si la base est injoignable
+        if (Boolean.parseBoolean(System.getProperty("db.migrate.onStartup", "true"))) {
+            try {
+                new SchemaMigrator().migrate();
+                new RollupService().rebuildIfEmptyAsync();
+            } catch (SQLException e) {
+                System.err.println("Migration du schéma impossible: " + e.getMessage());
+            }
+        }
+        // Coût du hachage mesuré sur ce poste avant la première connexion
+        PasswordUtils.calibrate();
+    }
+
     @Override
     public void start(Stage stage) throws Exception {
         SceneManager.initialize(stage);
-        
-        String currentUserId = System.getProperty("currentUserId");
-        if (currentUserId != null && !currentUserId.equals("-1")) {
+
+        if (UserSession.getInstance().isLoggedIn()) {
             SceneManager.show("home");
         } else {
             SceneManager.show("login");
         }
     }
 
+    @Override
+    public void stop() {
+        DbExecutor.shutdown();
+        ScoreWriteBehindQueue.getInstance().shutdown();
+        ScoreJournal.getInstance().shutdown();
+        EntityCache.getStats().forEach(stats -> System.out.println("Cache " + stats));
+        System.out.println("Mots de passe " + PasswordUtils.getStats());
+        System.out.println("Inscription " + AvailabilityService.getInstance());
+        System.out.println("Limitation " + LoginThrottle.getInstance());
+        QueryMetrics.getSnapshot().stream().limit(QUERY_STATS_SHOWN)
+                .forEach(stats -> System.out.println("SQL " + stats));
+        MySQLConnection.shutdown();
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,148 @@
+package com.myapp.config;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disjoncteur devant la base de données.
+ * Après failureThreshold erreurs de connexion consécutives, il s'ouvre : les emprunts échouent
+ * immédiatement au lieu d'attendre les délais réseau. Un thread de fond teste alors la base
+ * à intervalle régulier et referme le disjoncteur dès qu'elle répond.
+ */
+public class CircuitBreaker {
+    /**
+     * Test de disponibilité exécuté pendant que le disjoncteur est ouvert
+     */
+    public interface Probe {
+        boolean isAvailable() throws SQLException;
+    }
+
+    private final int failureThreshold;
+    private final long probeIntervalMillis;
+    private final Probe probe;
+    private final Runnable onOpen;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openings = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private volatile boolean open;
+    private volatile long openedAt;
+    private volatile String lastError;
+
+    /**
+     * @param onOpen appelé à l'ouverture (ex. fermer les connexions inactives devenues douteuses)
+     */
+    public CircuitBreaker(int failureThreshold, long probeIntervalMillis, Probe probe, Runnable onOpen) {
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.probeIntervalMillis = probeIntervalMillis;
+        this.probe = probe;
+        this.onOpen = onOpen;
+    }
+
+    /**
+     * Lève une exception sans attendre si le disjoncteur est ouvert
+     */
+    public void checkAvailable() throws SQLException {
+        if (open) {
+            rejected.incrementAndGet();
+            long seconds = (System.currentTimeMillis() - openedAt) / 1000;
+            throw new SQLTransientConnectionException(
+                    "Base de données indisponible depuis " + seconds + " s (" + lastError + ")", "08001");
+        }
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+    }
+
+    /**
+     * Compte une erreur si elle traduit une base injoignable ou qui ne répond plus
+     */
+    public void recordFailure(SQLException e) {
+        if (!isOutage(e)) return;
+        lastError = e.getMessage();
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            trip();
+        }
+    }
+
+    /**
+     * Erreurs de connexion seulement (SQLState 08, perte du lien réseau).
+     * Un délai de requête dépassé vient d'une requête lente, pas d'une base injoignable :
+     * il est compté à part dans QueryMetrics et le journal des requêtes lentes.
+     */
+    public static boolean isOutage(SQLException e) {
+        String state = e.getSQLState();
+        if (state != null && state.startsWith("08")) return true;
+        if (e instanceof SQLTransientConnectionException || e instanceof SQLNonTransientConnectionException) return true;
+        // CommunicationsException du pilote MySQL (« Communications link failure »), parfois enveloppée
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause.getClass().getSimpleName().equals("CommunicationsException")) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Erreurs qu'il vaut la peine de retenter telles quelles : panne de connexion, délai dépassé,
+     * interblocage ou attente de verrou. Les autres (contrainte violée, donnée invalide) échoueront à nouveau.
+     */
+    public static boolean isTransient(SQLException e) {
+        return isOutage(e) || e instanceof SQLTransientException || e instanceof SQLRecoverableException;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    public long getOpenings() {
+        return openings.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    private synchronized void trip() {
+        if (open) return;
+        open = true;
+        openedAt = System.currentTimeMillis();
+        openings.incrementAndGet();
+        System.err.println("Disjoncteur base de données ouvert après " + consecutiveFailures.get()
+                + " erreurs: " + lastError);
+        if (onOpen != null) {
+            onOpen.run();
+        }
+
+        Thread prober = new Thread(this::probeUntilAvailable, "db-breaker-probe");
+        prober.setDaemon(true);
+        prober.start();
+    }
+
+    private void probeUntilAvailable() {
+        while (open) {
+            try {
+                Thread.sleep(probeIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            boolean available;
+            try {
+                available = probe.isAvailable();
+            } catch (SQLException e) {
+                lastError = e.getMessage();
+                available = false;
+            }
+            if (available) {
+                consecutiveFailures.set(0);
+                open = false;
+                System.out.println("Disjoncteur base de données refermé après "
+                        + (System.currentTimeMillis() - openedAt) / 1000 + " s");
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.myapp.config;
+
+import com.myapp.utils.LatencyHistogram;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool de connexions JDBC borné.
+ * Le nombre de connexions empruntées est limité par un sémaphore équitable : au-delà, l'appelant attend
+ * jusqu'au délai configuré. Les connexions inactives depuis trop longtemps sont validées avant d'être rendues.
+ */
+public class ConnectionPool {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    // setNetworkTimeout s'applique immédiatement : pas besoin d'un vrai exécuteur
+    private static final Executor DIRECT = Runnable::run;
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final long validationIntervalNanos;
+    private final int statementCacheSize;
+    private final int queryTimeoutSeconds;
+    private final int networkTimeoutMillis;
+    private final CircuitBreaker breaker;
+
+    private final Semaphore permits;
+    private final Deque<PhysicalConnection> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong acquireTimeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final LatencyHistogram acquireTimes = new LatencyHistogram();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+    private volatile boolean closed;
+    private volatile Runnable writeListener;
+
+    /**
+     * @param queryTimeoutSeconds délai d'exécution appliqué à chaque requête remise (0 = aucun)
+     * @param networkTimeoutMillis délai de lecture réseau des connexions physiques (0 = aucun)
+     * @param breakerThreshold erreurs de connexion consécutives avant ouverture du disjoncteur
+     * @param breakerProbeMillis intervalle des tests de la base pendant que le disjoncteur est ouvert
+     */
+    public ConnectionPool(String url, String user, String password, int maxSize,
+                          long acquireTimeoutMillis, long validationIntervalMillis, int statementCacheSize,
+                          int queryTimeoutSeconds, int networkTimeoutMillis,
+                          int breakerThreshold, long breakerProbeMillis) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("La taille du pool doit être au moins 1");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.validationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(validationIntervalMillis);
+        this.statementCacheSize = statementCacheSize;
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        this.networkTimeoutMillis = networkTimeoutMillis;
+        this.breaker = new CircuitBreaker(breakerThreshold, breakerProbeMillis, this::probe, this::closeIdle);
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Emprunte une connexion ; la fermer la rend au pool
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Le pool de connexions est fermé");
+        }
+        breaker.checkAvailable();
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompu pendant l'attente d'une connexion", e);
+        }
+        if (!acquired) {
+            acquireTimeouts.incrementAndGet();
+            throw new SQLTimeoutException("Aucune connexion disponible après " + acquireTimeoutMillis + " ms");
+        }
+
+        try {
+            PhysicalConnection physical = takeIdleOrCreate();
+            active.incrementAndGet();
+            acquireTimes.recordNanos(System.nanoTime() - start);
+            return PooledConnection.wrap(this, physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PhysicalConnection takeIdleOrCreate() throws SQLException {
+        PhysicalConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            if (System.nanoTime() - candidate.idleSince < validationIntervalNanos) {
+                return candidate;
+            }
+            if (isUsable(candidate.connection)) {
+                return candidate;
+            }
+            validationFailures.incrementAndGet();
+            candidate.close();
+        }
+        Connection connection;
+        try {
+            connection = DriverManager.getConnection(url, user, password);
+            if (networkTimeoutMillis > 0) {
+                connection.setNetworkTimeout(DIRECT, networkTimeoutMillis);
+            }
+        } catch (SQLException e) {
+            breaker.recordFailure(e);
+            throw e;
+        }
+        created.incrementAndGet();
+        return new PhysicalConnection(connection, new StatementCache(statementCacheSize, statementCounters));
+    }
+
+    /**
+     * Test du disjoncteur : une connexion neuve qui répond
+     */
+    private boolean probe() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        }
+    }
+
+    /**
+     * Appelé pour chaque erreur SQL d'une connexion empruntée
+     */
+    void onError(SQLException e) {
+        breaker.recordFailure(e);
+    }
+
+    private void closeIdle() {
+        PhysicalConnection candidate;
+        while ((candidate = idle.pollFirst()) != null) {
+            candidate.close();
+        }
+    }
+
+    private boolean isUsable(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Appelé par la connexion logique lors de sa fermeture
+     * @param outage la connexion a rencontré une erreur de connexion (un délai de requête dépassé n'en est pas une)
+     * @param wrote une requête de modification a été exécutée pendant l'emprunt
+     */
+    void release(PhysicalConnection physical, boolean broken, boolean outage, boolean wrote) {
+        active.decrementAndGet();
+        if (!outage) {
+            breaker.recordSuccess();
+        }
+        try {
+            if (broken || closed || !resetState(physical.connection)) {
+                physical.close();
+            } else {
+                physical.idleSince = System.nanoTime();
+                idle.offerFirst(physical);
+            }
+        } finally {
+            permits.release();
+            // Après le commit (ou l'annulation) : l'écriture est visible sur le primaire
+            Runnable listener = writeListener;
+            if (wrote && listener != null) {
+                listener.run();
+            }
+        }
+    }
+
+    private boolean resetState(Connection physical) {
+        try {
+            if (physical.isClosed()) return false;
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (physical.isReadOnly()) {
+                physical.setReadOnly(false);
+            }
+            if (physical.getNetworkTimeout() != networkTimeoutMillis) {
+                // Rétablir le délai réseau si un appelant l'a modifié (migrations)
+                physical.setNetworkTimeout(DIRECT, networkTimeoutMillis);
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Ferme toutes les connexions inactives et refuse les emprunts suivants.
+     * Les connexions encore empruntées seront fermées à leur restitution.
+     */
+    public void close() {
+        closed = true;
+        closeIdle();
+    }
+
+    /**
+     * Appelé à la restitution de chaque connexion ayant exécuté une modification
+     */
+    public void setWriteListener(Runnable writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    public boolean isAvailable() {
+        return !breaker.isOpen();
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    int getQueryTimeoutSeconds() {
+        return queryTimeoutSeconds;
+    }
+
+    public PoolStats getStats() {
+        return new PoolStats(
+                active.get(),
+                idle.size(),
+                permits.getQueueLength(),
+                maxSize,
+                created.get(),
+                acquireTimeouts.get(),
+                validationFailures.get(),
+                acquireTimes.getCount(),
+                acquireTimes.getMeanMillis(),
+                acquireTimes.getPercentileMillis(95),
+                acquireTimes.getPercentileMillis(99),
+                acquireTimes.getMaxMillis(),
+                acquireTimes.getBucketCounts(),
+                statementCounters.hits.get(),
+                statementCounters.misses.get(),
+                statementCounters.evictions.get()
+        );
+    }
+
+    public LatencyHistogram getAcquireTimeHistogram() {
+        return acquireTimes;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    static void closeQuietly(AutoCloseable resource) {
+        try {
+            resource.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * Connexion physique et son cache de requêtes préparées, qui la suit d'un emprunt à l'autre
+     */
+    static final class PhysicalConnection {
+        final Connection connection;
+        final StatementCache statements;
+        long idleSince;
+
+        PhysicalConnection(Connection connection, StatementCache statements) {
+            this.connection = connection;
+            this.statements = statements;
+        }
+
+        void close() {
+            statements.closeAll();
+            closeQuietly(connection);
+        }
+    }
+}
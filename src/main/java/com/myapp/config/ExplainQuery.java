@@ -0,0 +1,18 @@
+package com.myapp.config;
+
+import java.util.List;
+
+/**
+ * Requête d'un DAO à passer à EXPLAIN, avec des valeurs d'exemple pour ses paramètres
+ * @param allowFullScan true pour les requêtes qui listent volontairement toute une table
+ */
+public record ExplainQuery(String name, String sql, List<Object> params, boolean allowFullScan) {
+
+    public static ExplainQuery of(String name, String sql, Object... params) {
+        return new ExplainQuery(name, sql, List.of(params), false);
+    }
+
+    public static ExplainQuery fullScan(String name, String sql, Object... params) {
+        return new ExplainQuery(name, sql, List.of(params), true);
+    }
+}
@@ -0,0 +1,241 @@
+package com.myapp.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * Requête remise aux DAO : mesure la durée de chaque exécution, compte les lignes
+ * et les erreurs pour la méthode appelante, et écrit les requêtes lentes dans le journal.
+ * Une erreur de connexion (SQLState 08) marque la connexion comme inutilisable pour le pool.
+ * Chaque exécution est enregistrée dans la QueryScope du thread pour pouvoir être annulée.
+ * Les modifications sont signalées à la connexion (voir ReplicaRouter).
+ */
+class InstrumentedStatement implements InvocationHandler {
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final Set<String> WRITE_METHODS = Set.of(
+            "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private final Statement statement;
+    private final String sql;
+    private final Connection logical;
+    private final PooledConnection owner;
+
+    private InstrumentedStatement(Statement statement, String sql, Connection logical, PooledConnection owner) {
+        this.statement = statement;
+        this.sql = sql;
+        this.logical = logical;
+        this.owner = owner;
+    }
+
+    /**
+     * @param type interface exposée (Statement, PreparedStatement ou CallableStatement)
+     * @param sql texte de la requête préparée, null pour un Statement simple
+     */
+    static Object wrap(Class<?> type, Statement statement, String sql, Connection logical, PooledConnection owner) {
+        return Proxy.newProxyInstance(
+                InstrumentedStatement.class.getClassLoader(),
+                new Class<?>[]{type},
+                new InstrumentedStatement(statement, sql, logical, owner));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "getConnection":
+                return logical;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "InstrumentedStatement[" + statement + "]";
+            default:
+                break;
+        }
+        if (!EXECUTE_METHODS.contains(name)) {
+            return call(method, args);
+        }
+
+        QueryScope.beforeExecute(statement);
+        Object result;
+        try {
+            result = QueryMetrics.ENABLED ? measure(proxy, method, args) : call(method, args);
+        } finally {
+            QueryScope.afterExecute(statement);
+        }
+        // execute() renvoie false pour une modification
+        if (WRITE_METHODS.contains(name) || Boolean.FALSE.equals(result)) {
+            owner.onWrite();
+        }
+        return result;
+    }
+
+    private Object measure(Object proxy, Method method, Object[] args) throws Throwable {
+        // Un Statement simple reçoit son SQL à l'exécution
+        String text = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+        String caller = caller();
+        QueryMetrics.Entry metrics = QueryMetrics.entry(caller);
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = call(method, args);
+        } catch (SQLException e) {
+            long elapsed = System.nanoTime() - start;
+            metrics.recordExecution(elapsed, true);
+            // Délai dépassé : toujours journalisé, même sous le seuil (setQueryTimeout réduit par un appelant)
+            boolean timeout = e instanceof SQLTimeoutException;
+            if (timeout) metrics.recordTimeout();
+            if (timeout || elapsed >= SlowQueryLog.THRESHOLD_NANOS) {
+                SlowQueryLog.write(caller, elapsed, -1, text, e);
+            }
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        metrics.recordExecution(elapsed, false);
+
+        long rows = affectedRows(result);
+        metrics.addRows(rows);
+        if (elapsed >= SlowQueryLog.THRESHOLD_NANOS) {
+            SlowQueryLog.write(caller, elapsed, rows, text, null);
+        }
+        if (result instanceof ResultSet rs) {
+            return CountingResultSet.wrap(rs, metrics, (Statement) proxy, owner);
+        }
+        return result;
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(statement, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                owner.onError(sqlException);
+            }
+            throw cause;
+        }
+    }
+
+    /**
+     * Lignes modifiées pour une mise à jour ou un batch, -1 pour une lecture (comptée par le ResultSet)
+     */
+    private static long affectedRows(Object result) {
+        if (result instanceof Integer count) return Math.max(0, count);
+        if (result instanceof Long count) return Math.max(0, count);
+        if (result instanceof int[] counts) {
+            long total = 0;
+            for (int count : counts) {
+                if (count > 0) total += count;
+            }
+            return total;
+        }
+        if (result instanceof long[] counts) {
+            long total = 0;
+            for (long count : counts) {
+                if (count > 0) total += count;
+            }
+            return total;
+        }
+        return -1;
+    }
+
+    /**
+     * Méthode appelante hors pool et JDK, sous la forme "ScoreDAO.findAll"
+     */
+    private static String caller() {
+        return WALKER.walk(frames -> frames
+                .filter(frame -> !isInfrastructure(frame.getClassName()))
+                .findFirst()
+                .map(frame -> simpleName(frame.getClassName()) + "." + methodName(frame.getMethodName()))
+                .orElse("inconnu"));
+    }
+
+    private static boolean isInfrastructure(String className) {
+        return className.startsWith("java.") || className.startsWith("jdk.") || className.startsWith("sun.")
+                || className.startsWith("com.sun.") || className.startsWith("com.mysql.")
+                || className.startsWith(InstrumentedStatement.class.getName())
+                || className.equals(PooledConnection.class.getName())
+                || className.startsWith(StatementCache.class.getName());
+    }
+
+    private static String simpleName(String className) {
+        return className.substring(className.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * lambda$findAll$0 => findAll
+     */
+    private static String methodName(String method) {
+        if (method.startsWith("lambda$")) {
+            int end = method.indexOf('$', 7);
+            return end > 7 ? method.substring(7, end) : method;
+        }
+        return method;
+    }
+
+    /**
+     * ResultSet qui compte les lignes lues pour la méthode appelante
+     */
+    private static final class CountingResultSet implements InvocationHandler {
+        private final ResultSet resultSet;
+        private final QueryMetrics.Entry metrics;
+        private final Statement statement;
+        private final PooledConnection owner;
+
+        private CountingResultSet(ResultSet resultSet, QueryMetrics.Entry metrics,
+                                  Statement statement, PooledConnection owner) {
+            this.resultSet = resultSet;
+            this.metrics = metrics;
+            this.statement = statement;
+            this.owner = owner;
+        }
+
+        static ResultSet wrap(ResultSet resultSet, QueryMetrics.Entry metrics,
+                              Statement statement, PooledConnection owner) {
+            return (ResultSet) Proxy.newProxyInstance(
+                    InstrumentedStatement.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    new CountingResultSet(resultSet, metrics, statement, owner));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "getStatement":
+                    return statement;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            Object result;
+            try {
+                result = method.invoke(resultSet, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException sqlException) {
+                    owner.onError(sqlException);
+                }
+                throw cause;
+            }
+            if (result == Boolean.TRUE && method.getName().equals("next")) {
+                metrics.addRows(1);
+            }
+            return result;
+        }
+    }
+}
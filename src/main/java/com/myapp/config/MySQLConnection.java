@@ -1,7 +1,6 @@
 package com.myapp.config;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class MySQLConnection {
@@ -11,9 +10,84 @@ public class MySQLConnection {
     private static final String USER = "root";
     private static final String PASSWORD = "2004";
 
-    private static final String URL = String.format("jdbc:mysql://%s:%d/%s?useSSL=false&serverTimezone=UTC", HOST, PORT, DATABASE);
+    // Délais réseau, surchargeables par -Ddb.*Ms : une base qui ne répond plus ne bloque pas indéfiniment
+    private static final int CONNECT_TIMEOUT_MS = Integer.getInteger("db.connectTimeoutMs", 3000);
+    private static final int SOCKET_TIMEOUT_MS = Integer.getInteger("db.socketTimeoutMs", 15000);
+    private static final int QUERY_TIMEOUT_SECONDS = Integer.getInteger("db.queryTimeoutSeconds", 10);
 
+    private static final String URL = String.format("jdbc:mysql://%s:%d/%s?useSSL=false&serverTimezone=UTC&useServerPrepStmts=true&rewriteBatchedStatements=true&connectTimeout=%d", HOST, PORT, DATABASE, CONNECT_TIMEOUT_MS);
+
+    // Paramètres du pool, surchargeables par -Ddb.pool.*
+    public static final int MAX_POOL_SIZE = Integer.getInteger("db.pool.maxSize", 10);
+    private static final long ACQUIRE_TIMEOUT_MS = Long.getLong("db.pool.acquireTimeoutMs", 5000);
+    private static final long VALIDATION_INTERVAL_MS = Long.getLong("db.pool.validationIntervalMs", 30000);
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("db.statementCache.size", 64);
+
+    // Disjoncteur : erreurs consécutives avant ouverture, intervalle des tests de reprise
+    private static final int BREAKER_THRESHOLD = Integer.getInteger("db.breaker.failureThreshold", 3);
+    private static final long BREAKER_PROBE_MS = Long.getLong("db.breaker.probeIntervalMs", 5000);
+
+    // Réplica en lecture seule, désactivé si -Ddb.replica.url n'est pas renseigné
+    private static final String REPLICA_URL = System.getProperty("db.replica.url");
+    private static final long REPLICA_MAX_LAG_MS = Long.getLong("db.replica.maxLagMs", 5000);
+    private static final long REPLICA_LAG_CHECK_MS = Long.getLong("db.replica.lagCheckMs", 2000);
+
+    private static final ConnectionPool POOL = new ConnectionPool(URL, USER, PASSWORD,
+            MAX_POOL_SIZE, ACQUIRE_TIMEOUT_MS, VALIDATION_INTERVAL_MS, STATEMENT_CACHE_SIZE,
+            QUERY_TIMEOUT_SECONDS, SOCKET_TIMEOUT_MS, BREAKER_THRESHOLD, BREAKER_PROBE_MS);
+
+    private static final ReplicaRouter REPLICA = createReplicaRouter();
+
+    private static ReplicaRouter createReplicaRouter() {
+        if (REPLICA_URL == null || REPLICA_URL.isBlank()) {
+            return null;
+        }
+        ConnectionPool replica = new ConnectionPool(REPLICA_URL,
+                System.getProperty("db.replica.user", USER), System.getProperty("db.replica.password", PASSWORD),
+                Integer.getInteger("db.replica.pool.maxSize", MAX_POOL_SIZE), ACQUIRE_TIMEOUT_MS,
+                VALIDATION_INTERVAL_MS, STATEMENT_CACHE_SIZE,
+                QUERY_TIMEOUT_SECONDS, SOCKET_TIMEOUT_MS, BREAKER_THRESHOLD, BREAKER_PROBE_MS);
+        return new ReplicaRouter(POOL, replica, REPLICA_MAX_LAG_MS, REPLICA_LAG_CHECK_MS);
+    }
+
+    /**
+     * Emprunte une connexion au pool ; la fermer (try-with-resources) la rend au pool
+     */
     public static Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(URL, USER, PASSWORD);
+        return POOL.getConnection();
+    }
+
+    /**
+     * Connexion pour une lecture de liste ou de classement qui tolère un léger retard (db.replica.maxLagMs).
+     * Sans réplica configuré, ou si le réplica est en retard, injoignable ou n'a pas encore rejoué
+     * la dernière écriture de l'application, la connexion vient du primaire.
+     * Ne jamais l'utiliser pour écrire ni pour une lecture qui précède une écriture.
+     */
+    public static Connection getReadConnection() throws SQLException {
+        return REPLICA != null ? REPLICA.getReadConnection() : POOL.getConnection();
+    }
+
+    /**
+     * Faux tant que le disjoncteur est ouvert : les emprunts échouent alors immédiatement
+     */
+    public static boolean isAvailable() {
+        return POOL.isAvailable();
+    }
+
+    public static PoolStats getPoolStats() {
+        return POOL.getStats();
+    }
+
+    /**
+     * Ferme le pool à l'arrêt de l'application
+     */
+    public static void shutdown() {
+        System.out.println("Fermeture du pool de connexions: " + POOL.getStats());
+        POOL.close();
+        if (REPLICA != null) {
+            System.out.println("Fermeture du " + REPLICA);
+            REPLICA.close();
+        }
+        SlowQueryLog.close();
     }
 }
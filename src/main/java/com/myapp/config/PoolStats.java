@@ -0,0 +1,39 @@
+package com.myapp.config;
+
+/**
+ * Instantané des statistiques du pool de connexions
+ * Les compteurs d'attente sont exprimés en millisecondes ; acquireHistogram suit les bornes de LatencyHistogram
+ */
+public record PoolStats(
+        int active,
+        int idle,
+        int waiters,
+        int maxSize,
+        long totalCreated,
+        long acquireTimeouts,
+        long validationFailures,
+        long acquireCount,
+        double acquireMeanMillis,
+        double acquireP95Millis,
+        double acquireP99Millis,
+        double acquireMaxMillis,
+        long[] acquireHistogram,
+        long statementCacheHits,
+        long statementCacheMisses,
+        long statementCacheEvictions
+) {
+    public double statementCacheHitRate() {
+        long total = statementCacheHits + statementCacheMisses;
+        return total == 0 ? 0.0 : (double) statementCacheHits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pool[active=%d, idle=%d, waiters=%d, max=%d, created=%d, timeouts=%d, invalid=%d, " +
+                        "acquire: n=%d mean=%.2fms p95=%.2fms p99=%.2fms max=%.2fms, " +
+                        "statements: hits=%d misses=%d evictions=%d]",
+                active, idle, waiters, maxSize, totalCreated, acquireTimeouts, validationFailures,
+                acquireCount, acquireMeanMillis, acquireP95Millis, acquireP99Millis, acquireMaxMillis,
+                statementCacheHits, statementCacheMisses, statementCacheEvictions);
+    }
+}
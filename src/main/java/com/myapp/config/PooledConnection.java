@@ -0,0 +1,122 @@
+package com.myapp.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connexion logique remise aux DAO : délègue à la connexion physique,
+ * mais close() la rend au pool au lieu de la fermer.
+ * prepareStatement(sql) et prepareStatement(sql, autoGeneratedKeys) passent par le cache de la connexion.
+ * Les requêtes remises reçoivent le délai d'exécution du pool et sont instrumentées (voir QueryMetrics).
+ */
+class PooledConnection implements InvocationHandler {
+    private final ConnectionPool pool;
+    private final ConnectionPool.PhysicalConnection physical;
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private volatile boolean broken;
+    // Erreur de connexion ou délai dépassé pendant cet emprunt
+    private volatile boolean outage;
+    // Une modification a été exécutée pendant cet emprunt
+    private volatile boolean wrote;
+
+    private PooledConnection(ConnectionPool pool, ConnectionPool.PhysicalConnection physical) {
+        this.pool = pool;
+        this.physical = physical;
+    }
+
+    static Connection wrap(ConnectionPool pool, ConnectionPool.PhysicalConnection physical) {
+        return (Connection) Proxy.newProxyInstance(
+                PooledConnection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new PooledConnection(pool, physical));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "close":
+                if (closed.compareAndSet(false, true)) {
+                    pool.release(physical, broken, outage, wrote);
+                }
+                return null;
+            case "isClosed":
+                return closed.get() || physical.connection.isClosed();
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "PooledConnection[" + physical.connection + "]";
+            default:
+                break;
+        }
+
+        if (closed.get()) {
+            throw new SQLException("Connexion déjà rendue au pool");
+        }
+
+        Object result;
+        try {
+            if (isCacheablePrepare(method)) {
+                Integer autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : null;
+                result = physical.statements.prepare(physical.connection, (Connection) proxy,
+                        (String) args[0], autoGeneratedKeys);
+            } else {
+                result = method.invoke(physical.connection, args);
+            }
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlException) {
+                onError(sqlException);
+            }
+            throw cause;
+        } catch (SQLException e) {
+            onError(e);
+            throw e;
+        }
+
+        if (result instanceof Statement statement) {
+            statement.setQueryTimeout(pool.getQueryTimeoutSeconds());
+            String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+            return InstrumentedStatement.wrap(method.getReturnType(), statement, sql, (Connection) proxy, this);
+        }
+        return result;
+    }
+
+    void onWrite() {
+        wrote = true;
+    }
+
+    /**
+     * Appelé pour toute erreur SQL levée par la connexion ou l'une de ses requêtes
+     */
+    void onError(SQLException e) {
+        if (isConnectionError(e)) {
+            broken = true;
+        }
+        if (CircuitBreaker.isOutage(e)) {
+            outage = true;
+            pool.onError(e);
+        }
+    }
+
+    private static boolean isCacheablePrepare(Method method) {
+        if (!method.getName().equals("prepareStatement")) return false;
+        Class<?>[] types = method.getParameterTypes();
+        return types.length == 1 || (types.length == 2 && types[1] == int.class);
+    }
+
+    /**
+     * Les SQLState de classe 08 signalent une connexion inutilisable
+     */
+    private static boolean isConnectionError(SQLException e) {
+        String state = e.getSQLState();
+        return state != null && state.startsWith("08");
+    }
+}
@@ -0,0 +1,86 @@
+package com.myapp.config;
+
+import com.myapp.utils.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mesures des requêtes SQL par méthode de DAO appelante (ex. "ScoreDAO.findAll") :
+ * histogramme des latences d'exécution, lignes lues ou modifiées, erreurs dont délais dépassés.
+ * Alimenté par les requêtes instrumentées des connexions du pool.
+ */
+public final class QueryMetrics {
+    public static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("db.metrics.enabled", "true"));
+
+    private static final ConcurrentHashMap<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+    private QueryMetrics() {
+    }
+
+    /**
+     * Mesures cumulées d'une méthode appelante
+     */
+    public record Stats(String caller, long executions, long errors, long timeouts, long rows,
+                        double meanMillis, double p95Millis, double p99Millis, double maxMillis) {
+
+        public double totalMillis() {
+            return meanMillis * executions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d exécutions, %d erreurs (%d délais dépassés), %d lignes, moy %.2f ms, p95 %.2f ms, p99 %.2f ms, max %.2f ms",
+                    caller, executions, errors, timeouts, rows, meanMillis, p95Millis, p99Millis, maxMillis);
+        }
+    }
+
+    static Entry entry(String caller) {
+        return ENTRIES.computeIfAbsent(caller, key -> new Entry());
+    }
+
+    /**
+     * Mesures de toutes les méthodes, de la plus coûteuse (temps cumulé) à la moins coûteuse
+     */
+    public static List<Stats> getSnapshot() {
+        List<Stats> snapshot = new ArrayList<>();
+        ENTRIES.forEach((caller, entry) -> snapshot.add(new Stats(caller,
+                entry.latency.getCount(),
+                entry.errors.sum(),
+                entry.timeouts.sum(),
+                entry.rows.sum(),
+                entry.latency.getMeanMillis(),
+                entry.latency.getPercentileMillis(95),
+                entry.latency.getPercentileMillis(99),
+                entry.latency.getMaxMillis())));
+        snapshot.sort(Comparator.comparingDouble(Stats::totalMillis).reversed());
+        return snapshot;
+    }
+
+    public static void reset() {
+        ENTRIES.clear();
+    }
+
+    static final class Entry {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+
+        void recordExecution(long nanos, boolean error) {
+            latency.recordNanos(nanos);
+            if (error) errors.increment();
+        }
+
+        void recordTimeout() {
+            timeouts.increment();
+        }
+
+        void addRows(long count) {
+            if (count > 0) rows.add(count);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.myapp.config;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Passe les requêtes des DAO à EXPLAIN et signale celles qui parcourent une table entière :
+ * type ALL, parcours complet d'un index (type index) lisant presque toutes les lignes de la table,
+ * ou aucun index utilisable (possible_keys NULL) sur un grand nombre de lignes.
+ * Les tables dérivées (sous-requêtes matérialisées) et résultats d'UNION sont ignorés, leur parcours étant inhérent.
+ */
+public class QueryPlanChecker {
+    // En dessous, un parcours complet reste bon marché (ex. table des thèmes)
+    private static final long MIN_ROWS = Long.getLong("db.explain.minRows", 1000);
+    // Part des lignes de la table au-delà de laquelle un parcours d'index équivaut à un parcours complet
+    private static final double INDEX_SCAN_RATIO = Double.parseDouble(System.getProperty("db.explain.indexScanRatio", "0.8"));
+
+    private static final String TABLE_ROWS_SQL =
+            "SELECT table_name, table_rows FROM information_schema.tables WHERE table_schema = DATABASE()";
+    // EXPLAIN donne l'alias de la table : « FROM scores s », « JOIN users AS u »
+    private static final Pattern TABLE_ALIAS = Pattern.compile(
+            "\\b(?:FROM|JOIN)\\s+(\\w+)(?:\\s+(?:AS\\s+)?(\\w+))?", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * @return une ligne par problème trouvé ; liste vide si tous les plans sont acceptables
+     */
+    public List<String> check(List<ExplainQuery> queries) throws SQLException {
+        List<String> problems = new ArrayList<>();
+        try (Connection c = MySQLConnection.getConnection()) {
+            Map<String, Long> tableRows = loadTableRows(c);
+            for (ExplainQuery query : queries) {
+                Map<String, String> aliases = aliases(query.sql());
+                List<String> plan = new ArrayList<>();
+                List<String> fullScans = new ArrayList<>();
+                try (PreparedStatement ps = c.prepareStatement("EXPLAIN " + query.sql())) {
+                    for (int i = 0; i < query.params().size(); i++) {
+                        ps.setObject(i + 1, query.params().get(i));
+                    }
+                    ResultSet rs = ps.executeQuery();
+                    while (rs.next()) {
+                        String table = rs.getString("table");
+                        String type = rs.getString("type");
+                        String key = rs.getString("key");
+                        String possibleKeys = rs.getString("possible_keys");
+                        long rows = rs.getLong("rows");
+                        plan.add(table + ":" + type + (key != null ? "(" + key + ")" : "") + " rows=" + rows);
+                        if (table == null || table.startsWith("<derived") || table.startsWith("<union")) continue;
+
+                        Long total = tableRows.get(aliases.getOrDefault(table.toLowerCase(Locale.ROOT), table.toLowerCase(Locale.ROOT)));
+                        String reason = fullScanReason(type, possibleKeys, rows, total);
+                        if (reason != null) {
+                            fullScans.add(table + " (" + reason + ")");
+                        }
+                    }
+                } catch (SQLException e) {
+                    problems.add(query.name() + ": EXPLAIN impossible (" + e.getMessage() + ")");
+                    continue;
+                }
+
+                boolean ok = fullScans.isEmpty() || query.allowFullScan();
+                System.out.println((ok ? "OK    " : "ÉCHEC ") + query.name() + " -> " + String.join(", ", plan));
+                if (!ok) {
+                    problems.add(query.name() + ": parcours complet de " + String.join(", ", fullScans));
+                }
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * @param total lignes estimées de la table, null si inconnu
+     * @return la raison pour laquelle la ligne du plan équivaut à un parcours complet, null sinon
+     */
+    private static String fullScanReason(String type, String possibleKeys, long rows, Long total) {
+        if ("ALL".equals(type)) return "type ALL";
+        if ("const".equals(type) || "system".equals(type) || rows < MIN_ROWS) return null;
+        if ("index".equals(type) && (total == null || rows >= total * INDEX_SCAN_RATIO)) {
+            return "index entier, " + rows + (total != null ? "/" + total : "") + " lignes";
+        }
+        if (possibleKeys == null) return "aucun index utilisable, " + rows + " lignes";
+        return null;
+    }
+
+    /**
+     * Lignes estimées de chaque table du schéma (mêmes statistiques que la colonne rows d'EXPLAIN)
+     */
+    private static Map<String, Long> loadTableRows(Connection c) throws SQLException {
+        Map<String, Long> rows = new HashMap<>();
+        try (PreparedStatement ps = c.prepareStatement(TABLE_ROWS_SQL)) {
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                rows.put(rs.getString(1).toLowerCase(Locale.ROOT), rs.getLong(2));
+            }
+        }
+        return rows;
+    }
+
+    private static Map<String, String> aliases(String sql) {
+        Map<String, String> aliases = new HashMap<>();
+        Matcher m = TABLE_ALIAS.matcher(sql);
+        while (m.find()) {
+            String table = m.group(1).toLowerCase(Locale.ROOT);
+            String alias = m.group(2);
+            if (alias != null && !isKeyword(alias)) {
+                aliases.put(alias.toLowerCase(Locale.ROOT), table);
+            }
+        }
+        return aliases;
+    }
+
+    private static boolean isKeyword(String word) {
+        return switch (word.toUpperCase(Locale.ROOT)) {
+            case "WHERE", "ON", "USING", "INNER", "LEFT", "RIGHT", "JOIN", "GROUP", "ORDER", "LIMIT",
+                 "UNION", "FOR", "STRAIGHT_JOIN", "CROSS", "NATURAL", "WINDOW", "HAVING" -> true;
+            default -> false;
+        };
+    }
+}
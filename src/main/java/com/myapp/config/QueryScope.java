@@ -0,0 +1,102 @@
+package com.myapp.config;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Portée d'annulation des requêtes : une tâche exécutée dans une portée enregistre ses requêtes en cours,
+ * qui peuvent être annulées depuis un autre thread (Statement.cancel, soit KILL QUERY côté MySQL).
+ * Les tâches de lecture d'un écran sont étiquetées avec la génération de navigation ; quitter l'écran
+ * annule celles des générations précédentes.
+ */
+public final class QueryScope {
+    // SQLState d'une requête interrompue (comme MySQL)
+    public static final String CANCELLED_STATE = "70100";
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+    private static final Set<Scope> ACTIVE = ConcurrentHashMap.newKeySet();
+
+    private QueryScope() {
+    }
+
+    private static final class Scope {
+        final long tag;
+        final Set<Statement> running = ConcurrentHashMap.newKeySet();
+        volatile boolean cancelled;
+
+        Scope(long tag) {
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * Exécute la tâche dans une portée étiquetée
+     */
+    public static <T> T call(long tag, Supplier<T> task) {
+        Scope scope = new Scope(tag);
+        Scope previous = CURRENT.get();
+        ACTIVE.add(scope);
+        CURRENT.set(scope);
+        try {
+            return task.get();
+        } finally {
+            ACTIVE.remove(scope);
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Vrai si la portée du thread courant a été annulée
+     */
+    public static boolean isCancelled() {
+        Scope scope = CURRENT.get();
+        return scope != null && scope.cancelled;
+    }
+
+    /**
+     * Annule les portées d'étiquette inférieure à tag et leurs requêtes en cours
+     * @return nombre de requêtes interrompues
+     */
+    public static int cancelBefore(long tag) {
+        int interrupted = 0;
+        for (Scope scope : ACTIVE) {
+            if (scope.tag >= tag) continue;
+            scope.cancelled = true;
+            for (Statement statement : scope.running) {
+                try {
+                    statement.cancel();
+                    interrupted++;
+                } catch (SQLException e) {
+                    System.err.println("Annulation de requête impossible: " + e.getMessage());
+                }
+            }
+        }
+        return interrupted;
+    }
+
+    /**
+     * Enregistre une requête avant son exécution ; refuse de l'exécuter si la portée est annulée
+     */
+    static void beforeExecute(Statement statement) throws SQLException {
+        Scope scope = CURRENT.get();
+        if (scope == null) return;
+        // Enregistrer avant de tester : une annulation concurrente voit la requête ou l'a déjà refusée
+        scope.running.add(statement);
+        if (scope.cancelled) {
+            scope.running.remove(statement);
+            throw new SQLException("Requête annulée: l'écran a été quitté", CANCELLED_STATE);
+        }
+    }
+
+    static void afterExecute(Statement statement) {
+        Scope scope = CURRENT.get();
+        if (scope != null) scope.running.remove(statement);
+    }
+}
@@ -0,0 +1,145 @@
+package com.myapp.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aiguillage des lectures vers un réplica en lecture seule, avec un retard borné.
+ * Un thread de fond mesure le retard de réplication (SHOW REPLICA STATUS) ; une lecture va au réplica seulement si :
+ * - le retard mesuré ne dépasse pas maxLagMillis ;
+ * - le réplica a rejoué la dernière écriture faite par cette application (lecture de ses propres écritures) ;
+ * - le réplica répond (sinon la lecture retombe sur le primaire).
+ * Une application de bureau correspond à une session utilisateur : la dernière écriture du processus
+ * est donc celle de l'utilisateur.
+ */
+class ReplicaRouter {
+    // Seconds_Behind_Source est arrondi à la seconde : marge ajoutée au retard mesuré
+    private static final long LAG_GRANULARITY_MS = 1000;
+
+    private final ConnectionPool primary;
+    private final ConnectionPool replica;
+    private final long maxLagMillis;
+    private final long checkIntervalMillis;
+
+    // Dernière écriture rendue au pool primaire (horloge murale)
+    private volatile long lastWriteMillis;
+    // Instant jusqu'auquel le réplica a rejoué le primaire, d'après la dernière mesure
+    private volatile long appliedUntilMillis = Long.MIN_VALUE;
+    private volatile long lagMillis = -1;
+    private volatile boolean statusWarned;
+    private volatile boolean stopped;
+
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong lagFallbacks = new AtomicLong();
+    private final AtomicLong ownWriteFallbacks = new AtomicLong();
+    private final AtomicLong errorFallbacks = new AtomicLong();
+
+    ReplicaRouter(ConnectionPool primary, ConnectionPool replica, long maxLagMillis, long checkIntervalMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        this.maxLagMillis = maxLagMillis;
+        this.checkIntervalMillis = checkIntervalMillis;
+        primary.setWriteListener(() -> lastWriteMillis = System.currentTimeMillis());
+
+        Thread monitor = new Thread(this::monitorLag, "db-replica-lag");
+        monitor.setDaemon(true);
+        monitor.start();
+    }
+
+    /**
+     * Connexion pour une lecture tolérant un retard borné : le réplica si possible, sinon le primaire
+     */
+    Connection getReadConnection() throws SQLException {
+        long lag = lagMillis;
+        if (lag < 0 || lag > maxLagMillis || !replica.isAvailable()) {
+            lagFallbacks.incrementAndGet();
+            return primary.getConnection();
+        }
+        if (lastWriteMillis >= appliedUntilMillis) {
+            ownWriteFallbacks.incrementAndGet();
+            return primary.getConnection();
+        }
+        try {
+            Connection connection = replica.getConnection();
+            replicaReads.incrementAndGet();
+            return connection;
+        } catch (SQLException e) {
+            errorFallbacks.incrementAndGet();
+            return primary.getConnection();
+        }
+    }
+
+    void close() {
+        stopped = true;
+        replica.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("réplica: %d lectures, retard %s, replis primaire: %d retard, %d écritures récentes, %d erreurs",
+                replicaReads.get(), lagMillis < 0 ? "inconnu" : lagMillis + " ms",
+                lagFallbacks.get(), ownWriteFallbacks.get(), errorFallbacks.get());
+    }
+
+    private void monitorLag() {
+        while (!stopped) {
+            checkLag();
+            try {
+                Thread.sleep(checkIntervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void checkLag() {
+        long checkedAt = System.currentTimeMillis();
+        try (Connection c = replica.getConnection()) {
+            Long seconds = readLagSeconds(c);
+            if (seconds == null) {
+                // Réplication arrêtée : le réplica ne rattrapera plus le primaire
+                lagMillis = -1;
+                return;
+            }
+            long lag = seconds * 1000 + LAG_GRANULARITY_MS;
+            lagMillis = lag;
+            appliedUntilMillis = checkedAt - lag;
+        } catch (SQLException e) {
+            if (lagMillis >= 0) {
+                System.err.println("Retard du réplica non mesurable, lectures sur le primaire: " + e.getMessage());
+            }
+            lagMillis = -1;
+        }
+    }
+
+    /**
+     * Retard en secondes, null si la réplication est arrêtée.
+     * Un serveur sans statut de réplication (seconde instance de test) est considéré à jour.
+     */
+    private Long readLagSeconds(Connection c) throws SQLException {
+        try (Statement st = c.createStatement()) {
+            ResultSet rs;
+            String column;
+            try {
+                rs = st.executeQuery("SHOW REPLICA STATUS");
+                column = "Seconds_Behind_Source";
+            } catch (SQLException e) {
+                // MySQL antérieur à 8.0.22
+                rs = st.executeQuery("SHOW SLAVE STATUS");
+                column = "Seconds_Behind_Master";
+            }
+            if (!rs.next()) {
+                if (!statusWarned) {
+                    statusWarned = true;
+                    System.err.println("Le réplica n'a pas de statut de réplication : retard supposé nul");
+                }
+                return 0L;
+            }
+            long seconds = rs.getLong(column);
+            return rs.wasNull() ? null : seconds;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.myapp.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Applique les migrations de schéma versionnées (src/main/resources/db/migration/V<n>__<description>.sql)
+ * et les enregistre dans la table schema_history.
+ * Une migration appliquée n'est jamais rejouée ; un verrou nommé MySQL empêche deux instances de migrer en même temps.
+ */
+public class SchemaMigrator {
+    // Ordre d'application ; ajouter ici chaque nouveau script
+    private static final String[] MIGRATIONS = {
+            "V1__score_query_indexes.sql",
+            "V2__score_daily_rollups.sql",
+            "V3__row_versions.sql",
+            "V4__score_user_theme_totals.sql",
+            "V5__password_migration_checkpoint.sql",
+            "V6__score_time_indexes.sql"
+    };
+
+    private static final String LOCATION = "/db/migration/";
+    private static final String LOCK_NAME = "memory_game_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 30;
+
+    // Erreurs MySQL tolérées pour les scripts écrits avant l'historique : index ou colonne déjà présents
+    private static final int ER_DUP_FIELDNAME = 1060;
+    private static final int ER_DUP_KEYNAME = 1061;
+
+    private static final String CREATE_HISTORY_SQL = "CREATE TABLE IF NOT EXISTS schema_history (" +
+            "version INT PRIMARY KEY, " +
+            "description VARCHAR(200) NOT NULL, " +
+            "checksum BIGINT NOT NULL, " +
+            "execution_ms INT NOT NULL, " +
+            "applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+
+    /**
+     * Applique les migrations manquantes
+     * @return nombre de migrations appliquées
+     */
+    public int migrate() throws SQLException {
+        try (Connection c = MySQLConnection.getConnection()) {
+            acquireLock(c);
+            try {
+                try (Statement st = c.createStatement()) {
+                    st.execute(CREATE_HISTORY_SQL);
+                }
+                Map<Integer, Long> applied = loadHistory(c);
+
+                int count = 0;
+                for (String file : MIGRATIONS) {
+                    Migration migration = Migration.load(file);
+                    Long checksum = applied.get(migration.version);
+                    if (checksum != null) {
+                        if (checksum != migration.checksum) {
+                            System.err.println("Migration " + file + " modifiée après application (somme de contrôle différente)");
+                        }
+                        continue;
+                    }
+                    apply(c, migration);
+                    count++;
+                }
+                if (count > 0) {
+                    System.out.println("Schéma: " + count + " migration(s) appliquée(s)");
+                }
+                return count;
+            } finally {
+                releaseLock(c);
+            }
+        }
+    }
+
+    /**
+     * Versions appliquées et leur somme de contrôle
+     */
+    private Map<Integer, Long> loadHistory(Connection c) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (PreparedStatement ps = c.prepareStatement("SELECT version, checksum FROM schema_history");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                applied.put(rs.getInt("version"), rs.getLong("checksum"));
+            }
+        }
+        return applied;
+    }
+
+    private void apply(Connection c, Migration migration) throws SQLException {
+        long start = System.currentTimeMillis();
+        // Une création d'index sur une grosse table dépasse les délais des requêtes ordinaires ;
+        // le pool rétablit le délai réseau quand la connexion lui est rendue
+        c.setNetworkTimeout(Runnable::run, 0);
+        // Les instructions DDL de MySQL valident implicitement : pas de transaction possible
+        try (Statement st = c.createStatement()) {
+            st.setQueryTimeout(0);
+            for (String sql : migration.statements) {
+                try {
+                    st.execute(sql);
+                } catch (SQLException e) {
+                    if (e.getErrorCode() == ER_DUP_KEYNAME || e.getErrorCode() == ER_DUP_FIELDNAME) {
+                        System.out.println("Migration V" + migration.version + ": déjà présent, ignoré (" + e.getMessage() + ")");
+                    } else {
+                        throw new SQLException("Échec de la migration V" + migration.version + " sur: " + sql, e);
+                    }
+                }
+            }
+        }
+        int elapsed = (int) (System.currentTimeMillis() - start);
+
+        try (PreparedStatement ps = c.prepareStatement(
+                "INSERT INTO schema_history (version, description, checksum, execution_ms) VALUES (?, ?, ?, ?)")) {
+            ps.setInt(1, migration.version);
+            ps.setString(2, migration.description);
+            ps.setLong(3, migration.checksum);
+            ps.setInt(4, elapsed);
+            ps.executeUpdate();
+        }
+        System.out.println("Migration V" + migration.version + " (" + migration.description + ") appliquée en " + elapsed + " ms");
+    }
+
+    private void acquireLock(Connection c) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.setInt(2, LOCK_TIMEOUT_SECONDS);
+            ResultSet rs = ps.executeQuery();
+            if (!rs.next() || rs.getInt(1) != 1) {
+                throw new SQLException("Impossible d'obtenir le verrou de migration du schéma");
+            }
+        }
+    }
+
+    private void releaseLock(Connection c) {
+        try (PreparedStatement ps = c.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            ps.setString(1, LOCK_NAME);
+            ps.executeQuery().close();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Script de migration chargé depuis les ressources
+     */
+    private static final class Migration {
+        final int version;
+        final String description;
+        final long checksum;
+        final List<String> statements;
+
+        private Migration(int version, String description, long checksum, List<String> statements) {
+            this.version = version;
+            this.description = description;
+            this.checksum = checksum;
+            this.statements = statements;
+        }
+
+        static Migration load(String file) throws SQLException {
+            int separator = file.indexOf("__");
+            if (!file.startsWith("V") || separator < 0 || !file.endsWith(".sql")) {
+                throw new SQLException("Nom de migration invalide: " + file);
+            }
+            int version = Integer.parseInt(file.substring(1, separator));
+            String description = file.substring(separator + 2, file.length() - 4).replace('_', ' ');
+
+            byte[] content;
+            try (InputStream in = SchemaMigrator.class.getResourceAsStream(LOCATION + file)) {
+                if (in == null) {
+                    throw new SQLException("Migration introuvable: " + LOCATION + file);
+                }
+                content = in.readAllBytes();
+            } catch (IOException e) {
+                throw new SQLException("Lecture impossible de la migration " + file, e);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(content);
+            return new Migration(version, description, crc.getValue(),
+                    split(new String(content, StandardCharsets.UTF_8)));
+        }
+
+        /**
+         * Découpe un script en instructions : une instruction se termine par ';' en fin de ligne,
+         * les lignes commençant par "--" sont des commentaires
+         */
+        static List<String> split(String script) {
+            List<String> statements = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            for (String line : script.split("\\R")) {
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+                current.append(trimmed).append(' ');
+                if (trimmed.endsWith(";")) {
+                    String sql = current.toString().trim();
+                    statements.add(sql.substring(0, sql.length() - 1));
+                    current.setLength(0);
+                }
+            }
+            if (!current.toString().isBlank()) {
+                statements.add(current.toString().trim());
+            }
+            return statements;
+        }
+    }
+}
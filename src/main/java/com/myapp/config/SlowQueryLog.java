@@ -0,0 +1,95 @@
+package com.myapp.config;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+/**
+ * Journal des requêtes lentes, avec rotation par taille (slow-queries.log, .1, .2...).
+ * Seul le texte SQL est écrit, jamais les valeurs des paramètres (hash de mots de passe, emails...).
+ */
+final class SlowQueryLog {
+    static final long THRESHOLD_NANOS = Long.getLong("db.slowQuery.thresholdMs", 200) * 1_000_000L;
+    private static final long MAX_BYTES = Long.getLong("db.slowQuery.maxBytes", 5L * 1024 * 1024);
+    private static final int MAX_FILES = Integer.getInteger("db.slowQuery.files", 3);
+    private static final int MAX_SQL_LENGTH = 2000;
+
+    private static final Path PATH = Paths.get(System.getProperty("db.slowQuery.path",
+            Paths.get(System.getProperty("user.home"), ".memory-game", "slow-queries.log").toString()));
+
+    private static Writer writer;
+    private static long size;
+    private static boolean disabled;
+
+    private SlowQueryLog() {
+    }
+
+    static synchronized void write(String caller, long nanos, long rows, String sql, Throwable error) {
+        if (disabled) return;
+        StringBuilder line = new StringBuilder(256)
+                .append(LocalDateTime.now()).append(' ')
+                .append(String.format("%.1f ms", nanos / 1_000_000.0)).append(' ')
+                .append(caller);
+        if (rows >= 0) line.append(" rows=").append(rows);
+        if (error != null) line.append(" error=\"").append(error.getMessage()).append('"');
+        String text = sql == null ? "?" : sql.replaceAll("\\s+", " ");
+        if (text.length() > MAX_SQL_LENGTH) text = text.substring(0, MAX_SQL_LENGTH) + "...";
+        line.append(" sql=").append(text).append('\n');
+
+        try {
+            byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+            if (writer == null) open();
+            if (size > 0 && size + bytes.length > MAX_BYTES) rotate();
+            writer.write(line.toString());
+            writer.flush();
+            size += bytes.length;
+        } catch (IOException e) {
+            // Un journal de diagnostic ne doit jamais faire échouer une requête
+            System.err.println("Journal des requêtes lentes désactivé: " + e.getMessage());
+            disabled = true;
+        }
+    }
+
+    private static void open() throws IOException {
+        if (PATH.getParent() != null) Files.createDirectories(PATH.getParent());
+        writer = Files.newBufferedWriter(PATH, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        size = Files.size(PATH);
+    }
+
+    private static void rotate() throws IOException {
+        writer.close();
+        for (int i = MAX_FILES - 1; i >= 1; i--) {
+            Path from = rotated(i);
+            if (Files.exists(from)) {
+                Files.move(from, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        if (MAX_FILES > 0) {
+            Files.move(PATH, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(PATH);
+        }
+        open();
+    }
+
+    private static Path rotated(int index) {
+        return PATH.resolveSibling(PATH.getFileName() + "." + index);
+    }
+
+    static synchronized void close() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        writer = null;
+    }
+}
@@ -0,0 +1,186 @@
+package com.myapp.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU de requêtes préparées, attaché à une connexion physique.
+ * Une requête empruntée est rendue au cache quand le DAO la ferme ; si la même requête est déjà
+ * en cours d'utilisation sur la connexion, une requête hors cache est préparée à la place.
+ */
+class StatementCache {
+    private final int capacity;
+    private final Counters counters;
+    private final Map<Key, PreparedStatement> entries;
+    private final Set<PreparedStatement> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<PreparedStatement> closeOnReturn = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    StatementCache(int capacity, Counters counters) {
+        this.capacity = capacity;
+        this.counters = counters;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() <= StatementCache.this.capacity) return false;
+                evict(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Retourne une requête préparée pour ce SQL, en réutilisant celle du cache si possible
+     * @param autoGeneratedKeys constante Statement.RETURN_GENERATED_KEYS / NO_GENERATED_KEYS, ou null
+     */
+    synchronized PreparedStatement prepare(Connection physical, Connection logical,
+                                           String sql, Integer autoGeneratedKeys) throws SQLException {
+        if (capacity <= 0) {
+            return create(physical, sql, autoGeneratedKeys);
+        }
+
+        Key key = new Key(sql, autoGeneratedKeys);
+        PreparedStatement cached = entries.get(key);
+        if (cached != null && !inUse.contains(cached)) {
+            counters.hits.incrementAndGet();
+        } else if (cached != null) {
+            // Déjà empruntée sur cette connexion : requête jetable
+            counters.misses.incrementAndGet();
+            return create(physical, sql, autoGeneratedKeys);
+        } else {
+            counters.misses.incrementAndGet();
+            cached = create(physical, sql, autoGeneratedKeys);
+            entries.put(key, cached);
+        }
+        inUse.add(cached);
+        return wrap(cached, logical);
+    }
+
+    private static PreparedStatement create(Connection physical, String sql, Integer autoGeneratedKeys)
+            throws SQLException {
+        return autoGeneratedKeys == null
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    private PreparedStatement wrap(PreparedStatement statement, Connection logical) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new CachedStatement(statement, logical));
+    }
+
+    private synchronized void giveBack(PreparedStatement statement, boolean reusable) {
+        inUse.remove(statement);
+        if (closeOnReturn.remove(statement) || !reusable) {
+            entries.values().remove(statement);
+            ConnectionPool.closeQuietly(statement);
+        }
+    }
+
+    private void evict(PreparedStatement statement) {
+        counters.evictions.incrementAndGet();
+        if (inUse.contains(statement)) {
+            closeOnReturn.add(statement);
+        } else {
+            ConnectionPool.closeQuietly(statement);
+        }
+    }
+
+    synchronized void closeAll() {
+        for (PreparedStatement statement : entries.values()) {
+            ConnectionPool.closeQuietly(statement);
+        }
+        entries.clear();
+        inUse.clear();
+        closeOnReturn.clear();
+    }
+
+    /**
+     * Remet une requête dans un état neutre avant sa réutilisation
+     */
+    private static boolean reset(PreparedStatement statement) {
+        try {
+            ResultSet current = statement.getResultSet();
+            if (current != null) {
+                current.close();
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+            statement.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private record Key(String sql, Integer autoGeneratedKeys) {
+    }
+
+    /**
+     * Compteurs partagés par tous les caches d'un même pool
+     */
+    static final class Counters {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+    }
+
+    /**
+     * Vue logique d'une requête du cache : close() la rend au cache au lieu de la fermer
+     */
+    private final class CachedStatement implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final Connection logical;
+        private boolean closed;
+
+        private CachedStatement(PreparedStatement statement, Connection logical) {
+            this.statement = statement;
+            this.logical = logical;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack(statement, reset(statement));
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "getConnection":
+                    return logical;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + statement + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Requête déjà rendue au cache");
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.myapp.controllers;
 
 import com.myapp.models.Card;
+import com.myapp.models.GameSettings;
 import com.myapp.models.Score;
 import com.myapp.models.Theme;
+import com.myapp.services.AsyncServices;
 import com.myapp.services.GameService;
 import com.myapp.services.ScoreService;
 import com.myapp.services.ThemeService;
 import com.myapp.utils.SceneManager;
+import com.myapp.utils.UserSession;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
@@ -17,12 +20,12 @@ import javafx.scene.image.ImageView;
 import javafx.scene.layout.GridPane;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.paint.Color;
+import javafx.animation.PauseTransition;
 import javafx.animation.RotateTransition;
 import javafx.util.Duration;
 import javafx.scene.transform.Rotate;
 import javafx.event.ActionEvent;
 import com.myapp.models.User;
-import com.myapp.services.UserService;
 
 import java.util.List;
 import java.util.ArrayList;
@@ -45,11 +48,14 @@ public class GameController {
     @FXML private Label lblPlayer;
     @FXML private Label lblTheme;
     @FXML private Button btnSaveAndQuit;
+    // Thème joué quand aucun thème n'a été choisi sur l'accueil
+    private static final int DEFAULT_THEME_ID = 4;
     private final GameService gameService = new GameService();
     private final ThemeService themeService = new ThemeService();
     private final ScoreService scoreService = new ScoreService();
-    private final UserService userService = new UserService();
+    private final AsyncServices asyncServices = new AsyncServices();
     private User currentUser;
+    private boolean isGuest;
     private Theme currentTheme;
     private Button[] buttons;
     private int currentThemeId;
@@ -61,48 +67,32 @@ public class GameController {
     public void initialize() {
         loadCardBackImage();
         
-        // Récupérer l'utilisateur depuis les propriétés système
-        String userIdStr = System.getProperty("userId");
-        String isGuestStr = System.getProperty("isGuest");
-        boolean isGuest = "true".equals(isGuestStr);
-        
-        if (!isGuest && userIdStr != null) {
-            try {
-                int userId = Integer.parseInt(userIdStr);
-                currentUser = userService.getUser(userId);
-                if (currentUser == null) {
-                    System.err.println("Utilisateur non trouvé avec l'ID: " + userId);
-                    // Rediriger vers la connexion
-                    Platform.runLater(() -> SceneManager.show("login"));
-                    return;
-                }
-            } catch (NumberFormatException e) {
-                System.err.println("ID utilisateur invalide: " + userIdStr);
-                Platform.runLater(() -> SceneManager.show("login"));
-                return;
-            }
-        } else if (isGuest) {
-            // Mode invité
-            currentUser = new User("Invité", "Anonyme");
-            currentUser.setId(-1);
-        } else {
+        // Joueur (connecté ou invité) et paramètres de partie lus dans la session
+        UserSession.Snapshot session = UserSession.getInstance().snapshot();
+        currentUser = session.user();
+        isGuest = session.guest();
+        if (currentUser == null) {
             System.err.println("Aucun utilisateur connecté");
             Platform.runLater(() -> SceneManager.show("login"));
             return;
         }
         
-        // Lire le thème sélectionné et créer l'objet Theme
-        currentThemeId = Integer.parseInt(System.getProperty("selectedThemeId", "4"));
-        currentTheme = themeService.getTheme(currentThemeId);
+        // Thème choisi sur l'accueil ; à défaut, le thème par défaut (lu en base)
+        GameSettings settings = session.settings();
+        currentTheme = settings.theme();
         if (currentTheme == null) {
-            // Créer un thème par défaut si non trouvé
-            currentTheme = new Theme(currentThemeId, "Numbers");
+            currentThemeId = DEFAULT_THEME_ID;
+            currentTheme = themeService.getTheme(currentThemeId);
+            if (currentTheme == null) {
+                // Créer un thème par défaut si non trouvé
+                currentTheme = new Theme(currentThemeId, "Numbers");
+            }
         }
+        currentThemeId = currentTheme.getId();
         currentThemeName = currentTheme.getName();
 
-        // Lire la taille de grille sélectionnée (4x4, 5x5, 6x6)
-        String gridSizeStr = System.getProperty("gridSize", "4x4");
-        parseGridSize(gridSizeStr);
+        // Taille de grille sélectionnée (4x4, 5x5, 6x6)
+        parseGridSize(settings.gridSize());
 
         // Calculer le nombre de paires basé sur la taille de grille : 4x4=8, 5x5=12, 6x6=18
         int pairCount = (gridRows * gridCols) / 2;
@@ -603,26 +593,25 @@ public class GameController {
         int time = gameService.getElapsedSeconds();
         int attempts = gameService.getAttempts();
         
-        // Vérifier si l'utilisateur est un invité
-        String isGuestStr = System.getProperty("isGuest");
-        boolean isGuest = "true".equals(isGuestStr);
-        
+        // Les scores des invités ne sont pas sauvegardés
         if (!isGuest && currentUser.getId() != -1) {
             // Créer et sauvegarder le score seulement pour les utilisateurs authentifiés
             Score score = new Score(currentUser, currentTheme, attempts, time);
-            boolean saved = scoreService.saveScore(score);
-            
-            if (saved) {
-                System.out.println("Score sauvegardé: " + score);
-            } else {
-                System.err.println("Erreur lors de la sauvegarde du score");
-            }
-            
-            // Afficher le tableau des scores après un court délai pour les utilisateurs authentifiés
-            new Thread(() -> {
-                try { Thread.sleep(500); } catch (InterruptedException ignored) {}
-                Platform.runLater(() -> SceneManager.show("scoreboard"));
-            }).start();
+            long sessionGeneration = UserSession.getInstance().getGeneration();
+            asyncServices.saveScore(score).whenComplete((saved, error) -> {
+                if (error == null && saved) {
+                    System.out.println("Score sauvegardé: " + score);
+                } else {
+                    System.err.println("Erreur lors de la sauvegarde du score");
+                }
+                // Le score est enregistré pour son joueur, mais ne pas changer d'écran si la session a changé
+                if (!UserSession.getInstance().isCurrent(sessionGeneration)) return;
+
+                // Afficher le tableau des scores après un court délai pour les utilisateurs authentifiés
+                PauseTransition delay = new PauseTransition(Duration.millis(500));
+                delay.setOnFinished(e -> SceneManager.show("scoreboard"));
+                delay.play();
+            });
         } else {
             // Pour les invités, afficher un message et retourner à l'accueil
             System.out.println("Jeu terminé en mode invité - pas de sauvegarde de score");
@@ -1,11 +1,12 @@
 package com.myapp.controllers;
 
+import com.myapp.models.GameSettings;
 import com.myapp.models.Theme;
 import com.myapp.models.User;
+import com.myapp.services.AsyncServices;
 import com.myapp.services.AuthenticationService;
-import com.myapp.services.ThemeService;
-import com.myapp.services.UserService;
 import com.myapp.utils.SceneManager;
+import com.myapp.utils.UserSession;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
@@ -18,7 +19,8 @@ import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.event.ActionEvent;
 import javafx.application.Platform;
-import java.util.List;
+import java.util.ArrayList;
+
 public class HomeController {
     @FXML
     private ComboBox<Theme> themeCombo;
@@ -50,9 +52,8 @@ public class HomeController {
     @FXML
     private Button btnAdminPanel;
 
-    private final ThemeService themeService = new ThemeService();
-    private final UserService userService = new UserService();
     private final AuthenticationService authService = new AuthenticationService();
+    private final AsyncServices asyncServices = new AsyncServices(authService);
     
     // Éléments de sélection d'utilisateur (à masquer pour les utilisateurs authentifiés)
     @FXML 
@@ -87,28 +88,16 @@ public class HomeController {
         System.out.println("btnProfile: " + (btnProfile != null ? "OK" : "NULL"));
         System.out.println("btnLogout: " + (btnLogout != null ? "OK" : "NULL"));
         
-        // Récupérer l'utilisateur actuel
+        // Récupérer l'utilisateur actuel, puis configurer l'interface selon le mode (authentifié ou invité)
         loadCurrentUser();
         
         // Initialiser les thèmes
-        List<Theme> themes = themeService.getAllThemes();
-        if (themes.isEmpty()) {
-            // thèmes par défaut de secours
-            themes.add(new Theme(1, "Images"));
-            themes.add(new Theme(2, "Colors"));
-            themes.add(new Theme(3, "Animals"));
-            themes.add(new Theme(4, "Numbers"));
-        }
-        themeCombo.setItems(FXCollections.observableArrayList(themes));
-        if (!themes.isEmpty()) themeCombo.getSelectionModel().select(0);
+        loadThemes();
 
         // Initialiser les options de taille de grille
         gridSizeCombo.setItems(FXCollections.observableArrayList("4x4", "5x5", "6x6"));
         gridSizeCombo.getSelectionModel().select(0); // par défaut 4x4
 
-        // Configurer l'interface selon le mode (authentifié ou invité)
-        setupUserInterface();
-
         // Charger le logo si disponible
         loadLogo();
         
@@ -116,33 +105,34 @@ public class HomeController {
     }
 
     private void loadCurrentUser() {
-        String currentUserIdStr = System.getProperty("currentUserId");
-        String isGuestStr = System.getProperty("isGuest");
-        
-        isGuestMode = "true".equals(isGuestStr);
-        
-        if (currentUserIdStr != null && !currentUserIdStr.equals("-1") && !isGuestMode) {
-            try {
-                int userId = Integer.parseInt(currentUserIdStr);
-                currentUser = userService.getUser(userId);
-                if (currentUser == null) {
-                    // Utilisateur non trouvé, rediriger vers la connexion
-                    redirectToLogin();
-                    return;
-                }
-            } catch (NumberFormatException e) {
-                redirectToLogin();
-                return;
-            }
-        } else if (isGuestMode) {
-            // Mode invité
-            currentUser = new User("Invité", "Anonyme");
-            currentUser.setId(-1);
-        } else {
+        // Utilisateur (ou invité) lu dans la session, sans requête en base
+        UserSession.Snapshot session = UserSession.getInstance().snapshot();
+        if (session.user() == null) {
             // Pas d'utilisateur connecté
             redirectToLogin();
             return;
         }
+        isGuestMode = session.guest();
+        currentUser = session.user();
+        setupUserInterface();
+    }
+
+    private void loadThemes() {
+        long sessionGeneration = UserSession.getInstance().getGeneration();
+        asyncServices.getAllThemes().whenComplete((themes, error) -> {
+            // Déconnexion pendant le chargement : l'écran n'est plus celui de cette session
+            if (!UserSession.getInstance().isCurrent(sessionGeneration)) return;
+            if (themes == null || themes.isEmpty()) {
+                // thèmes par défaut de secours
+                themes = new ArrayList<>();
+                themes.add(new Theme(1, "Images"));
+                themes.add(new Theme(2, "Colors"));
+                themes.add(new Theme(3, "Animals"));
+                themes.add(new Theme(4, "Numbers"));
+            }
+            themeCombo.setItems(FXCollections.observableArrayList(themes));
+            themeCombo.getSelectionModel().select(0);
+        });
     }
 
     private void setupUserInterface() {
@@ -263,19 +253,9 @@ public class HomeController {
             return;
         }
 
-        // Stocker les données sélectionnées dans les propriétés système
-        System.setProperty("selectedThemeId", String.valueOf(selectedTheme.getId()));
-        
+        // Paramètres de la partie transmis par la session (le joueur y est déjà)
         String gridSize = gridSizeCombo.getSelectionModel().getSelectedItem();
-        if (gridSize != null) {
-            System.setProperty("gridSize", gridSize);
-        }
-        
-        // Utiliser l'utilisateur actuel (connecté ou invité)
-        if (currentUser != null) {
-            System.setProperty("userId", String.valueOf(currentUser.getId()));
-            System.setProperty("playerName", currentUser.getFullName());
-        }
+        UserSession.getInstance().setGameSettings(new GameSettings(selectedTheme, gridSize));
 
         // S'assurer que le changement de scène se produit sur le thread FX
         Platform.runLater(() -> SceneManager.show("game"));
@@ -290,16 +270,13 @@ public class HomeController {
     @FXML
     private void onLogout(ActionEvent event) {
         if (isGuestMode) {
-            // En mode invité, aller à la connexion
+            // En mode invité, fermer la session invité et aller à la connexion
+            UserSession.getInstance().logout();
             SceneManager.show("login");
         } else {
             // Déconnexion normale
             authService.logout();
-            
-            // Nettoyer les propriétés système
-            System.clearProperty("currentUserId");
-            System.clearProperty("currentUserName");
-            System.clearProperty("isGuest");
+            UserSession.getInstance().logout();
             
             System.out.println("Déconnexion réussie");
             SceneManager.show("login");
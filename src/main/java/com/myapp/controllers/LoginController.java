@@ -1,9 +1,11 @@
 package com.myapp.controllers;
 
-import com.myapp.models.LoginResult;
 import com.myapp.models.User;
+import com.myapp.services.AsyncServices;
 import com.myapp.services.AuthenticationService;
+import com.myapp.utils.DbExecutor;
 import com.myapp.utils.SceneManager;
+import com.myapp.utils.UserSession;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -46,6 +48,7 @@ public class LoginController {
     private ImageView logoView;
 
     private final AuthenticationService authService = new AuthenticationService();
+    private final AsyncServices asyncServices = new AsyncServices(authService);
 
     @FXML
     public void initialize() {
@@ -82,66 +85,65 @@ public class LoginController {
         btnLogin.setText("Connexion...");
 
         // Authentification en arrière-plan
-        new Thread(() -> {
-            try {
-                LoginResult result = authService.login(username.trim(), password);
-                
-                Platform.runLater(() -> {
-                    btnLogin.setDisable(false);
-                    btnLogin.setText("Se connecter");
-                    
-                    switch (result) {
-                        case SUCCESS:
-                            User currentUser = authService.getCurrentUser();
-                            System.out.println("Connexion réussie pour: " + currentUser.getFullName());
-                            
-                            // Stocker l'utilisateur connecté pour les autres contrôleurs
-                            System.setProperty("currentUserId", String.valueOf(currentUser.getId()));
-                            System.setProperty("currentUserName", currentUser.getFullName());
-                            
-                            // IMPORTANT: Effacer le mode invité lors de la connexion
-                            System.clearProperty("isGuest");
-                            
-                            // Rediriger vers l'écran d'accueil
-                            SceneManager.show("home");
-                            break;
-                            
-                        case ACCOUNT_DISABLED:
-                            showError("⚠️ Ce compte est désactivé.\nContactez un administrateur pour le réactiver.");
-                            passwordField.clear();
-                            usernameField.requestFocus();
-                            break;
-                            
-                        case INVALID_CREDENTIALS:
-                            showError("❌ Nom d'utilisateur ou mot de passe incorrect.");
-                            passwordField.clear();
-                            usernameField.requestFocus();
-                            break;
-                            
-                        case USER_NOT_FOUND:
-                            showError("❌ Utilisateur non trouvé.");
-                            passwordField.clear();
-                            usernameField.requestFocus();
-                            break;
-                            
-                        case EMPTY_FIELDS:
-                            showError("⚠️ Veuillez remplir tous les champs.");
-                            break;
-                            
-                        default:
-                            showError("❌ Erreur de connexion inconnue.");
-                            break;
-                    }
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> {
-                    btnLogin.setDisable(false);
-                    btnLogin.setText("Se connecter");
-                    showError("❌ Erreur de connexion. Veuillez réessayer.");
-                    e.printStackTrace();
-                });
+        asyncServices.login(username.trim(), password).whenComplete((result, error) -> {
+            btnLogin.setDisable(false);
+            btnLogin.setText("Se connecter");
+
+            if (error != null) {
+                showError("❌ Erreur de connexion. Veuillez réessayer.");
+                DbExecutor.unwrap(error).printStackTrace();
+                return;
             }
-        }).start();
+
+            switch (result) {
+                case SUCCESS:
+                    User currentUser = authService.getCurrentUser();
+                    System.out.println("Connexion réussie pour: " + currentUser.getFullName());
+
+                    // Ouvrir la session partagée par les autres contrôleurs (remplace un éventuel mode invité)
+                    UserSession.getInstance().login(currentUser);
+
+                    // Rediriger vers l'écran d'accueil
+                    SceneManager.show("home");
+                    break;
+
+                case ACCOUNT_DISABLED:
+                    showError("⚠️ Ce compte est désactivé.\nContactez un administrateur pour le réactiver.");
+                    passwordField.clear();
+                    usernameField.requestFocus();
+                    break;
+
+                case INVALID_CREDENTIALS:
+                    showError("❌ Nom d'utilisateur ou mot de passe incorrect.");
+                    passwordField.clear();
+                    usernameField.requestFocus();
+                    break;
+
+                case USER_NOT_FOUND:
+                    showError("❌ Utilisateur non trouvé.");
+                    passwordField.clear();
+                    usernameField.requestFocus();
+                    break;
+
+                case EMPTY_FIELDS:
+                    showError("⚠️ Veuillez remplir tous les champs.");
+                    break;
+
+                case PASSWORD_RESET_REQUIRED:
+                    showError("⚠️ Le mot de passe de ce compte doit être réinitialisé.\nContactez un administrateur.");
+                    passwordField.clear();
+                    break;
+
+                case TOO_MANY_ATTEMPTS:
+                    showError("⛔ Trop de tentatives de connexion.\nRéessayez dans quelques minutes.");
+                    passwordField.clear();
+                    break;
+
+                default:
+                    showError("❌ Erreur de connexion inconnue.");
+                    break;
+            }
+        });
     }
 
     @FXML
@@ -157,14 +159,8 @@ public class LoginController {
 
     @FXML
     private void onGuestMode(ActionEvent event) {
-        // Créer un utilisateur invité temporaire
-        User guestUser = new User("Invité", "Anonyme");
-        guestUser.setId(-1); // ID spécial pour l'invité
-        
-        // Stocker les informations de l'invité
-        System.setProperty("currentUserId", "-1");
-        System.setProperty("currentUserName", "Invité Anonyme");
-        System.setProperty("isGuest", "true");
+        // Session invité : utilisateur temporaire d'ID -1
+        UserSession.getInstance().startGuest();
         
         System.out.println("Mode invité activé");
         SceneManager.show("home");
@@ -1,11 +1,20 @@
 package com.myapp.controllers;
 
+import com.myapp.models.PlayerStats;
 import com.myapp.models.User;
-import com.myapp.services.UserService;
+import com.myapp.services.AsyncServices;
+import com.myapp.utils.DbExecutor;
 import com.myapp.utils.SceneManager;
+import com.myapp.utils.UserSession;
+import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleLongProperty;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
 import javafx.application.Platform;
 
 import java.time.format.DateTimeFormatter;
@@ -38,7 +47,18 @@ public class ProfileController {
     @FXML
     private Button btnBack;
     
-    private final UserService userService = new UserService();
+    @FXML private Label gamesLabel;
+    @FXML private Label attemptsLabel;
+    @FXML private Label timeLabel;
+    @FXML private Label trendLabel;
+    @FXML private TableView<PlayerStats.ThemeStats> themeStatsTable;
+    @FXML private TableColumn<PlayerStats.ThemeStats, String> colStatsTheme;
+    @FXML private TableColumn<PlayerStats.ThemeStats, Number> colStatsGames;
+    @FXML private TableColumn<PlayerStats.ThemeStats, Number> colStatsBestAttempts;
+    @FXML private TableColumn<PlayerStats.ThemeStats, String> colStatsAvgAttempts;
+    @FXML private TableColumn<PlayerStats.ThemeStats, Number> colStatsBestTime;
+    
+    private final AsyncServices asyncServices = new AsyncServices();
     private User currentUser;
     
     @FXML
@@ -46,28 +66,18 @@ public class ProfileController {
         loadCurrentUser();
         if (currentUser != null) {
             displayUserInfo();
+            initializeStatsColumns();
+            loadStats();
         } else {
             Platform.runLater(() -> SceneManager.show("home"));
         }
     }
     
     private void loadCurrentUser() {
-        String currentUserIdStr = System.getProperty("currentUserId");
-        String isGuestStr = System.getProperty("isGuest");
-        
-        if ("true".equals(isGuestStr)) {
-            // Les invités ne peuvent pas accéder au profil
-            Platform.runLater(() -> SceneManager.show("home"));
-            return;
-        }
-        
-        if (currentUserIdStr != null) {
-            try {
-                int userId = Integer.parseInt(currentUserIdStr);
-                currentUser = userService.getUser(userId);
-            } catch (NumberFormatException e) {
-                System.err.println("ID utilisateur invalide: " + currentUserIdStr);
-            }
+        // Les invités ne peuvent pas accéder au profil (currentUser reste null)
+        UserSession.Snapshot session = UserSession.getInstance().snapshot();
+        if (session.isAuthenticated()) {
+            currentUser = session.user();
         }
     }
     
@@ -98,6 +108,60 @@ public class ProfileController {
         }
     }
     
+    private void initializeStatsColumns() {
+        colStatsTheme.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().themeName()));
+        colStatsGames.setCellValueFactory(cellData -> new SimpleLongProperty(cellData.getValue().games()));
+        colStatsBestAttempts.setCellValueFactory(cellData -> new SimpleIntegerProperty(cellData.getValue().bestAttempts()));
+        colStatsAvgAttempts.setCellValueFactory(cellData ->
+                new SimpleStringProperty(String.format("%.1f", cellData.getValue().averageAttempts())));
+        colStatsBestTime.setCellValueFactory(cellData -> new SimpleIntegerProperty(cellData.getValue().bestTimeSeconds()));
+    }
+    
+    /**
+     * Statistiques calculées en base (une requête sur les agrégats), sans charger l'historique des parties
+     */
+    private void loadStats() {
+        long sessionGeneration = UserSession.getInstance().getGeneration();
+        asyncServices.getPlayerStats(currentUser.getId()).whenComplete((stats, error) -> {
+            // Statistiques d'un joueur qui s'est déconnecté entre-temps
+            if (!UserSession.getInstance().isCurrent(sessionGeneration)) return;
+            if (error != null || stats == null) {
+                if (error != null) {
+                    System.err.println("Erreur lors du chargement des statistiques: " + DbExecutor.unwrap(error).getMessage());
+                }
+                gamesLabel.setText("Non disponible");
+                return;
+            }
+            displayStats(stats);
+        });
+    }
+    
+    private void displayStats(PlayerStats stats) {
+        if (!stats.hasGames()) {
+            gamesLabel.setText("Aucune partie jouée");
+            attemptsLabel.setText("-");
+            timeLabel.setText("-");
+            trendLabel.setText("-");
+            return;
+        }
+        PlayerStats.ThemeStats overall = stats.overall();
+        gamesLabel.setText(String.valueOf(overall.games()));
+        attemptsLabel.setText(String.format("%d / %.1f", overall.bestAttempts(), overall.averageAttempts()));
+        timeLabel.setText(String.format("%d s / %.1f s", overall.bestTimeSeconds(), overall.averageTimeSeconds()));
+        
+        double trend = stats.attemptsTrend();
+        if (Double.isNaN(trend)) {
+            trendLabel.setText(String.format("%d partie(s) ces %d derniers jours", stats.recentGames(), stats.trendDays()));
+        } else if (trend < 0) {
+            trendLabel.setText(String.format("En progrès : %.1f essai(s) de moins en moyenne sur %d jours", -trend, stats.trendDays()));
+        } else if (trend > 0) {
+            trendLabel.setText(String.format("%.1f essai(s) de plus en moyenne sur %d jours", trend, stats.trendDays()));
+        } else {
+            trendLabel.setText("Stable sur " + stats.trendDays() + " jours");
+        }
+        themeStatsTable.setItems(FXCollections.observableArrayList(stats.themes()));
+    }
+    
     @FXML
     private void onBack() {
         SceneManager.show("home");
@@ -1,7 +1,9 @@
 package com.myapp.controllers;
 
-import com.myapp.services.AuthenticationService;
+import com.myapp.services.AsyncServices;
+import com.myapp.utils.DbExecutor;
 import com.myapp.utils.SceneManager;
+import javafx.animation.PauseTransition;
 import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -12,6 +14,9 @@ import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Contrôleur pour la vue d'inscription
@@ -62,7 +67,15 @@ public class RegisterController {
     @FXML
     private ImageView logoView;
 
-    private final AuthenticationService authService = new AuthenticationService();
+    private final AsyncServices asyncServices = new AsyncServices();
+
+    // Délai sans frappe avant de vérifier la disponibilité d'un nom ou d'un email
+    private static final Duration CHECK_DELAY = Duration.millis(Integer.getInteger("availability.debounceMs", 300));
+
+    private final PauseTransition usernameDebounce = new PauseTransition(CHECK_DELAY);
+    private final PauseTransition emailDebounce = new PauseTransition(CHECK_DELAY);
+    private CompletableFuture<Boolean> usernameCheck;
+    private CompletableFuture<Boolean> emailCheck;
 
     @FXML
     public void initialize() {
@@ -91,44 +104,33 @@ public class RegisterController {
         btnRegister.setText("Inscription...");
 
         // Inscription en arrière-plan
-        new Thread(() -> {
-            try {
-                boolean success = authService.register(firstName, lastName, username, 
-                                                     email.isEmpty() ? null : email, password);
-                
-                Platform.runLater(() -> {
+        asyncServices.register(firstName, lastName, username, email.isEmpty() ? null : email, password)
+                .whenComplete((success, error) -> {
                     btnRegister.setDisable(false);
                     btnRegister.setText("S'inscrire");
-                    
+
+                    if (error != null) {
+                        Throwable cause = DbExecutor.unwrap(error);
+                        if (cause instanceof IllegalArgumentException) {
+                            showMessage(cause.getMessage(), true);
+                        } else {
+                            showMessage("Erreur technique. Veuillez réessayer.", true);
+                            cause.printStackTrace();
+                        }
+                        return;
+                    }
+
                     if (success) {
                         showMessage("Inscription réussie ! Vous pouvez maintenant vous connecter.", false);
-                        
+
                         // Rediriger vers la connexion après 2 secondes
-                        new Thread(() -> {
-                            try {
-                                Thread.sleep(2000);
-                                Platform.runLater(() -> SceneManager.show("login"));
-                            } catch (InterruptedException ignored) {}
-                        }).start();
+                        PauseTransition redirect = new PauseTransition(Duration.seconds(2));
+                        redirect.setOnFinished(e -> SceneManager.show("login"));
+                        redirect.play();
                     } else {
                         showMessage("Erreur lors de l'inscription. Veuillez réessayer.", true);
                     }
                 });
-            } catch (IllegalArgumentException e) {
-                Platform.runLater(() -> {
-                    btnRegister.setDisable(false);
-                    btnRegister.setText("S'inscrire");
-                    showMessage(e.getMessage(), true);
-                });
-            } catch (Exception e) {
-                Platform.runLater(() -> {
-                    btnRegister.setDisable(false);
-                    btnRegister.setText("S'inscrire");
-                    showMessage("Erreur technique. Veuillez réessayer.", true);
-                    e.printStackTrace();
-                });
-            }
-        }).start();
     }
 
     @FXML
@@ -198,22 +200,13 @@ public class RegisterController {
     }
 
     private void setupValidation() {
-        // Validation en temps réel du nom d'utilisateur
+        // Validation en temps réel du nom d'utilisateur, une fois la frappe terminée
         usernameField.textProperty().addListener((obs, oldText, newText) -> {
+            usernameDebounce.stop();
+            cancel(usernameCheck);
             if (newText != null && !newText.trim().isEmpty()) {
-                new Thread(() -> {
-                    boolean available = authService.isUsernameAvailable(newText.trim());
-                    Platform.runLater(() -> {
-                        if (available) {
-                            usernameValidation.setText("✓ Nom d'utilisateur disponible");
-                            usernameValidation.setStyle("-fx-text-fill: green;");
-                        } else {
-                            usernameValidation.setText("✗ Nom d'utilisateur déjà pris");
-                            usernameValidation.setStyle("-fx-text-fill: red;");
-                        }
-                        usernameValidation.setVisible(true);
-                    });
-                }).start();
+                usernameDebounce.setOnFinished(e -> checkUsername(newText));
+                usernameDebounce.playFromStart();
             } else {
                 usernameValidation.setVisible(false);
             }
@@ -221,21 +214,12 @@ public class RegisterController {
 
         // Validation en temps réel de l'email
         emailField.textProperty().addListener((obs, oldText, newText) -> {
+            emailDebounce.stop();
+            cancel(emailCheck);
             if (newText != null && !newText.trim().isEmpty()) {
                 if (newText.trim().matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$")) {
-                    new Thread(() -> {
-                        boolean available = authService.isEmailAvailable(newText.trim());
-                        Platform.runLater(() -> {
-                            if (available) {
-                                emailValidation.setText("✓ Email disponible");
-                                emailValidation.setStyle("-fx-text-fill: green;");
-                            } else {
-                                emailValidation.setText("✗ Email déjà utilisé");
-                                emailValidation.setStyle("-fx-text-fill: red;");
-                            }
-                            emailValidation.setVisible(true);
-                        });
-                    }).start();
+                    emailDebounce.setOnFinished(e -> checkEmail(newText));
+                    emailDebounce.playFromStart();
                 } else {
                     emailValidation.setText("✗ Format d'email invalide");
                     emailValidation.setStyle("-fx-text-fill: red;");
@@ -256,6 +240,46 @@ public class RegisterController {
         });
     }
 
+    private void checkUsername(String text) {
+        usernameCheck = asyncServices.isUsernameAvailable(text.trim());
+        usernameCheck.thenAccept(available -> {
+            // Ignorer les réponses arrivées après une nouvelle frappe
+            if (!text.equals(usernameField.getText())) return;
+            if (available) {
+                usernameValidation.setText("✓ Nom d'utilisateur disponible");
+                usernameValidation.setStyle("-fx-text-fill: green;");
+            } else {
+                usernameValidation.setText("✗ Nom d'utilisateur déjà pris");
+                usernameValidation.setStyle("-fx-text-fill: red;");
+            }
+            usernameValidation.setVisible(true);
+        });
+    }
+
+    private void checkEmail(String text) {
+        emailCheck = asyncServices.isEmailAvailable(text.trim());
+        emailCheck.thenAccept(available -> {
+            if (!text.equals(emailField.getText())) return;
+            if (available) {
+                emailValidation.setText("✓ Email disponible");
+                emailValidation.setStyle("-fx-text-fill: green;");
+            } else {
+                emailValidation.setText("✗ Email déjà utilisé");
+                emailValidation.setStyle("-fx-text-fill: red;");
+            }
+            emailValidation.setVisible(true);
+        });
+    }
+
+    /**
+     * Abandonne une vérification remplacée par une frappe plus récente (ignorée si elle n'a pas encore démarré)
+     */
+    private static void cancel(CompletableFuture<Boolean> check) {
+        if (check != null) {
+            check.cancel(false);
+        }
+    }
+
     private void updatePasswordValidation() {
         String password = passwordField.getText();
         String confirm = confirmPasswordField.getText();
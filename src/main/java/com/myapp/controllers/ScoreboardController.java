@@ -1,12 +1,13 @@
 package com.myapp.controllers;
 
 import com.myapp.models.Score;
-import com.myapp.models.User;
+import com.myapp.models.ScoreCursor;
+import com.myapp.models.UserOption;
 import com.myapp.models.Theme;
-import com.myapp.services.ScoreService;
-import com.myapp.services.ThemeService;
-import com.myapp.services.UserService;
+import com.myapp.services.AsyncServices;
+import com.myapp.utils.DbExecutor;
 import com.myapp.utils.SceneManager;
+import com.myapp.utils.UserSession;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
@@ -16,15 +17,21 @@ import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
 import javafx.scene.control.TableView;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 public class ScoreboardController {
+    // Taille d'une page de scores et nombre de lignes restantes avant de charger la suivante
+    private static final int PAGE_SIZE = 50;
+    private static final int PREFETCH_ROWS = 10;
+    // Nombre de joueurs affichés dans le classement "Tous les joueurs"
+    private static final int LEADERBOARD_SIZE = 100;
+
     @FXML
     private TableView<Score> table;
 
@@ -43,14 +50,12 @@ public class ScoreboardController {
     @FXML
     private Button btnBack;
 
-    private final ScoreService scoreService = new ScoreService();
-    private final ThemeService themeService = new ThemeService();
-    private final UserService userService = new UserService();
+    private final AsyncServices asyncServices = new AsyncServices();
     
     @FXML 
     private ComboBox<String> sortCombo;
     @FXML 
-    private ComboBox<User> playerFilterCombo;
+    private ComboBox<UserOption> playerFilterCombo;
     @FXML 
     private ComboBox<Theme> themeFilterCombo;
     @FXML 
@@ -60,33 +65,34 @@ public class ScoreboardController {
     @FXML
     private Label displayModeLabel;
 
-    private ObservableList<Score> allScores;
+    // Option de tri servie par le classement ; les autres passent par la vue paginée, triée par la base
+    private static final String LEADERBOARD_SORT = "Meilleur score";
+
+    // Vue paginée (scores d'un joueur ou de tous) : lignes chargées, curseur de la page suivante
+    private final ObservableList<Score> pagedScores = FXCollections.observableArrayList();
+    private Integer pagedUserId;
+    private String pagedTitle;
+    private ScoreCursor nextCursor;
+    private boolean hasMorePages;
+    private boolean pageLoading;
+    // Incrémenté à chaque changement de filtre pour ignorer les réponses d'une requête périmée
+    private int pageGeneration;
 
     @FXML
     public void initialize() {
         initializeColumns();
+        initializePaging();
         initializeFilters();
         checkAdminPermissions();
-        loadScores("date");
+        applyFilters();
     }
 
     private void checkAdminPermissions() {
-        // Vérifier si l'utilisateur actuel est un administrateur
-        String currentUserIdStr = System.getProperty("currentUserId");
-        boolean isAdmin = false;
-        
-        if (currentUserIdStr != null && !currentUserIdStr.equals("-1")) {
-            try {
-                int userId = Integer.parseInt(currentUserIdStr);
-                User currentUser = userService.getUser(userId);
-                if (currentUser != null) {
-                    isAdmin = currentUser.isAdmin();
-                }
-            } catch (NumberFormatException e) {
-                // Utilisateur invalide, pas d'admin
-            }
-        }
-        
+        // Rôle de l'utilisateur connecté lu dans la session
+        applyAdminPermissions(UserSession.getInstance().isAdmin());
+    }
+
+    private void applyAdminPermissions(boolean isAdmin) {
         // Masquer le bouton de suppression si l'utilisateur n'est pas admin
         if (btnDelete != null) {
             btnDelete.setVisible(isAdmin);
@@ -120,6 +126,22 @@ public class ScoreboardController {
         });
     }
 
+    /**
+     * Charge la page suivante lorsque les dernières lignes chargées deviennent visibles
+     */
+    private void initializePaging() {
+        table.setRowFactory(tv -> new TableRow<>() {
+            @Override
+            protected void updateItem(Score score, boolean empty) {
+                super.updateItem(score, empty);
+                if (!empty && table.getItems() == pagedScores
+                        && getIndex() >= pagedScores.size() - PREFETCH_ROWS) {
+                    loadNextPage();
+                }
+            }
+        });
+    }
+
     private void initializeFilters() {
         // Initialiser le ComboBox de tri
         if (sortCombo != null) {
@@ -129,33 +151,37 @@ public class ScoreboardController {
                 "Meilleur score", 
                 "Temps le plus rapide"
             ));
-            sortCombo.getSelectionModel().select(0);
+            sortCombo.getSelectionModel().select(LEADERBOARD_SORT);
             sortCombo.setOnAction(e -> applyFilters());
         }
 
         // Charger les utilisateurs pour le filtre
         if (playerFilterCombo != null) {
-            List<User> users = userService.getAllUsers();
-            users.add(0, createAllUsersOption());
-            playerFilterCombo.setItems(FXCollections.observableArrayList(users));
+            playerFilterCombo.setItems(FXCollections.observableArrayList(createAllUsersOption()));
             playerFilterCombo.getSelectionModel().select(0);
             playerFilterCombo.setOnAction(e -> applyFilters());
+            asyncServices.getUserOptions().thenAccept(users -> {
+                users.add(0, playerFilterCombo.getItems().get(0));
+                playerFilterCombo.getItems().setAll(users);
+                playerFilterCombo.getSelectionModel().select(0);
+            });
         }
 
         // Charger les thèmes pour le filtre
         if (themeFilterCombo != null) {
-            List<Theme> themes = themeService.getAllThemes();
-            themes.add(0, createAllThemesOption());
-            themeFilterCombo.setItems(FXCollections.observableArrayList(themes));
+            themeFilterCombo.setItems(FXCollections.observableArrayList(createAllThemesOption()));
             themeFilterCombo.getSelectionModel().select(0);
             themeFilterCombo.setOnAction(e -> applyFilters());
+            asyncServices.getAllThemes().thenAccept(themes -> {
+                themes.add(0, themeFilterCombo.getItems().get(0));
+                themeFilterCombo.getItems().setAll(themes);
+                themeFilterCombo.getSelectionModel().select(0);
+            });
         }
     }
 
-    private User createAllUsersOption() {
-        User allUsers = new User("Tous les joueurs", "(meilleur score seulement)");
-        allUsers.setId(-1);
-        return allUsers;
+    private UserOption createAllUsersOption() {
+        return new UserOption(-1, "Tous les joueurs");
     }
 
     private Theme createAllThemesOption() {
@@ -163,113 +189,138 @@ public class ScoreboardController {
         return allThemes;
     }
 
-    private void loadScores(String orderBy) {
-        List<Score> scores = scoreService.listScoresBy(orderBy);
-        allScores = FXCollections.observableArrayList(scores);
-        System.out.println("Loaded " + scores.size() + " scores from database.");
-        if (scores.isEmpty()) {
-            System.out.println("WARNING: No scores found in database. Check DB connection or insert test data.");
-        }
-        applyFilters();
-    }
-
     private void applyFilters() {
-        if (allScores == null) return;
+        pageGeneration++;
 
-        List<Score> filteredScores;
-        
         // Vérifier si un utilisateur spécifique est sélectionné
-        User selectedUser = playerFilterCombo != null ? playerFilterCombo.getSelectionModel().getSelectedItem() : null;
-        boolean isSpecificUserSelected = selectedUser != null && selectedUser.getId() != -1;
-        
+        UserOption selectedUser = playerFilterCombo != null ? playerFilterCombo.getSelectionModel().getSelectedItem() : null;
+        boolean isSpecificUserSelected = selectedUser != null && selectedUser.id() != -1;
+
         if (isSpecificUserSelected) {
-            // Si un utilisateur spécifique est sélectionné, afficher TOUS ses scores
-            filteredScores = allScores.stream()
-                .filter(score -> score.getUser().getId() == selectedUser.getId())
-                .filter(this::matchesThemeFilter)
-                .collect(Collectors.toList());
-            System.out.println("Affichage de tous les scores pour: " + selectedUser.getFullName() + " (" + filteredScores.size() + " scores)");
-            
-            // Mettre à jour le label d'affichage
-            if (displayModeLabel != null) {
-                displayModeLabel.setText("📋 Affichage : Tous les scores de " + selectedUser.getFullName() + " (" + filteredScores.size() + " scores)");
-            }
+            // Si un utilisateur spécifique est sélectionné, afficher TOUS ses scores, page par page
+            startPagedView(selectedUser.id(), "Tous les scores de " + selectedUser.displayName());
+        } else if (LEADERBOARD_SORT.equals(selectedSortOption())) {
+            // "Tous les joueurs" trié par score : seulement le MEILLEUR score par utilisateur
+            loadLeaderboard();
         } else {
-            // Si "Tous les joueurs" est sélectionné, afficher seulement le MEILLEUR score par utilisateur
-            filteredScores = getBestScorePerUser(allScores.stream()
-                .filter(this::matchesThemeFilter)
-                .collect(Collectors.toList()));
-            System.out.println("Affichage du meilleur score par utilisateur (" + filteredScores.size() + " utilisateurs)");
-            
-            // Mettre à jour le label d'affichage
-            if (displayModeLabel != null) {
-                displayModeLabel.setText("📊 Affichage : Meilleur score par utilisateur (" + filteredScores.size() + " utilisateurs)");
-            }
+            // Tri par date ou par temps : le classement ne contient que les 100 meilleurs, il ne peut pas
+            // être retrié ; tous les scores sont lus page par page dans l'ordre demandé
+            startPagedView(null, "Tous les scores, " + selectedSortOption().toLowerCase());
         }
+    }
 
-        // Appliquer le tri
-        if (sortCombo != null) {
-            String sortOption = sortCombo.getSelectionModel().getSelectedItem();
-            if (sortOption != null) {
-                switch (sortOption) {
-                    case "Date (récent d'abord)":
-                        filteredScores.sort((s1, s2) -> s2.getPlayedAt().compareTo(s1.getPlayedAt()));
-                        break;
-                    case "Date (ancien d'abord)":
-                        filteredScores.sort((s1, s2) -> s1.getPlayedAt().compareTo(s2.getPlayedAt()));
-                        break;
-                    case "Meilleur score":
-                        filteredScores.sort((s1, s2) -> {
-                            int attemptsCompare = Integer.compare(s1.getAttempts(), s2.getAttempts());
-                            if (attemptsCompare == 0) {
-                                return Integer.compare(s1.getTimeSeconds(), s2.getTimeSeconds());
-                            }
-                            return attemptsCompare;
-                        });
-                        break;
-                    case "Temps le plus rapide":
-                        filteredScores.sort((s1, s2) -> Integer.compare(s1.getTimeSeconds(), s2.getTimeSeconds()));
-                        break;
-                }
+    /**
+     * Charge le classement (meilleur score par joueur), lu dans l'index en mémoire (LeaderboardIndex)
+     */
+    private void loadLeaderboard() {
+        int generation = pageGeneration;
+        long sessionGeneration = UserSession.getInstance().getGeneration();
+        asyncServices.getLeaderboard(selectedThemeId(), LEADERBOARD_SIZE).whenComplete((scores, error) -> {
+            if (generation != pageGeneration || !UserSession.getInstance().isCurrent(sessionGeneration)) return;
+            if (error != null) {
+                System.err.println("Erreur lors du chargement des scores: " + DbExecutor.unwrap(error).getMessage());
+                return;
+            }
+            List<Score> bestScores = new ArrayList<>(scores);
+            System.out.println("Affichage du meilleur score par utilisateur (" + bestScores.size() + " utilisateurs)");
+            if (bestScores.isEmpty()) {
+                System.out.println("WARNING: No scores found in database. Check DB connection or insert test data.");
             }
-        }
 
-        table.setItems(FXCollections.observableArrayList(filteredScores));
+            // Mettre à jour le label d'affichage
+            if (displayModeLabel != null) {
+                displayModeLabel.setText("📊 Affichage : Meilleur score par utilisateur (" + bestScores.size() + " utilisateurs)");
+                showCurrentUserRank(generation);
+            }
+            table.setItems(FXCollections.observableArrayList(bestScores));
+        });
     }
 
     /**
-     * Retourne le meilleur score pour chaque utilisateur
-     * Le meilleur score = moins d'essais, puis moins de temps en cas d'égalité
+     * Ajoute au label le rang de l'utilisateur connecté dans le classement affiché
      */
-    private List<Score> getBestScorePerUser(List<Score> scores) {
-        return scores.stream()
-            .collect(Collectors.groupingBy(
-                score -> score.getUser().getId(),
-                Collectors.minBy((s1, s2) -> {
-                    // Comparer d'abord par nombre d'essais (moins = mieux)
-                    int attemptsCompare = Integer.compare(s1.getAttempts(), s2.getAttempts());
-                    if (attemptsCompare != 0) {
-                        return attemptsCompare;
+    private void showCurrentUserRank(int generation) {
+        UserSession.Snapshot session = UserSession.getInstance().snapshot();
+        if (!session.isAuthenticated()) return;
+        asyncServices.getLeaderboardRank(selectedThemeId(), session.userId()).thenAccept(rank -> {
+            // Le rang est celui de l'utilisateur de la session lue au lancement
+            if (generation != pageGeneration || !UserSession.getInstance().isCurrent(session.generation()) || rank <= 0) return;
+            displayModeLabel.setText(displayModeLabel.getText() + " - Votre rang : " + rank);
+        });
+    }
+
+    /**
+     * Réinitialise la vue paginée et charge la première page
+     * @param userId joueur dont on affiche les scores, null pour tous les joueurs
+     */
+    private void startPagedView(Integer userId, String title) {
+        pagedScores.clear();
+        pagedUserId = userId;
+        pagedTitle = title;
+        nextCursor = null;
+        hasMorePages = true;
+        pageLoading = false;
+        table.setItems(pagedScores);
+        System.out.println("Affichage : " + title);
+        loadNextPage();
+    }
+
+    private void loadNextPage() {
+        if (pageLoading || !hasMorePages || table.getItems() != pagedScores) return;
+
+        int generation = pageGeneration;
+        long sessionGeneration = UserSession.getInstance().getGeneration();
+        pageLoading = true;
+
+        asyncServices.getScorePage(selectedSortKey(), pagedUserId, selectedThemeId(), nextCursor, PAGE_SIZE)
+                .whenComplete((page, error) -> {
+                    if (generation != pageGeneration || !UserSession.getInstance().isCurrent(sessionGeneration)) return;
+                    pageLoading = false;
+                    if (error != null) {
+                        hasMorePages = false;
+                        System.err.println("Erreur lors du chargement des scores: " + DbExecutor.unwrap(error).getMessage());
+                        return;
                     }
-                    // En cas d'égalité d'essais, comparer par temps (moins = mieux)
-                    return Integer.compare(s1.getTimeSeconds(), s2.getTimeSeconds());
-                })
-            ))
-            .values()
-            .stream()
-            .filter(Optional::isPresent)
-            .map(Optional::get)
-            .collect(Collectors.toList());
+                    pagedScores.addAll(page.scores());
+                    nextCursor = page.next();
+                    hasMorePages = page.hasMore();
+
+                    // Mettre à jour le label d'affichage
+                    if (displayModeLabel != null) {
+                        displayModeLabel.setText("📋 Affichage : " + pagedTitle
+                                + " (" + pagedScores.size() + (hasMorePages ? "+" : "") + " scores)");
+                    }
+                });
     }
 
-    private boolean matchesThemeFilter(Score score) {
-        if (themeFilterCombo == null) return true;
-        
-        Theme selectedTheme = themeFilterCombo.getSelectionModel().getSelectedItem();
-        if (selectedTheme == null || selectedTheme.getId() == -1) {
-            return true; // "Tous les thèmes" sélectionné
+    /**
+     * Clé de tri transmise à la base pour l'option choisie
+     */
+    private String selectedSortKey() {
+        switch (selectedSortOption()) {
+            case "Date (ancien d'abord)":
+                return "date_asc";
+            case LEADERBOARD_SORT:
+                return "score";
+            case "Temps le plus rapide":
+                return "time";
+            default:
+                return "date";
         }
-        return score.getTheme().getId() == selectedTheme.getId();
+    }
+
+    private String selectedSortOption() {
+        String sortOption = sortCombo != null ? sortCombo.getSelectionModel().getSelectedItem() : null;
+        return sortOption != null ? sortOption : LEADERBOARD_SORT;
+    }
+
+    /**
+     * Thème sélectionné dans le filtre, null pour "Tous les thèmes"
+     */
+    private Integer selectedThemeId() {
+        if (themeFilterCombo == null) return null;
+        Theme selectedTheme = themeFilterCombo.getSelectionModel().getSelectedItem();
+        return selectedTheme != null && selectedTheme.getId() != -1 ? selectedTheme.getId() : null;
     }
 
     @FXML
@@ -281,13 +332,17 @@ public class ScoreboardController {
     private void onDeleteScore() {
         Score selectedScore = table.getSelectionModel().getSelectedItem();
         if (selectedScore != null) {
-            if (scoreService.deleteScore(selectedScore.getId())) {
-                // Recharger les scores après suppression
-                loadScores("date");
-                System.out.println("Score supprimé avec succès");
-            } else {
-                System.err.println("Erreur lors de la suppression du score");
-            }
+            long sessionGeneration = UserSession.getInstance().getGeneration();
+            asyncServices.deleteScore(selectedScore.getId()).thenAccept(deleted -> {
+                if (!UserSession.getInstance().isCurrent(sessionGeneration)) return;
+                if (deleted) {
+                    // Recharger les scores après suppression
+                    applyFilters();
+                    System.out.println("Score supprimé avec succès");
+                } else {
+                    System.err.println("Erreur lors de la suppression du score");
+                }
+            });
         } else {
             System.out.println("Aucun score sélectionné pour la suppression");
         }
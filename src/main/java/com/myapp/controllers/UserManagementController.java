@@ -1,9 +1,17 @@
 package com.myapp.controllers;
 
-import com.myapp.models.User;
-import com.myapp.services.UserService;
+import com.myapp.models.UpdateResult;
+import com.myapp.models.UserAdminRow;
+import com.myapp.dao.ExportDAO;
 import com.myapp.dao.UserAuthDAO;
+import com.myapp.services.ExportService;
+import com.myapp.services.ImportService;
+import com.myapp.services.PasswordMigrationJob;
+import com.myapp.services.UserPurgeService;
+import com.myapp.utils.DbExecutor;
 import com.myapp.utils.SceneManager;
+import com.myapp.utils.UserSession;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -12,22 +20,30 @@ import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.FileChooser;
 
+import java.io.File;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class UserManagementController {
-    @FXML private TableView<User> usersTable;
-    @FXML private TableColumn<User, Integer> colId;
-    @FXML private TableColumn<User, String> colFirstName;
-    @FXML private TableColumn<User, String> colLastName;
-    @FXML private TableColumn<User, String> colUsername;
-    @FXML private TableColumn<User, String> colEmail;
-    @FXML private TableColumn<User, String> colRole;
-    @FXML private TableColumn<User, Boolean> colActive;
-    @FXML private TableColumn<User, String> colLastLogin;
+    @FXML private TableView<UserAdminRow> usersTable;
+    @FXML private TableColumn<UserAdminRow, Integer> colId;
+    @FXML private TableColumn<UserAdminRow, String> colFirstName;
+    @FXML private TableColumn<UserAdminRow, String> colLastName;
+    @FXML private TableColumn<UserAdminRow, String> colUsername;
+    @FXML private TableColumn<UserAdminRow, String> colEmail;
+    @FXML private TableColumn<UserAdminRow, String> colRole;
+    @FXML private TableColumn<UserAdminRow, Boolean> colActive;
+    @FXML private TableColumn<UserAdminRow, String> colLastLogin;
     
     @FXML private ComboBox<String> roleFilterCombo;
     @FXML private Button btnDeactivateUser;
@@ -35,12 +51,25 @@ public class UserManagementController {
     @FXML private Button btnChangeRole;
     @FXML private Button btnDeleteUser;
     @FXML private Button btnRefresh;
+    @FXML private Button btnExportScores;
+    @FXML private Button btnExportUsers;
+    @FXML private Button btnMigratePasswords;
+    @FXML private Button btnImportUsers;
+    @FXML private Button btnImportScores;
     @FXML private Button btnBack;
     @FXML private Label statusLabel;
 
-    private final UserService userService = new UserService();
+    private static final int MAX_DISPLAYED_ISSUES = 20;
+
+    // Nouvelles tentatives d'une modification après un conflit de version
+    private static final int MAX_CONFLICT_RETRIES = 2;
+
     private final UserAuthDAO userAuthDAO = new UserAuthDAO();
-    private ObservableList<User> allUsers;
+    private final ExportService exportService = new ExportService();
+    private final ImportService importService = new ImportService();
+    private final UserPurgeService purgeService = new UserPurgeService();
+    private final PasswordMigrationJob passwordMigrationJob = new PasswordMigrationJob();
+    private ObservableList<UserAdminRow> allUsers;
 
     @FXML
     public void initialize() {
@@ -57,36 +86,30 @@ public class UserManagementController {
     }
 
     private boolean isCurrentUserAdmin() {
-        String currentUserIdStr = System.getProperty("currentUserId");
-        if (currentUserIdStr != null && !currentUserIdStr.equals("-1")) {
-            try {
-                int userId = Integer.parseInt(currentUserIdStr);
-                User currentUser = userService.getUser(userId);
-                return currentUser != null && currentUser.isAdmin();
-            } catch (NumberFormatException e) {
-                return false;
-            }
-        }
-        return false;
+        return UserSession.getInstance().isAdmin();
+    }
+
+    private boolean isCurrentUser(UserAdminRow row) {
+        return UserSession.getInstance().snapshot().userId() == row.id();
     }
 
     private void initializeColumns() {
         colId.setCellValueFactory(cellData -> 
-            new SimpleIntegerProperty(cellData.getValue().getId()).asObject());
+            new SimpleIntegerProperty(cellData.getValue().id()).asObject());
         colFirstName.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getFirstName()));
+            new SimpleStringProperty(cellData.getValue().firstName()));
         colLastName.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getLastName()));
+            new SimpleStringProperty(cellData.getValue().lastName()));
         colUsername.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getUsername()));
+            new SimpleStringProperty(cellData.getValue().username()));
         colEmail.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getEmail()));
+            new SimpleStringProperty(cellData.getValue().email()));
         colRole.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().getRole()));
+            new SimpleStringProperty(cellData.getValue().role()));
         colActive.setCellValueFactory(cellData -> 
-            new SimpleBooleanProperty(cellData.getValue().isActive()).asObject());
+            new SimpleBooleanProperty(cellData.getValue().active()).asObject());
         colLastLogin.setCellValueFactory(cellData -> {
-            LocalDateTime lastLogin = cellData.getValue().getLastLogin();
+            LocalDateTime lastLogin = cellData.getValue().lastLogin();
             if (lastLogin != null) {
                 return new SimpleStringProperty(lastLogin.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
             } else {
@@ -104,7 +127,7 @@ public class UserManagementController {
     }
 
     private void loadUsers() {
-        List<User> users = userAuthDAO.findAll();
+        List<UserAdminRow> users = userAuthDAO.findAdminRows();
         allUsers = FXCollections.observableArrayList(users);
         applyFilters();
         showStatus("Utilisateurs chargés: " + users.size());
@@ -114,10 +137,10 @@ public class UserManagementController {
         if (allUsers == null) return;
 
         String selectedRole = roleFilterCombo.getSelectionModel().getSelectedItem();
-        List<User> filteredUsers = allUsers.stream()
+        List<UserAdminRow> filteredUsers = allUsers.stream()
             .filter(user -> {
                 if ("Tous".equals(selectedRole)) return true;
-                return selectedRole.equals(user.getRole());
+                return selectedRole.equals(user.role());
             })
             .collect(Collectors.toList());
 
@@ -129,9 +152,169 @@ public class UserManagementController {
         loadUsers();
     }
 
+    @FXML
+    private void onExportScores() {
+        exportDataset(ExportDAO.Dataset.SCORES, "scores");
+    }
+
+    @FXML
+    private void onExportUsers() {
+        exportDataset(ExportDAO.Dataset.USERS, "utilisateurs");
+    }
+
+    /**
+     * Exporte un jeu de données en arrière-plan vers le fichier choisi, avec l'avancement dans la barre d'état
+     */
+    private void exportDataset(ExportDAO.Dataset dataset, String baseName) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Exporter les " + baseName);
+        chooser.setInitialFileName(baseName + "-" + LocalDate.now() + ".csv");
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("CSV", "*.csv"),
+                new FileChooser.ExtensionFilter("JSON (une ligne par enregistrement)", "*.ndjson", "*.jsonl"));
+        File file = chooser.showSaveDialog(usersTable.getScene().getWindow());
+        if (file == null) return;
+
+        ExportService.Format format = ExportService.Format.fromFileName(file.getName());
+        setExportButtonsDisabled(true);
+        showStatus("Export des " + baseName + " en cours...");
+
+        long sessionGeneration = UserSession.getInstance().getGeneration();
+        DbExecutor.supplyDetached(() -> {
+            try {
+                return exportService.export(dataset, format, file.toPath(), (rows, bytes, rowsPerSecond) ->
+                        Platform.runLater(() -> showStatus(String.format("Export des %s: %d lignes (%.0f lignes/s)",
+                                baseName, rows, rowsPerSecond))));
+            } catch (IOException | SQLException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((result, error) -> {
+            setExportButtonsDisabled(false);
+            // Administrateur déconnecté entre-temps : ne rien afficher à la session suivante
+            if (!UserSession.getInstance().isCurrent(sessionGeneration)) return;
+            if (error != null) {
+                showError("Erreur lors de l'export: " + DbExecutor.unwrap(error).getMessage());
+            } else {
+                showStatus("Export terminé (" + file.getName() + "): " + result);
+            }
+        });
+    }
+
+    private void setExportButtonsDisabled(boolean disabled) {
+        if (btnExportScores != null) btnExportScores.setDisable(disabled);
+        if (btnExportUsers != null) btnExportUsers.setDisable(disabled);
+    }
+
+    /**
+     * Migration des anciens hashes en arrière-plan ; relancée après une interruption, elle reprend où elle s'était arrêtée
+     */
+    @FXML
+    private void onMigratePasswords() {
+        Alert confirmation = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmation.setTitle("Migration des mots de passe");
+        confirmation.setHeaderText("Re-hacher les anciens mots de passe");
+        confirmation.setContentText("Les mots de passe stockés en Base64 seront re-hachés.\n" +
+                "Les comptes au hash illisible devront être réinitialisés par un administrateur.\n" +
+                "Les autres anciens hashes seront mis à niveau à la prochaine connexion.");
+        if (confirmation.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) return;
+
+        btnMigratePasswords.setDisable(true);
+        showStatus("Migration des mots de passe en cours...");
+
+        long sessionGeneration = UserSession.getInstance().getGeneration();
+        DbExecutor.supplyDetached(() -> {
+            try {
+                return passwordMigrationJob.run((scanned, total, rehashed, reset, usersPerSecond) ->
+                        Platform.runLater(() -> showStatus(String.format(
+                                "Migration des mots de passe: %d / %d comptes, %d re-haché(s), %d à réinitialiser (%.0f comptes/s)",
+                                scanned, total, rehashed, reset, usersPerSecond))));
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((report, error) -> {
+            btnMigratePasswords.setDisable(false);
+            // Administrateur déconnecté entre-temps : ne rien afficher à la session suivante
+            if (!UserSession.getInstance().isCurrent(sessionGeneration)) return;
+            if (error != null) {
+                showError("Migration des mots de passe interrompue (relancer pour la reprendre): "
+                        + DbExecutor.unwrap(error).getMessage());
+            } else {
+                showStatus("Migration des mots de passe terminée: " + report);
+            }
+        });
+    }
+
+    @FXML
+    private void onImportUsers() {
+        importDataset(ExportDAO.Dataset.USERS, "utilisateurs");
+    }
+
+    @FXML
+    private void onImportScores() {
+        importDataset(ExportDAO.Dataset.SCORES, "scores");
+    }
+
+    /**
+     * Importe un fichier CSV en arrière-plan puis affiche le bilan et les lignes rejetées
+     */
+    private void importDataset(ExportDAO.Dataset dataset, String baseName) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Importer des " + baseName);
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV", "*.csv"));
+        File file = chooser.showOpenDialog(usersTable.getScene().getWindow());
+        if (file == null) return;
+
+        setImportButtonsDisabled(true);
+        showStatus("Import des " + baseName + " en cours...");
+
+        long sessionGeneration = UserSession.getInstance().getGeneration();
+        DbExecutor.supplyDetached(() -> {
+            try {
+                return importService.importCsv(dataset, file.toPath(), (rows, imported, rejected) ->
+                        Platform.runLater(() -> showStatus(String.format("Import des %s: %d lignes, %d importées, %d rejetées",
+                                baseName, rows, imported, rejected))));
+            } catch (IOException | SQLException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((report, error) -> {
+            setImportButtonsDisabled(false);
+            // Administrateur déconnecté entre-temps : ne rien afficher à la session suivante
+            if (!UserSession.getInstance().isCurrent(sessionGeneration)) return;
+            if (error != null) {
+                showError("Erreur lors de l'import: " + DbExecutor.unwrap(error).getMessage());
+                return;
+            }
+            loadUsers();
+            showStatus("Import terminé (" + file.getName() + "): " + report);
+            if (report.rejected() > 0) {
+                showImportIssues(report);
+            }
+        });
+    }
+
+    private void showImportIssues(ImportService.ImportReport report) {
+        StringBuilder details = new StringBuilder();
+        report.issues().stream().limit(MAX_DISPLAYED_ISSUES)
+                .forEach(issue -> details.append(issue).append('\n'));
+        if (report.rejected() > MAX_DISPLAYED_ISSUES) {
+            details.append("... ").append(report.rejected() - MAX_DISPLAYED_ISSUES).append(" autre(s) rejet(s)");
+        }
+
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Import");
+        alert.setHeaderText(report.rejected() + " ligne(s) rejetée(s)");
+        alert.setContentText(details.toString());
+        alert.showAndWait();
+    }
+
+    private void setImportButtonsDisabled(boolean disabled) {
+        if (btnImportUsers != null) btnImportUsers.setDisable(disabled);
+        if (btnImportScores != null) btnImportScores.setDisable(disabled);
+    }
+
     @FXML
     private void onDeactivateUser() {
-        User selectedUser = usersTable.getSelectionModel().getSelectedItem();
+        UserAdminRow selectedUser = usersTable.getSelectionModel().getSelectedItem();
         if (selectedUser == null) {
             showError("Veuillez sélectionner un utilisateur à désactiver.");
             return;
@@ -142,7 +325,7 @@ public class UserManagementController {
             return;
         }
 
-        if (!selectedUser.isActive()) {
+        if (!selectedUser.active()) {
             showError("Cet utilisateur est déjà désactivé.");
             return;
         }
@@ -153,65 +336,60 @@ public class UserManagementController {
         confirmation.setContentText("Êtes-vous sûr de vouloir désactiver " + selectedUser.getFullName() + " ?");
 
         if (confirmation.showAndWait().orElse(ButtonType.CANCEL) == ButtonType.OK) {
-            if (userAuthDAO.deactivate(selectedUser.getId())) {
-                showStatus("Utilisateur " + selectedUser.getFullName() + " désactivé avec succès.");
-                loadUsers();
-            } else {
-                showError("Erreur lors de la désactivation de l'utilisateur.");
-            }
+            UpdateResult result = updateRow(selectedUser, UserAdminRow::active,
+                    row -> userAuthDAO.setActive(row.id(), false, row.version()));
+            reportUpdate(result, selectedUser,
+                    "Utilisateur " + selectedUser.getFullName() + " désactivé avec succès.",
+                    "Erreur lors de la désactivation de l'utilisateur.");
         }
     }
 
     @FXML
     private void onActivateUser() {
-        User selectedUser = usersTable.getSelectionModel().getSelectedItem();
+        UserAdminRow selectedUser = usersTable.getSelectionModel().getSelectedItem();
         if (selectedUser == null) {
             showError("Veuillez sélectionner un utilisateur à activer.");
             return;
         }
 
-        if (selectedUser.isActive()) {
+        if (selectedUser.active()) {
             showError("Cet utilisateur est déjà actif.");
             return;
         }
 
-        if (userAuthDAO.activate(selectedUser.getId())) {
-            showStatus("Utilisateur " + selectedUser.getFullName() + " activé avec succès.");
-            loadUsers();
-        } else {
-            showError("Erreur lors de l'activation de l'utilisateur.");
-        }
+        UpdateResult result = updateRow(selectedUser, UserAdminRow::active,
+                row -> userAuthDAO.setActive(row.id(), true, row.version()));
+        reportUpdate(result, selectedUser,
+                "Utilisateur " + selectedUser.getFullName() + " activé avec succès.",
+                "Erreur lors de l'activation de l'utilisateur.");
     }
 
     @FXML
     private void onChangeRole() {
-        User selectedUser = usersTable.getSelectionModel().getSelectedItem();
+        UserAdminRow selectedUser = usersTable.getSelectionModel().getSelectedItem();
         if (selectedUser == null) {
             showError("Veuillez sélectionner un utilisateur.");
             return;
         }
 
         // Ne pas permettre de changer son propre rôle
-        String currentUserIdStr = System.getProperty("currentUserId");
-        if (currentUserIdStr != null && selectedUser.getId() == Integer.parseInt(currentUserIdStr)) {
+        if (isCurrentUser(selectedUser)) {
             showError("Vous ne pouvez pas modifier votre propre rôle.");
             return;
         }
 
-        ChoiceDialog<String> dialog = new ChoiceDialog<>(selectedUser.getRole(), "USER", "ADMIN");
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(selectedUser.role(), "USER", "ADMIN");
         dialog.setTitle("Changer le rôle");
         dialog.setHeaderText("Changer le rôle de " + selectedUser.getFullName());
         dialog.setContentText("Nouveau rôle:");
 
         dialog.showAndWait().ifPresent(newRole -> {
-            if (!newRole.equals(selectedUser.getRole())) {
-                selectedUser.setRole(newRole);
-                if (userAuthDAO.update(selectedUser)) {
-                    showStatus("Rôle de " + selectedUser.getFullName() + " changé en " + newRole);
-                    loadUsers();
-                } else {
-                    showError("Erreur lors du changement de rôle.");
-                }
+            if (!newRole.equals(selectedUser.role())) {
+                UpdateResult result = updateRow(selectedUser, UserAdminRow::role,
+                        row -> userAuthDAO.updateRole(row.id(), newRole, row.version()));
+                reportUpdate(result, selectedUser,
+                        "Rôle de " + selectedUser.getFullName() + " changé en " + newRole,
+                        "Erreur lors du changement de rôle.");
             }
         });
     }
@@ -223,7 +401,7 @@ public class UserManagementController {
 
     @FXML
     private void onDeleteUser() {
-        User selectedUser = usersTable.getSelectionModel().getSelectedItem();
+        UserAdminRow selectedUser = usersTable.getSelectionModel().getSelectedItem();
         if (selectedUser == null) {
             showError("Veuillez sélectionner un utilisateur à supprimer.");
             return;
@@ -235,8 +413,7 @@ public class UserManagementController {
         }
 
         // Ne pas permettre de supprimer son propre compte
-        String currentUserIdStr = System.getProperty("currentUserId");
-        if (currentUserIdStr != null && selectedUser.getId() == Integer.parseInt(currentUserIdStr)) {
+        if (isCurrentUser(selectedUser)) {
             showError("Vous ne pouvez pas supprimer votre propre compte.");
             return;
         }
@@ -260,14 +437,113 @@ public class UserManagementController {
         noButton.setText("Annuler");
 
         if (confirmation.showAndWait().orElse(ButtonType.NO) == ButtonType.YES) {
-            // Suppression définitive de la base de données
-            if (userAuthDAO.deleteUser(selectedUser.getId())) {
-                showStatus("✅ Utilisateur " + selectedUser.getFullName() + " supprimé définitivement de la base de données.");
-                loadUsers();
+            purgeUser(selectedUser);
+        }
+    }
+
+    /**
+     * Suppression définitive en arrière-plan, par tranches, avec l'avancement dans la barre d'état
+     */
+    private void purgeUser(UserAdminRow user) {
+        btnDeleteUser.setDisable(true);
+        showStatus("Suppression de " + user.getFullName() + " en cours...");
+
+        long sessionGeneration = UserSession.getInstance().getGeneration();
+        DbExecutor.supplyDetached(() -> {
+            try {
+                return purgeService.purge(user.id(), (phase, done, total) ->
+                        Platform.runLater(() -> showStatus(String.format("%s de %s: %d / %d",
+                                phase.getLabel(), user.getFullName(), done, total))));
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((result, error) -> {
+            btnDeleteUser.setDisable(false);
+            // Administrateur déconnecté entre-temps : ne rien afficher à la session suivante
+            if (!UserSession.getInstance().isCurrent(sessionGeneration)) return;
+            if (error != null) {
+                // Le compte reste désactivé : relancer la suppression la reprend
+                refreshRow(user.id());
+                showError("❌ Erreur lors de la suppression définitive de l'utilisateur: "
+                        + DbExecutor.unwrap(error).getMessage());
             } else {
-                showError("❌ Erreur lors de la suppression définitive de l'utilisateur. Vérifiez les contraintes de base de données.");
+                replaceRow(user.id(), null);
+                showStatus("✅ Utilisateur " + user.getFullName() + " supprimé définitivement de la base de données ("
+                        + result + ").");
+            }
+        });
+    }
+
+    /**
+     * Applique une modification versionnée à une ligne, sans verrou. En cas de conflit, seule cette ligne
+     * est relue : si le champ modifié n'a pas été changé entre-temps par un autre administrateur,
+     * la modification est réessayée sur la nouvelle version ; sinon le conflit est signalé.
+     * @param field champ visé par la modification
+     */
+    private UpdateResult updateRow(UserAdminRow row, Function<UserAdminRow, Object> field,
+                                   Function<UserAdminRow, UpdateResult> update) {
+        UserAdminRow current = row;
+        for (int attempt = 0; attempt <= MAX_CONFLICT_RETRIES; attempt++) {
+            UpdateResult result = update.apply(current);
+            if (result != UpdateResult.CONFLICT) {
+                return result;
+            }
+            UserAdminRow fresh = userAuthDAO.findAdminRow(row.id());
+            if (fresh == null) {
+                return UpdateResult.NOT_FOUND;
+            }
+            replaceRow(row.id(), fresh);
+            if (!Objects.equals(field.apply(fresh), field.apply(row))) {
+                return UpdateResult.CONFLICT;
+            }
+            current = fresh;
+        }
+        return UpdateResult.CONFLICT;
+    }
+
+    private void reportUpdate(UpdateResult result, UserAdminRow row, String successMessage, String errorMessage) {
+        switch (result) {
+            case SUCCESS:
+                refreshRow(row.id());
+                showStatus(successMessage);
+                break;
+            case CONFLICT:
+                showError(row.getFullName() + " a été modifié entre-temps par un autre administrateur. "
+                        + "La ligne a été rechargée : vérifiez-la avant de recommencer.");
+                break;
+            case NOT_FOUND:
+                replaceRow(row.id(), null);
+                showError(row.getFullName() + " n'existe plus.");
+                break;
+            default:
+                showError(errorMessage);
+                break;
+        }
+    }
+
+    /**
+     * Relit une seule ligne au lieu de recharger tout le tableau
+     */
+    private void refreshRow(int id) {
+        replaceRow(id, userAuthDAO.findAdminRow(id));
+    }
+
+    /**
+     * Remplace (ou retire si fresh est null) la ligne d'identifiant id
+     */
+    private void replaceRow(int id, UserAdminRow fresh) {
+        if (allUsers == null) return;
+        for (int i = 0; i < allUsers.size(); i++) {
+            if (allUsers.get(i).id() == id) {
+                if (fresh != null) {
+                    allUsers.set(i, fresh);
+                } else {
+                    allUsers.remove(i);
+                }
+                break;
             }
         }
+        applyFilters();
     }
 
     private void showStatus(String message) {
@@ -0,0 +1,63 @@
+package com.myapp.dao;
+
+import com.myapp.models.Theme;
+import com.myapp.models.User;
+import com.myapp.utils.LruCache;
+
+import java.util.List;
+
+/**
+ * Caches de lecture partagés par les DAO des utilisateurs et des thèmes.
+ * Les entités sont mutables : les DAO stockent leur propre instance et renvoient toujours une copie.
+ * Chaque écriture dans un DAO invalide les entrées qu'elle modifie.
+ */
+public final class EntityCache {
+    static final LruCache<Integer, User> USERS = new LruCache<>("users",
+            Integer.getInteger("cache.users.size", 1000), Long.getLong("cache.users.ttlMs", 60_000));
+    static final LruCache<Integer, Theme> THEMES = new LruCache<>("themes",
+            Integer.getInteger("cache.themes.size", 256), Long.getLong("cache.themes.ttlMs", 300_000));
+    // Liste complète des thèmes, sous une clé unique
+    static final LruCache<String, List<Theme>> THEME_LISTS = new LruCache<>("themeLists",
+            1, Long.getLong("cache.themes.ttlMs", 300_000));
+    static final String ALL = "all";
+
+    private EntityCache() {
+    }
+
+    public static List<LruCache.Stats> getStats() {
+        return List.of(USERS.getStats(), THEMES.getStats(), THEME_LISTS.getStats());
+    }
+
+    public static void invalidateAll() {
+        USERS.invalidateAll();
+        THEMES.invalidateAll();
+        THEME_LISTS.invalidateAll();
+    }
+
+    static User copy(User user) {
+        if (user == null) return null;
+        User copy = new User(user.getId(), user.getFirstName(), user.getLastName());
+        copy.setUsername(user.getUsername());
+        copy.setPasswordHash(user.getPasswordHash());
+        copy.setEmail(user.getEmail());
+        copy.setRole(user.getRole());
+        copy.setActive(user.isActive());
+        copy.setLastLogin(user.getLastLogin());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        copy.setVersion(user.getVersion());
+        return copy;
+    }
+
+    static Theme copy(Theme theme) {
+        if (theme == null) return null;
+        Theme copy = new Theme(theme.getId(), theme.getName());
+        copy.setImagePath(theme.getImagePath());
+        copy.setDescription(theme.getDescription());
+        copy.setActive(theme.isActive());
+        copy.setCreatedBy(theme.getCreatedBy());
+        copy.setCreatedAt(theme.getCreatedAt());
+        copy.setUpdatedAt(theme.getUpdatedAt());
+        return copy;
+    }
+}
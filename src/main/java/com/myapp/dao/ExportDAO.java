@@ -0,0 +1,92 @@
+package com.myapp.dao;
+
+import com.myapp.config.MySQLConnection;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * Lecture en flux des tables à exporter.
+ * Le ResultSet est en avant seulement avec une taille de fetch Integer.MIN_VALUE : le pilote MySQL
+ * transmet alors les lignes une à une au lieu de charger tout le résultat en mémoire.
+ */
+public class ExportDAO {
+    // Ordre de la clé primaire : parcours sans tri
+    private static final String SCORES_SQL = "SELECT s.id, s.played_at, s.attempts, s.time_seconds, " +
+            "u.id AS user_id, u.username, u.first_name, u.last_name, " +
+            "t.id AS theme_id, t.name AS theme_name " +
+            "FROM scores s " +
+            "INNER JOIN users u ON s.user_id = u.id " +
+            "LEFT JOIN themes t ON s.theme_id = t.id " +
+            "ORDER BY s.id";
+
+    // Jamais de hash de mot de passe dans un export
+    private static final String USERS_SQL = "SELECT id, first_name, last_name, username, email, role, " +
+            "is_active, last_login, created_at FROM users ORDER BY id";
+
+    /**
+     * Reçoit les lignes une à une ; le tableau values est réutilisé d'une ligne à l'autre
+     */
+    public interface RowVisitor {
+        void header(String[] columns) throws IOException;
+
+        void row(Object[] values) throws IOException;
+    }
+
+    public enum Dataset {
+        SCORES(SCORES_SQL),
+        USERS(USERS_SQL);
+
+        private final String sql;
+
+        Dataset(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    /**
+     * Requête en flux (fetchSize MIN_VALUE) sans délai : le parcours complet peut durer, et une jointure
+     * qui doit trier ne renvoie sa première ligne qu'après un long silence réseau. Un délai de lecture dépassé
+     * serait compté comme une panne par le disjoncteur ; le pool rétablit le délai réseau au retour de la connexion.
+     */
+    private static PreparedStatement prepareStreaming(Connection c, String sql) throws SQLException {
+        c.setNetworkTimeout(Runnable::run, 0);
+        PreparedStatement ps = c.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        ps.setFetchSize(Integer.MIN_VALUE);
+        ps.setQueryTimeout(0);
+        return ps;
+    }
+
+    /**
+     * Parcourt toutes les lignes du jeu de données
+     * @return nombre de lignes lues
+     */
+    public long stream(Dataset dataset, RowVisitor visitor) throws SQLException, IOException {
+        long rows = 0;
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = prepareStreaming(c, dataset.sql)) {
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                String[] columns = new String[meta.getColumnCount()];
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = meta.getColumnLabel(i + 1);
+                }
+                visitor.header(columns);
+
+                Object[] values = new Object[columns.length];
+                while (rs.next()) {
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = rs.getObject(i + 1);
+                    }
+                    visitor.row(values);
+                    rows++;
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,132 @@
+package com.myapp.dao;
+
+import com.myapp.config.MySQLConnection;
+import com.myapp.models.User;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Accès en masse pour l'import : recherche des doublons par lots de IN (...) et insertion par batch JDBC.
+ * Avec rewriteBatchedStatements=true, un batch est envoyé en une seule requête INSERT multi-lignes.
+ */
+public class ImportDAO {
+    // Nombre de valeurs de chaque clause IN (...). Le dernier lot est complété en répétant sa dernière valeur :
+    // un seul texte SQL par requête, donc une seule entrée dans StatementCache et une seule requête préparée côté serveur
+    private static final int IN_CHUNK = Math.max(1, Integer.getInteger("import.inChunk", 500));
+
+    private static final String FIND_USER_IDS_SQL =
+            "SELECT id, username FROM users WHERE username IN (" + placeholders(IN_CHUNK) + ")";
+    private static final String FIND_USERNAMES_SQL =
+            "SELECT username FROM users WHERE username IN (" + placeholders(IN_CHUNK) + ")";
+    private static final String FIND_EMAILS_SQL =
+            "SELECT email FROM users WHERE email IN (" + placeholders(IN_CHUNK) + ")";
+
+    private static final String INSERT_USER_SQL = "INSERT INTO users (first_name, last_name, username, " +
+            "password_hash, email, role, is_active, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * Noms d'utilisateur déjà présents en base parmi ceux fournis, en minuscules
+     */
+    public Set<String> findExistingUsernames(Collection<String> usernames) throws SQLException {
+        return findExisting(FIND_USERNAMES_SQL, usernames);
+    }
+
+    /**
+     * Emails déjà présents en base parmi ceux fournis, en minuscules
+     */
+    public Set<String> findExistingEmails(Collection<String> emails) throws SQLException {
+        return findExisting(FIND_EMAILS_SQL, emails);
+    }
+
+    /**
+     * Identifiants des utilisateurs par nom d'utilisateur (clé en minuscules)
+     */
+    public Map<String, Integer> findUserIds(Collection<String> usernames) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> values = new ArrayList<>(usernames);
+        if (values.isEmpty()) return ids;
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(FIND_USER_IDS_SQL)) {
+            for (int from = 0; from < values.size(); from += IN_CHUNK) {
+                bindChunk(ps, values.subList(from, Math.min(from + IN_CHUNK, values.size())));
+                ResultSet rs = ps.executeQuery();
+                while (rs.next()) {
+                    ids.put(rs.getString("username").toLowerCase(Locale.ROOT), rs.getInt("id"));
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Insère un lot d'utilisateurs dans une seule transaction ; rien n'est inséré en cas d'erreur
+     */
+    public void insertUsers(List<User> users) throws SQLException {
+        if (users.isEmpty()) return;
+        try (Connection c = MySQLConnection.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(INSERT_USER_SQL)) {
+                for (User user : users) {
+                    ps.setString(1, user.getFirstName());
+                    ps.setString(2, user.getLastName());
+                    ps.setString(3, user.getUsername());
+                    ps.setString(4, user.getPasswordHash());
+                    ps.setString(5, user.getEmail());
+                    ps.setString(6, user.getRole() != null ? user.getRole() : "USER");
+                    ps.setBoolean(7, user.isActive());
+                    ps.setTimestamp(8, Timestamp.valueOf(user.getCreatedAt()));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private Set<String> findExisting(String sql, Collection<String> values) throws SQLException {
+        Set<String> existing = new HashSet<>();
+        List<String> list = new ArrayList<>(values);
+        if (list.isEmpty()) return existing;
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            for (int from = 0; from < list.size(); from += IN_CHUNK) {
+                bindChunk(ps, list.subList(from, Math.min(from + IN_CHUNK, list.size())));
+                ResultSet rs = ps.executeQuery();
+                while (rs.next()) {
+                    existing.add(rs.getString(1).toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return existing;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /**
+     * Lie un lot aux IN_CHUNK paramètres, en répétant la dernière valeur (sans effet sur le résultat d'un IN)
+     */
+    private static void bindChunk(PreparedStatement ps, List<String> values) throws SQLException {
+        String last = values.get(values.size() - 1);
+        for (int i = 0; i < IN_CHUNK; i++) {
+            ps.setString(i + 1, i < values.size() ? values.get(i) : last);
+        }
+    }
+}
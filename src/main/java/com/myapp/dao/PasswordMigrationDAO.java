@@ -0,0 +1,144 @@
+package com.myapp.dao;
+
+import com.myapp.config.ExplainQuery;
+import com.myapp.config.MySQLConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Lecture par pages et réécriture des hashes de mots de passe pour PasswordMigrationJob.
+ * Les pages sont lues par clé (id > dernier id traité) : chaque page coûte une lecture d'index,
+ * quelle que soit sa position dans la table. Chaque page est écrite en une transaction courte
+ * qui enregistre aussi le point de reprise.
+ */
+public class PasswordMigrationDAO {
+    private static final String FIND_PAGE_SQL =
+            "SELECT id, password_hash FROM users WHERE id > ? ORDER BY id LIMIT ?";
+    // Le hash n'est remplacé que s'il n'a pas changé depuis la lecture de la page
+    private static final String UPDATE_HASH_SQL =
+            "UPDATE users SET password_hash = ? WHERE id = ? AND password_hash <=> ?";
+    private static final String LOAD_CHECKPOINT_SQL =
+            "SELECT last_user_id, scanned, rehashed, reset FROM password_migration_checkpoint WHERE job = ?";
+    private static final String SAVE_CHECKPOINT_SQL =
+            "INSERT INTO password_migration_checkpoint (job, last_user_id, scanned, rehashed, reset) VALUES (?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE last_user_id = VALUES(last_user_id), scanned = VALUES(scanned), " +
+            "rehashed = VALUES(rehashed), reset = VALUES(reset)";
+
+    public record HashRow(int id, String passwordHash) {
+    }
+
+    /**
+     * Nouveau hash d'un compte, appliqué seulement si le hash stocké vaut toujours oldHash
+     */
+    public record HashUpdate(int id, String oldHash, String newHash) {
+    }
+
+    /**
+     * Avancement enregistré d'une migration interrompue
+     */
+    public record Checkpoint(int lastUserId, long scanned, long rehashed, long reset) {
+        public static final Checkpoint START = new Checkpoint(0, 0, 0, 0);
+    }
+
+    public static List<ExplainQuery> explainQueries() {
+        return List.of(ExplainQuery.of("PasswordMigrationDAO.findPage", FIND_PAGE_SQL, 0, 500));
+    }
+
+    public List<HashRow> findPage(int afterId, int limit) throws SQLException {
+        List<HashRow> rows = new ArrayList<>();
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(FIND_PAGE_SQL)) {
+            ps.setInt(1, afterId);
+            ps.setInt(2, limit);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                rows.add(new HashRow(rs.getInt(1), rs.getString(2)));
+            }
+        }
+        return rows;
+    }
+
+    public long countAfter(int afterId) throws SQLException {
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT COUNT(*) FROM users WHERE id > ?")) {
+            ps.setInt(1, afterId);
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * @return point de reprise de la migration, null si aucune migration n'est en cours
+     */
+    public Checkpoint loadCheckpoint(String job) throws SQLException {
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(LOAD_CHECKPOINT_SQL)) {
+            ps.setString(1, job);
+            ResultSet rs = ps.executeQuery();
+            if (!rs.next()) return null;
+            return new Checkpoint(rs.getInt(1), rs.getLong(2), rs.getLong(3), rs.getLong(4));
+        }
+    }
+
+    /**
+     * Écrit les nouveaux hashes d'une page en un lot JDBC et avance le point de reprise, dans une transaction
+     * @param checkpointFor point de reprise à enregistrer, calculé d'après les modifications appliquées
+     *                      (applied[i] est faux si le hash de updates[i] a changé entre-temps et a été laissé tel quel)
+     * @return le point de reprise enregistré
+     */
+    public Checkpoint applyPage(String job, List<HashUpdate> updates,
+                                Function<boolean[], Checkpoint> checkpointFor) throws SQLException {
+        try (Connection c = MySQLConnection.getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                boolean[] applied = new boolean[updates.size()];
+                if (!updates.isEmpty()) {
+                    try (PreparedStatement ps = c.prepareStatement(UPDATE_HASH_SQL)) {
+                        for (HashUpdate update : updates) {
+                            ps.setString(1, update.newHash());
+                            ps.setInt(2, update.id());
+                            ps.setString(3, update.oldHash());
+                            ps.addBatch();
+                        }
+                        int[] counts = ps.executeBatch();
+                        for (int i = 0; i < counts.length && i < applied.length; i++) {
+                            // SUCCESS_NO_INFO (-2) : le pilote ne détaille pas, la ligne est comptée
+                            applied[i] = counts[i] != 0;
+                        }
+                    }
+                }
+                Checkpoint checkpoint = checkpointFor.apply(applied);
+                try (PreparedStatement ps = c.prepareStatement(SAVE_CHECKPOINT_SQL)) {
+                    ps.setString(1, job);
+                    ps.setInt(2, checkpoint.lastUserId());
+                    ps.setLong(3, checkpoint.scanned());
+                    ps.setLong(4, checkpoint.rehashed());
+                    ps.setLong(5, checkpoint.reset());
+                    ps.executeUpdate();
+                }
+                c.commit();
+                for (HashUpdate update : updates) {
+                    EntityCache.USERS.invalidate(update.id());
+                }
+                return checkpoint;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    public void clearCheckpoint(String job) throws SQLException {
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement("DELETE FROM password_migration_checkpoint WHERE job = ?")) {
+            ps.setString(1, job);
+            ps.executeUpdate();
+        }
+    }
+}
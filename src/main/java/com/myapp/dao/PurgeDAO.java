@@ -0,0 +1,81 @@
+package com.myapp.dao;
+
+import com.myapp.config.MySQLConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Suppression par tranches des scores d'un joueur, avant la suppression de son compte.
+ * Chaque tranche est une transaction courte : les verrous sur scores sont relâchés entre deux tranches
+ * et les insertions des autres postes ne restent pas bloquées derrière un DELETE en cascade.
+ * Les agrégats touchés par une tranche sont recalculés dans la même transaction : une purge interrompue
+ * ne laisse aucun agrégat compter des scores déjà supprimés.
+ */
+public class PurgeDAO {
+    // L'ordre suit l'index (user_id, played_at) : chaque tranche lit et verrouille seulement ses lignes
+    private static final String LOCK_CHUNK_SQL = "SELECT DATE(played_at), COALESCE(theme_id, 0) FROM scores " +
+            "WHERE user_id = ? ORDER BY played_at, id LIMIT ? FOR UPDATE";
+    // Mêmes lignes que LOCK_CHUNK_SQL : verrouillées, elles ne peuvent ni changer ni être devancées par une insertion
+    private static final String DELETE_CHUNK_SQL =
+            "DELETE FROM scores WHERE user_id = ? ORDER BY played_at, id LIMIT ?";
+
+    public long countScores(int userId) throws SQLException {
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT COUNT(*) FROM scores WHERE user_id = ?")) {
+            ps.setInt(1, userId);
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Supprime au plus limit scores du joueur et recalcule leurs agrégats (une transaction)
+     * @return nombre de scores supprimés, 0 quand il n'en reste plus
+     */
+    public int deleteScoreChunk(int userId, int limit) throws SQLException {
+        try (Connection c = MySQLConnection.getConnection()) {
+            c.setAutoCommit(false);
+            try {
+                Set<RollupDAO.Key> themeDays = new HashSet<>();
+                Set<RollupDAO.Key> userDays = new HashSet<>();
+                Set<RollupDAO.TotalsKey> totals = new HashSet<>();
+                int locked = 0;
+                try (PreparedStatement ps = c.prepareStatement(LOCK_CHUNK_SQL)) {
+                    ps.setInt(1, userId);
+                    ps.setInt(2, limit);
+                    ResultSet rs = ps.executeQuery();
+                    while (rs.next()) {
+                        locked++;
+                        RollupDAO.Key themeDay = new RollupDAO.Key(rs.getDate(1).toLocalDate(), rs.getInt(2));
+                        themeDays.add(themeDay);
+                        userDays.add(new RollupDAO.Key(themeDay.day(), userId));
+                        totals.add(new RollupDAO.TotalsKey(userId, themeDay.id()));
+                    }
+                }
+                if (locked == 0) {
+                    c.commit();
+                    return 0;
+                }
+
+                int deleted;
+                try (PreparedStatement ps = c.prepareStatement(DELETE_CHUNK_SQL)) {
+                    ps.setInt(1, userId);
+                    ps.setInt(2, locked);
+                    deleted = ps.executeUpdate();
+                }
+                RollupDAO.recompute(c, themeDays, userDays);
+                RollupDAO.recomputeTotals(c, totals);
+                c.commit();
+                return deleted;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+}
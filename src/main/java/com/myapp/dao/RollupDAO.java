@@ -0,0 +1,415 @@
+package com.myapp.dao;
+
+import com.myapp.config.MySQLConnection;
+import com.myapp.models.Score;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Agrégats des scores : score_daily_theme (jour x thème), score_daily_user (jour x joueur)
+ * et score_user_theme (totaux joueur x thème).
+ * Les insertions de scores les mettent à jour dans la même transaction (addition, minimum) ;
+ * une suppression ou une modification recalcule exactement les couples touchés.
+ * Les statistiques des joueurs (ScoreDAO.findPlayerStats) les lisent en O(thèmes) lignes au lieu de O(parties).
+ */
+public class RollupDAO {
+    // Les scores sans thème sont agrégés sous ce thème
+    public static final int NO_THEME = 0;
+
+    private static final String COLUMNS = "games, attempts_sum, attempts_min, time_sum, time_min";
+    private static final String ON_DUPLICATE = " ON DUPLICATE KEY UPDATE games = games + VALUES(games), " +
+            "attempts_sum = attempts_sum + VALUES(attempts_sum), attempts_min = LEAST(attempts_min, VALUES(attempts_min)), " +
+            "time_sum = time_sum + VALUES(time_sum), time_min = LEAST(time_min, VALUES(time_min))";
+    private static final String AGGREGATES = "COUNT(*), SUM(attempts), MIN(attempts), SUM(time_seconds), MIN(time_seconds)";
+
+    private static final String UPSERT_THEME_SQL = "INSERT INTO score_daily_theme (day, theme_id, " + COLUMNS +
+            ") VALUES (?, ?, ?, ?, ?, ?, ?)" + ON_DUPLICATE;
+    private static final String UPSERT_USER_SQL = "INSERT INTO score_daily_user (day, user_id, " + COLUMNS +
+            ") VALUES (?, ?, ?, ?, ?, ?, ?)" + ON_DUPLICATE;
+
+    private static final String UPSERT_TOTALS_SQL = "INSERT INTO score_user_theme (user_id, theme_id, " + COLUMNS +
+            ") VALUES (?, ?, ?, ?, ?, ?, ?)" + ON_DUPLICATE;
+
+    // Recalcul d'un couple à partir des scores (aucune ligne si plus aucune partie)
+    private static final String DELETE_THEME_DAY_SQL = "DELETE FROM score_daily_theme WHERE day = ? AND theme_id = ?";
+    private static final String RECOMPUTE_THEME_DAY_SQL = "INSERT INTO score_daily_theme (day, theme_id, " + COLUMNS +
+            ") SELECT ?, ?, " + AGGREGATES + " FROM scores " +
+            "WHERE theme_id <=> ? AND played_at >= ? AND played_at < ? HAVING COUNT(*) > 0";
+    private static final String DELETE_USER_DAY_SQL = "DELETE FROM score_daily_user WHERE day = ? AND user_id = ?";
+    private static final String RECOMPUTE_USER_DAY_SQL = "INSERT INTO score_daily_user (day, user_id, " + COLUMNS +
+            ") SELECT ?, ?, " + AGGREGATES + " FROM scores " +
+            "WHERE user_id = ? AND played_at >= ? AND played_at < ? HAVING COUNT(*) > 0";
+
+    private static final String DELETE_TOTALS_SQL = "DELETE FROM score_user_theme WHERE user_id = ? AND theme_id = ?";
+    private static final String RECOMPUTE_TOTALS_SQL = "INSERT INTO score_user_theme (user_id, theme_id, " + COLUMNS +
+            ") SELECT ?, ?, " + AGGREGATES + " FROM scores WHERE user_id = ? AND theme_id <=> ? HAVING COUNT(*) > 0";
+
+    // Reconstruction d'une plage de jours
+    private static final String REBUILD_THEME_SQL = "INSERT INTO score_daily_theme (day, theme_id, " + COLUMNS +
+            ") SELECT DATE(played_at), COALESCE(theme_id, 0), " + AGGREGATES + " FROM scores " +
+            "WHERE played_at >= ? AND played_at < ? GROUP BY DATE(played_at), COALESCE(theme_id, 0)";
+    private static final String REBUILD_USER_SQL = "INSERT INTO score_daily_user (day, user_id, " + COLUMNS +
+            ") SELECT DATE(played_at), user_id, " + AGGREGATES + " FROM scores " +
+            "WHERE played_at >= ? AND played_at < ? GROUP BY DATE(played_at), user_id";
+
+    // Reconstruction des totaux d'une plage de joueurs
+    private static final String REBUILD_TOTALS_SQL = "INSERT INTO score_user_theme (user_id, theme_id, " + COLUMNS +
+            ") SELECT user_id, COALESCE(theme_id, 0), " + AGGREGATES + " FROM scores " +
+            "WHERE user_id >= ? AND user_id < ? GROUP BY user_id, COALESCE(theme_id, 0)";
+
+    /**
+     * Couple jour/thème ou jour/joueur d'un agrégat
+     */
+    public record Key(LocalDate day, int id) {
+        static final Comparator<Key> ORDER = Comparator.comparing(Key::day).thenComparingInt(Key::id);
+    }
+
+    /**
+     * Couple joueur/thème des totaux
+     */
+    public record TotalsKey(int userId, int themeId) {
+        static final Comparator<TotalsKey> ORDER =
+                Comparator.comparingInt(TotalsKey::userId).thenComparingInt(TotalsKey::themeId);
+    }
+
+    // --- Reconstruction ---
+
+    /**
+     * Premier et dernier jour ayant des scores, null si la table est vide
+     */
+    public LocalDate[] findScoreDayRange() throws SQLException {
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT MIN(played_at), MAX(played_at) FROM scores")) {
+            ResultSet rs = ps.executeQuery();
+            if (rs.next() && rs.getTimestamp(1) != null) {
+                return new LocalDate[]{
+                        rs.getTimestamp(1).toLocalDateTime().toLocalDate(),
+                        rs.getTimestamp(2).toLocalDateTime().toLocalDate()};
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Plus petit et plus grand identifiant de joueur ayant des scores, null si la table est vide
+     */
+    public int[] findScoreUserRange() throws SQLException {
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT MIN(user_id), MAX(user_id) FROM scores")) {
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                int min = rs.getInt(1);
+                if (!rs.wasNull()) {
+                    return new int[]{min, rs.getInt(2)};
+                }
+            }
+        }
+        return null;
+    }
+
+    public boolean isEmpty() throws SQLException {
+        return isEmpty("score_daily_theme");
+    }
+
+    public boolean isTotalsEmpty() throws SQLException {
+        return isEmpty("score_user_theme");
+    }
+
+    private static boolean isEmpty(String table) throws SQLException {
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT 1 FROM " + table + " LIMIT 1")) {
+            return !ps.executeQuery().next();
+        }
+    }
+
+    /**
+     * Recalcule les agrégats des jours [from, toExclusive) dans une transaction
+     * @return nombre de lignes d'agrégats écrites
+     */
+    public int rebuildRange(LocalDate from, LocalDate toExclusive) throws SQLException {
+        try (Connection c = MySQLConnection.getConnection()) {
+            // Un INSERT ... SELECT sur une tranche de 31 jours peut dépasser le délai réseau du pool : une lecture
+            // interrompue serait comptée comme une panne par le disjoncteur. Le pool rétablit le délai au retour.
+            c.setNetworkTimeout(Runnable::run, 0);
+            c.setAutoCommit(false);
+            try {
+                int written = 0;
+                for (String table : new String[]{"score_daily_theme", "score_daily_user"}) {
+                    try (PreparedStatement ps = c.prepareStatement(
+                            "DELETE FROM " + table + " WHERE day >= ? AND day < ?")) {
+                        ps.setDate(1, Date.valueOf(from));
+                        ps.setDate(2, Date.valueOf(toExclusive));
+                        ps.executeUpdate();
+                    }
+                }
+                for (String sql : new String[]{REBUILD_THEME_SQL, REBUILD_USER_SQL}) {
+                    try (PreparedStatement ps = c.prepareStatement(sql)) {
+                        ps.setTimestamp(1, Timestamp.valueOf(from.atStartOfDay()));
+                        ps.setTimestamp(2, Timestamp.valueOf(toExclusive.atStartOfDay()));
+                        ps.setQueryTimeout(0);
+                        written += ps.executeUpdate();
+                    }
+                }
+                c.commit();
+                return written;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Recalcule les totaux des joueurs [fromUserId, toUserIdExclusive) dans une transaction
+     * @return nombre de lignes de totaux écrites
+     */
+    public int rebuildTotals(int fromUserId, int toUserIdExclusive) throws SQLException {
+        try (Connection c = MySQLConnection.getConnection()) {
+            // Même raison que rebuildRange
+            c.setNetworkTimeout(Runnable::run, 0);
+            c.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = c.prepareStatement(
+                        "DELETE FROM score_user_theme WHERE user_id >= ? AND user_id < ?")) {
+                    ps.setInt(1, fromUserId);
+                    ps.setInt(2, toUserIdExclusive);
+                    ps.executeUpdate();
+                }
+                int written;
+                try (PreparedStatement ps = c.prepareStatement(REBUILD_TOTALS_SQL)) {
+                    ps.setInt(1, fromUserId);
+                    ps.setInt(2, toUserIdExclusive);
+                    ps.setQueryTimeout(0);
+                    written = ps.executeUpdate();
+                }
+                c.commit();
+                return written;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // --- Maintenance dans les transactions des autres DAO ---
+
+    /**
+     * Ajoute des scores insérés aux agrégats ; les scores du lot sont d'abord regroupés par couple.
+     * Les couples sont écrits dans un ordre fixe pour éviter les interblocages entre transactions.
+     */
+    static void applyInserts(Connection c, List<Score> scores) throws SQLException {
+        Map<Key, long[]> byTheme = new TreeMap<>(Key.ORDER);
+        Map<Key, long[]> byUser = new TreeMap<>(Key.ORDER);
+        Map<TotalsKey, long[]> totals = new TreeMap<>(TotalsKey.ORDER);
+        for (Score s : scores) {
+            accumulate(byTheme, themeKey(s), s);
+            accumulate(byUser, userKey(s), s);
+            accumulate(totals, totalsKey(s), s);
+        }
+        upsert(c, UPSERT_THEME_SQL, byTheme, key -> Date.valueOf(key.day()), Key::id);
+        upsert(c, UPSERT_USER_SQL, byUser, key -> Date.valueOf(key.day()), Key::id);
+        upsert(c, UPSERT_TOTALS_SQL, totals, TotalsKey::userId, TotalsKey::themeId);
+    }
+
+    /**
+     * Recalcule exactement les couples donnés à partir de la table scores
+     */
+    static void recompute(Connection c, Collection<Key> themeDays, Collection<Key> userDays) throws SQLException {
+        recompute(c, DELETE_THEME_DAY_SQL, RECOMPUTE_THEME_DAY_SQL, themeDays, true);
+        recompute(c, DELETE_USER_DAY_SQL, RECOMPUTE_USER_DAY_SQL, userDays, false);
+    }
+
+    /**
+     * Recalcule exactement les totaux joueur/thème donnés à partir de la table scores
+     */
+    static void recomputeTotals(Connection c, Collection<TotalsKey> keys) throws SQLException {
+        if (keys.isEmpty()) return;
+        List<TotalsKey> sorted = new ArrayList<>(keys);
+        sorted.sort(TotalsKey.ORDER);
+        try (PreparedStatement delete = c.prepareStatement(DELETE_TOTALS_SQL);
+             PreparedStatement insert = c.prepareStatement(RECOMPUTE_TOTALS_SQL)) {
+            TotalsKey previous = null;
+            for (TotalsKey key : sorted) {
+                if (key.equals(previous)) continue;
+                previous = key;
+                delete.setInt(1, key.userId());
+                delete.setInt(2, key.themeId());
+                delete.executeUpdate();
+
+                insert.setInt(1, key.userId());
+                insert.setInt(2, key.themeId());
+                insert.setInt(3, key.userId());
+                if (key.themeId() == NO_THEME) {
+                    insert.setNull(4, Types.INTEGER);
+                } else {
+                    insert.setInt(4, key.themeId());
+                }
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Couples jour/thème des scores d'un joueur, à lire avant de supprimer le joueur
+     */
+    static List<Key> themeDaysOfUser(Connection c, int userId) throws SQLException {
+        List<Key> keys = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement("SELECT DISTINCT DATE(played_at), COALESCE(theme_id, 0) " +
+                "FROM scores WHERE user_id = ?")) {
+            ps.setInt(1, userId);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                keys.add(new Key(rs.getDate(1).toLocalDate(), rs.getInt(2)));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Après suppression d'un joueur (et de ses scores en cascade)
+     */
+    static void removeUser(Connection c, int userId, List<Key> themeDays) throws SQLException {
+        for (String table : new String[]{"score_daily_user", "score_user_theme"}) {
+            try (PreparedStatement ps = c.prepareStatement("DELETE FROM " + table + " WHERE user_id = ?")) {
+                ps.setInt(1, userId);
+                ps.executeUpdate();
+            }
+        }
+        recompute(c, themeDays, List.of());
+    }
+
+    /**
+     * Jours où un thème a des parties, à lire avant de supprimer le thème
+     */
+    static List<LocalDate> daysOfTheme(Connection c, int themeId) throws SQLException {
+        List<LocalDate> days = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement("SELECT day FROM score_daily_theme WHERE theme_id = ?")) {
+            ps.setInt(1, themeId);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                days.add(rs.getDate(1).toLocalDate());
+            }
+        }
+        return days;
+    }
+
+    /**
+     * Après suppression d'un thème : ses scores passent sans thème
+     */
+    static void removeTheme(Connection c, int themeId, List<LocalDate> days) throws SQLException {
+        // Joueurs du thème, dont les totaux sans thème changent
+        List<TotalsKey> noThemeTotals = new ArrayList<>();
+        try (PreparedStatement ps = c.prepareStatement("SELECT user_id FROM score_user_theme WHERE theme_id = ?")) {
+            ps.setInt(1, themeId);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                noThemeTotals.add(new TotalsKey(rs.getInt(1), NO_THEME));
+            }
+        }
+        for (String table : new String[]{"score_daily_theme", "score_user_theme"}) {
+            try (PreparedStatement ps = c.prepareStatement("DELETE FROM " + table + " WHERE theme_id = ?")) {
+                ps.setInt(1, themeId);
+                ps.executeUpdate();
+            }
+        }
+        recomputeTotals(c, noThemeTotals);
+        List<Key> noTheme = new ArrayList<>();
+        for (LocalDate day : days) {
+            noTheme.add(new Key(day, NO_THEME));
+        }
+        recompute(c, noTheme, List.of());
+    }
+
+    static Key themeKey(Score s) {
+        return new Key(s.getPlayedAt().toLocalDate(), s.getTheme() != null ? s.getTheme().getId() : NO_THEME);
+    }
+
+    static Key userKey(Score s) {
+        return new Key(s.getPlayedAt().toLocalDate(), s.getUser().getId());
+    }
+
+    static TotalsKey totalsKey(Score s) {
+        return new TotalsKey(s.getUser().getId(), s.getTheme() != null ? s.getTheme().getId() : NO_THEME);
+    }
+
+    private static <K> void accumulate(Map<K, long[]> aggregates, K key, Score s) {
+        long[] a = aggregates.get(key);
+        if (a == null) {
+            aggregates.put(key, new long[]{1, s.getAttempts(), s.getAttempts(), s.getTimeSeconds(), s.getTimeSeconds()});
+            return;
+        }
+        a[0]++;
+        a[1] += s.getAttempts();
+        a[2] = Math.min(a[2], s.getAttempts());
+        a[3] += s.getTimeSeconds();
+        a[4] = Math.min(a[4], s.getTimeSeconds());
+    }
+
+    /**
+     * @param first valeur de la première colonne de clé (jour ou joueur)
+     * @param second valeur de la seconde colonne de clé (thème ou joueur)
+     */
+    private static <K> void upsert(Connection c, String sql, Map<K, long[]> aggregates,
+                                   Function<K, Object> first, ToIntFunction<K> second) throws SQLException {
+        if (aggregates.isEmpty()) return;
+        try (PreparedStatement ps = c.prepareStatement(sql)) {
+            for (Map.Entry<K, long[]> e : aggregates.entrySet()) {
+                long[] a = e.getValue();
+                ps.setObject(1, first.apply(e.getKey()));
+                ps.setInt(2, second.applyAsInt(e.getKey()));
+                ps.setInt(3, (int) a[0]);
+                ps.setLong(4, a[1]);
+                ps.setInt(5, (int) a[2]);
+                ps.setLong(6, a[3]);
+                ps.setInt(7, (int) a[4]);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    private static void recompute(Connection c, String deleteSql, String insertSql,
+                                  Collection<Key> keys, boolean byTheme) throws SQLException {
+        if (keys.isEmpty()) return;
+        List<Key> sorted = new ArrayList<>(keys);
+        sorted.sort(Key.ORDER);
+        try (PreparedStatement delete = c.prepareStatement(deleteSql);
+             PreparedStatement insert = c.prepareStatement(insertSql)) {
+            Key previous = null;
+            for (Key key : sorted) {
+                if (key.equals(previous)) continue;
+                previous = key;
+                Date day = Date.valueOf(key.day());
+                delete.setDate(1, day);
+                delete.setInt(2, key.id());
+                delete.executeUpdate();
+
+                insert.setDate(1, day);
+                insert.setInt(2, key.id());
+                if (byTheme && key.id() == NO_THEME) {
+                    insert.setNull(3, Types.INTEGER);
+                } else {
+                    insert.setInt(3, key.id());
+                }
+                insert.setTimestamp(4, Timestamp.valueOf(key.day().atStartOfDay()));
+                insert.setTimestamp(5, Timestamp.valueOf(key.day().plusDays(1).atStartOfDay()));
+                insert.executeUpdate();
+            }
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.myapp.dao;
 
+import com.myapp.config.ExplainQuery;
 import com.myapp.config.MySQLConnection;
+import com.myapp.models.PlayerStats;
 import com.myapp.models.Score;
+import com.myapp.models.ScoreCursor;
+import com.myapp.models.ScorePage;
 import com.myapp.models.Theme;
+import com.myapp.models.UpdateResult;
 import com.myapp.models.User;
 
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,48 +22,183 @@ import java.util.List;
  */
 public class ScoreDAO {
 
-    public boolean insert(Score s) {
-        String sql = "INSERT INTO scores (user_id, theme_id, attempts, time_seconds, played_at) " +
-                "VALUES (?, ?, ?, ?, ?)";
-        try (Connection c = MySQLConnection.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setInt(1, s.getUser().getId());
-            if (s.getTheme() != null) {
-                ps.setInt(2, s.getTheme().getId());
-            } else {
-                ps.setNull(2, java.sql.Types.INTEGER);
-            }
-            ps.setInt(3, s.getAttempts());
-            ps.setInt(4, s.getTimeSeconds());
-            ps.setTimestamp(5, Timestamp.valueOf(s.getPlayedAt()));
+    // Jointure commune à toutes les lectures de scores
+    private static final String SELECT_COLUMNS = "SELECT s.id, s.attempts, s.time_seconds, s.played_at, s.version, " +
+            "u.id as user_id, u.first_name, u.last_name, " +
+            "t.id as theme_id, t.name as theme_name ";
+    private static final String JOINS = " INNER JOIN users u ON s.user_id = u.id " +
+            "INNER JOIN themes t ON s.theme_id = t.id";
+    private static final String SELECT_WITH_JOINS = SELECT_COLUMNS + "FROM scores s" + JOINS;
+
+    private static final String FIND_ALL_BY_DATE_SQL = SELECT_WITH_JOINS + " ORDER BY s.played_at DESC";
+    private static final String FIND_ALL_BY_SCORE_SQL = SELECT_WITH_JOINS + " ORDER BY s.attempts ASC, s.time_seconds ASC";
+    private static final String FIND_BY_ID_SQL = SELECT_WITH_JOINS + " WHERE s.id = ?";
+    private static final String FIND_BY_USER_SQL = SELECT_WITH_JOINS + " WHERE s.user_id = ? ORDER BY s.played_at DESC";
+    private static final String FIND_BY_THEME_SQL = SELECT_WITH_JOINS + " WHERE s.theme_id = ? ORDER BY s.played_at DESC";
+    private static final String BEST_FOR_USER_AND_THEME_SQL = SELECT_WITH_JOINS +
+            " WHERE s.user_id = ? AND s.theme_id = ? ORDER BY s.attempts, s.time_seconds, s.id LIMIT 1";
+
+    // Meilleur score de chaque couple joueur/thème, pour construire l'index du classement.
+    // Lecture seule : la version n'est pas lue, pour que les index couvrants suffisent
+    private static final String BEST_PER_USER_AND_THEME_SQL = SELECT_COLUMNS +
+            "FROM (SELECT sc.id, sc.user_id, sc.theme_id, sc.attempts, sc.time_seconds, sc.played_at, 0 AS version, " +
+            "ROW_NUMBER() OVER (PARTITION BY sc.user_id, sc.theme_id ORDER BY sc.attempts, sc.time_seconds, sc.id) AS rn " +
+            "FROM scores sc) s" + JOINS +
+            " WHERE s.rn = 1";
 
-            int affected = ps.executeUpdate();
-            if (affected == 1) {
+    // Statistiques d'un joueur en un aller-retour, depuis les agrégats (coût indépendant du nombre de parties) :
+    // totaux par thème et total général (WITH ROLLUP), puis essais des deux dernières périodes (tendance)
+    private static final String PLAYER_STATS_SQL =
+            "SELECT IF(GROUPING(t.theme_id) = 1, 'total', 'theme') AS kind, t.theme_id, MAX(th.name) AS theme_name, " +
+            "SUM(t.games) AS games, SUM(t.attempts_sum) AS attempts_sum, MIN(t.attempts_min) AS attempts_min, " +
+            "SUM(t.time_sum) AS time_sum, MIN(t.time_min) AS time_min " +
+            "FROM score_user_theme t LEFT JOIN themes th ON th.id = t.theme_id " +
+            "WHERE t.user_id = ? GROUP BY t.theme_id WITH ROLLUP " +
+            "UNION ALL " +
+            "SELECT IF(d.day >= ?, 'recent', 'previous'), NULL, NULL, " +
+            "SUM(d.games), SUM(d.attempts_sum), MIN(d.attempts_min), SUM(d.time_sum), MIN(d.time_min) " +
+            "FROM score_daily_user d WHERE d.user_id = ? AND d.day >= ? GROUP BY 1";
+
+    private static final String INSERT_SQL = "INSERT INTO scores (user_id, theme_id, attempts, time_seconds, played_at) " +
+            "VALUES (?, ?, ?, ?, ?)";
+
+    // Insertion idempotente : la clé naturelle (joueur, thème, essais, temps, date) évite les doublons au rejeu
+    private static final String INSERT_IF_ABSENT_SQL = "INSERT INTO scores (user_id, theme_id, attempts, time_seconds, played_at) " +
+            "SELECT ?, ?, ?, ?, ? FROM DUAL WHERE NOT EXISTS (" +
+            "SELECT 1 FROM scores WHERE user_id = ? AND theme_id <=> ? AND attempts = ? AND time_seconds = ? AND played_at = ?)";
+
+    /**
+     * Insère un score et met à jour les agrégats quotidiens dans la même transaction
+     */
+    public boolean insert(Score s) {
+        try (Connection c = MySQLConnection.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                bindInsert(ps, s);
+                if (ps.executeUpdate() != 1) {
+                    c.rollback();
+                    return false;
+                }
                 ResultSet keys = ps.getGeneratedKeys();
                 if (keys.next()) s.setId(keys.getInt(1));
+                RollupDAO.applyInserts(c, List.of(s));
+                c.commit();
                 return true;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Insère plusieurs scores en une seule transaction (group commit).
+     * Avec rewriteBatchedStatements, le lot part en un INSERT multi-lignes.
+     * @return true si tout le lot a été validé ; en cas d'échec, rien n'est inséré
+     */
+    public boolean insertBatch(List<Score> scores) {
+        try {
+            writeBatch(scores);
+            return true;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Comme insertBatch, mais remonte l'erreur pour que l'appelant distingue une panne passagère d'un lot invalide
+     */
+    public void writeBatch(List<Score> scores) throws SQLException {
+        if (scores.isEmpty()) return;
+        try (Connection c = MySQLConnection.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (Score s : scores) {
+                    bindInsert(ps, s);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+
+                ResultSet keys = ps.getGeneratedKeys();
+                int index = 0;
+                while (keys.next() && index < scores.size()) {
+                    scores.get(index++).setId(keys.getInt(1));
+                }
+                RollupDAO.applyInserts(c, scores);
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
             }
+        }
+    }
+
+    /**
+     * Insère un score sauf s'il existe déjà (rejeu du journal local après un arrêt)
+     * @return true si le score est en base après l'appel, qu'il ait été inséré ou non
+     */
+    public boolean insertIfAbsent(Score s) {
+        try {
+            writeIfAbsent(s);
+            return true;
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return false;
     }
 
+    /**
+     * Comme insertIfAbsent, mais remonte l'erreur (isolement d'un score refusé dans un lot, rejeu du journal)
+     */
+    public void writeIfAbsent(Score s) throws SQLException {
+        try (Connection c = MySQLConnection.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(INSERT_IF_ABSENT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                bindInsert(ps, s);
+                ps.setInt(6, s.getUser().getId());
+                if (s.getTheme() != null) {
+                    ps.setInt(7, s.getTheme().getId());
+                } else {
+                    ps.setNull(7, java.sql.Types.INTEGER);
+                }
+                ps.setInt(8, s.getAttempts());
+                ps.setInt(9, s.getTimeSeconds());
+                ps.setTimestamp(10, Timestamp.valueOf(s.getPlayedAt()));
+
+                if (ps.executeUpdate() == 1) {
+                    ResultSet keys = ps.getGeneratedKeys();
+                    if (keys.next()) s.setId(keys.getInt(1));
+                    RollupDAO.applyInserts(c, List.of(s));
+                }
+                c.commit();
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        }
+    }
+
+    private void bindInsert(PreparedStatement ps, Score s) throws SQLException {
+        ps.setInt(1, s.getUser().getId());
+        if (s.getTheme() != null) {
+            ps.setInt(2, s.getTheme().getId());
+        } else {
+            ps.setNull(2, java.sql.Types.INTEGER);
+        }
+        ps.setInt(3, s.getAttempts());
+        ps.setInt(4, s.getTimeSeconds());
+        ps.setTimestamp(5, Timestamp.valueOf(s.getPlayedAt()));
+    }
+
     public List<Score> findAll(String orderBy) {
         List<Score> list = new ArrayList<>();
-        String sql = "SELECT s.id, s.attempts, s.time_seconds, s.played_at, " +
-                "u.id as user_id, u.first_name, u.last_name, " +
-                "t.id as theme_id, t.name as theme_name " +
-                "FROM scores s " +
-                "INNER JOIN users u ON s.user_id = u.id " +
-                "INNER JOIN themes t ON s.theme_id = t.id";
-
-        if ("score".equalsIgnoreCase(orderBy))
-            sql += " ORDER BY s.attempts ASC, s.time_seconds ASC";
-        else
-            sql += " ORDER BY s.played_at DESC";
+        String sql = "score".equalsIgnoreCase(orderBy) ? FIND_ALL_BY_SCORE_SQL : FIND_ALL_BY_DATE_SQL;
 
-        try (Connection c = MySQLConnection.getConnection();
+        try (Connection c = MySQLConnection.getReadConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
@@ -69,13 +211,7 @@ public class ScoreDAO {
     }
 
     public Score findById(int id) {
-        String sql = "SELECT s.id, s.attempts, s.time_seconds, s.played_at, " +
-                "u.id as user_id, u.first_name, u.last_name, " +
-                "t.id as theme_id, t.name as theme_name " +
-                "FROM scores s " +
-                "INNER JOIN users u ON s.user_id = u.id " +
-                "INNER JOIN themes t ON s.theme_id = t.id " +
-                "WHERE s.id = ?";
+        String sql = FIND_BY_ID_SQL;
 
         try (Connection c = MySQLConnection.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
@@ -92,16 +228,9 @@ public class ScoreDAO {
 
     public List<Score> findByUserId(int userId) {
         List<Score> list = new ArrayList<>();
-        String sql = "SELECT s.id, s.attempts, s.time_seconds, s.played_at, " +
-                "u.id as user_id, u.first_name, u.last_name, " +
-                "t.id as theme_id, t.name as theme_name " +
-                "FROM scores s " +
-                "INNER JOIN users u ON s.user_id = u.id " +
-                "INNER JOIN themes t ON s.theme_id = t.id " +
-                "WHERE s.user_id = ? " +
-                "ORDER BY s.played_at DESC";
+        String sql = FIND_BY_USER_SQL;
 
-        try (Connection c = MySQLConnection.getConnection();
+        try (Connection c = MySQLConnection.getReadConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, userId);
             ResultSet rs = ps.executeQuery();
@@ -116,16 +245,9 @@ public class ScoreDAO {
 
     public List<Score> findByThemeId(int themeId) {
         List<Score> list = new ArrayList<>();
-        String sql = "SELECT s.id, s.attempts, s.time_seconds, s.played_at, " +
-                "u.id as user_id, u.first_name, u.last_name, " +
-                "t.id as theme_id, t.name as theme_name " +
-                "FROM scores s " +
-                "INNER JOIN users u ON s.user_id = u.id " +
-                "INNER JOIN themes t ON s.theme_id = t.id " +
-                "WHERE s.theme_id = ? " +
-                "ORDER BY s.played_at DESC";
+        String sql = FIND_BY_THEME_SQL;
 
-        try (Connection c = MySQLConnection.getConnection();
+        try (Connection c = MySQLConnection.getReadConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, themeId);
             ResultSet rs = ps.executeQuery();
@@ -138,35 +260,329 @@ public class ScoreDAO {
         return list;
     }
 
-    public boolean delete(int id) {
-        String sql = "DELETE FROM scores WHERE id = ?";
-        try (Connection c = MySQLConnection.getConnection();
+    /**
+     * Pagination par clé (seek) : renvoie au plus limit scores situés après le curseur dans l'ordre demandé.
+     * Contrairement à OFFSET, le coût d'une page ne dépend pas de sa position.
+     * @param orderBy "date" (récent d'abord), "date_asc", "score" (moins d'essais puis moins de temps) ou "time"
+     * @param userId filtre optionnel sur le joueur (null = tous)
+     * @param themeId filtre optionnel sur le thème (null = tous)
+     * @param after dernier élément de la page précédente, null pour la première page
+     */
+    public ScorePage findPage(String orderBy, Integer userId, Integer themeId, ScoreCursor after, int limit) {
+        ScoreOrder order = ScoreOrder.from(orderBy);
+        String sql = pageSql(order, userId != null, themeId != null, after != null);
+        List<Object> params = new ArrayList<>();
+        if (userId != null) {
+            params.add(userId);
+        }
+        if (themeId != null) {
+            params.add(themeId);
+        }
+        if (after != null) {
+            order.addSeekParams(after, params);
+        }
+        params.add(limit + 1);
+
+        List<Score> list = new ArrayList<>(limit + 1);
+        try (Connection c = MySQLConnection.getReadConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            return ps.executeUpdate() == 1;
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                list.add(createScoreFromResultSet(rs));
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return false;
+
+        // Une ligne de plus que demandé indique qu'une page suivante existe
+        boolean hasMore = list.size() > limit;
+        if (hasMore) {
+            list.remove(list.size() - 1);
+        }
+        ScoreCursor next = list.isEmpty() ? after : ScoreCursor.of(list.get(list.size() - 1));
+        return new ScorePage(list, next, hasMore);
+    }
+
+    private static String pageSql(ScoreOrder order, boolean byUser, boolean byTheme, boolean seek) {
+        StringBuilder sql = new StringBuilder(SELECT_WITH_JOINS).append(" WHERE 1 = 1");
+        if (byUser) {
+            sql.append(" AND s.user_id = ?");
+        }
+        if (byTheme) {
+            sql.append(" AND s.theme_id = ?");
+        }
+        if (seek) {
+            sql.append(" AND ").append(order.seekPredicate);
+        }
+        return sql.append(" ORDER BY ").append(order.orderClause).append(" LIMIT ?").toString();
+    }
+
+    /**
+     * Requêtes de lecture de ce DAO avec des paramètres d'exemple, pour le contrôle des plans d'exécution.
+     * La liste complète des scores est la seule à parcourir toute la table.
+     */
+    public static List<ExplainQuery> explainQueries() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return List.of(
+                ExplainQuery.fullScan("ScoreDAO.findAll(date)", FIND_ALL_BY_DATE_SQL),
+                ExplainQuery.fullScan("ScoreDAO.findAll(score)", FIND_ALL_BY_SCORE_SQL),
+                ExplainQuery.of("ScoreDAO.findById", FIND_BY_ID_SQL, 1),
+                ExplainQuery.of("ScoreDAO.findByUserId", FIND_BY_USER_SQL, 1),
+                ExplainQuery.of("ScoreDAO.findByThemeId", FIND_BY_THEME_SQL, 1),
+                ExplainQuery.of("ScoreDAO.findPage(joueur, date)",
+                        pageSql(ScoreOrder.DATE_DESC, true, false, true), 1, now, now, 1, 51),
+                ExplainQuery.of("ScoreDAO.findPage(joueur+thème, score)",
+                        pageSql(ScoreOrder.SCORE, true, true, true), 1, 1, 5, 5, 30, 30, 1, 51),
+                ExplainQuery.of("ScoreDAO.findPage(thème, temps)",
+                        pageSql(ScoreOrder.TIME, false, true, false), 1, 51),
+                ExplainQuery.of("ScoreDAO.findPage(temps)",
+                        pageSql(ScoreOrder.TIME, false, false, true), 30, 30, 1, 51),
+                ExplainQuery.of("ScoreDAO.findPage(date)",
+                        pageSql(ScoreOrder.DATE_DESC, false, false, true), now, now, 1, 51),
+                ExplainQuery.of("ScoreDAO.findBestPerUserAndTheme", BEST_PER_USER_AND_THEME_SQL),
+                ExplainQuery.of("ScoreDAO.findBestForUserAndTheme", BEST_FOR_USER_AND_THEME_SQL, 1, 1),
+                ExplainQuery.of("ScoreDAO.insertIfAbsent", INSERT_IF_ABSENT_SQL, 1, 1, 5, 30, now, 1, 1, 5, 30, now),
+                ExplainQuery.of("ScoreDAO.findPlayerStats", PLAYER_STATS_SQL, 1,
+                        Date.valueOf(LocalDate.now().minusDays(29)), 1, Date.valueOf(LocalDate.now().minusDays(59)))
+        );
     }
 
-    public boolean update(Score score) {
-        String sql = "UPDATE scores SET user_id = ?, theme_id = ?, attempts = ?, time_seconds = ?, played_at = ? WHERE id = ?";
+    /**
+     * Ordres de tri paginables ; chaque ordre se termine par s.id pour rester total
+     */
+    private enum ScoreOrder {
+        DATE_DESC("s.played_at DESC, s.id DESC",
+                "(s.played_at < ? OR (s.played_at = ? AND s.id < ?))"),
+        DATE_ASC("s.played_at ASC, s.id ASC",
+                "(s.played_at > ? OR (s.played_at = ? AND s.id > ?))"),
+        SCORE("s.attempts ASC, s.time_seconds ASC, s.id ASC",
+                "(s.attempts > ? OR (s.attempts = ? AND (s.time_seconds > ? OR (s.time_seconds = ? AND s.id > ?))))"),
+        TIME("s.time_seconds ASC, s.id ASC",
+                "(s.time_seconds > ? OR (s.time_seconds = ? AND s.id > ?))");
+
+        private final String orderClause;
+        private final String seekPredicate;
+
+        ScoreOrder(String orderClause, String seekPredicate) {
+            this.orderClause = orderClause;
+            this.seekPredicate = seekPredicate;
+        }
+
+        static ScoreOrder from(String orderBy) {
+            if ("score".equalsIgnoreCase(orderBy)) return SCORE;
+            if ("time".equalsIgnoreCase(orderBy)) return TIME;
+            if ("date_asc".equalsIgnoreCase(orderBy)) return DATE_ASC;
+            return DATE_DESC;
+        }
+
+        void addSeekParams(ScoreCursor after, List<Object> params) {
+            Timestamp playedAt = Timestamp.valueOf(after.playedAt());
+            switch (this) {
+                case DATE_DESC, DATE_ASC -> {
+                    params.add(playedAt);
+                    params.add(playedAt);
+                    params.add(after.id());
+                }
+                case SCORE -> {
+                    params.add(after.attempts());
+                    params.add(after.attempts());
+                    params.add(after.timeSeconds());
+                    params.add(after.timeSeconds());
+                    params.add(after.id());
+                }
+                case TIME -> {
+                    params.add(after.timeSeconds());
+                    params.add(after.timeSeconds());
+                    params.add(after.id());
+                }
+            }
+        }
+    }
+
+    /**
+     * Meilleur score de chaque joueur pour chaque thème
+     */
+    public List<Score> findBestPerUserAndTheme() {
+        List<Score> list = new ArrayList<>();
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(BEST_PER_USER_AND_THEME_SQL)) {
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                list.add(createScoreFromResultSet(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
+    /**
+     * Statistiques d'un joueur : parties, meilleurs et moyens essais et temps par thème et au total,
+     * et essais moyens des trendDays derniers jours comparés aux trendDays précédents.
+     * Une seule requête sur les agrégats : quelques lignes par thème et par jour, quel que soit l'historique.
+     * @return null en cas d'erreur
+     */
+    public PlayerStats findPlayerStats(int userId, int trendDays) {
+        LocalDate recentStart = LocalDate.now().minusDays(trendDays - 1L);
+        LocalDate previousStart = recentStart.minusDays(trendDays);
+
+        PlayerStats.ThemeStats overall = null;
+        List<PlayerStats.ThemeStats> themes = new ArrayList<>();
+        long recentGames = 0, recentAttempts = 0, previousGames = 0, previousAttempts = 0;
+        try (Connection c = MySQLConnection.getReadConnection();
+             PreparedStatement ps = c.prepareStatement(PLAYER_STATS_SQL)) {
+            ps.setInt(1, userId);
+            ps.setDate(2, Date.valueOf(recentStart));
+            ps.setInt(3, userId);
+            ps.setDate(4, Date.valueOf(previousStart));
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                switch (rs.getString("kind")) {
+                    case "total" -> overall = createThemeStats(rs);
+                    case "theme" -> themes.add(createThemeStats(rs));
+                    case "recent" -> {
+                        recentGames = rs.getLong("games");
+                        recentAttempts = rs.getLong("attempts_sum");
+                    }
+                    case "previous" -> {
+                        previousGames = rs.getLong("games");
+                        previousAttempts = rs.getLong("attempts_sum");
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
+        themes.sort((a, b) -> Long.compare(b.games(), a.games()));
+        return new PlayerStats(overall, themes, trendDays,
+                recentGames, recentGames > 0 ? (double) recentAttempts / recentGames : 0.0,
+                previousGames, previousGames > 0 ? (double) previousAttempts / previousGames : 0.0);
+    }
+
+    private static PlayerStats.ThemeStats createThemeStats(ResultSet rs) throws SQLException {
+        long games = rs.getLong("games");
+        int themeId = rs.getInt("theme_id");
+        String name = rs.getString("theme_name");
+        return new PlayerStats.ThemeStats(
+                themeId,
+                name != null ? name : "Sans thème",
+                games,
+                rs.getInt("attempts_min"),
+                games > 0 ? (double) rs.getLong("attempts_sum") / games : 0.0,
+                rs.getInt("time_min"),
+                games > 0 ? (double) rs.getLong("time_sum") / games : 0.0);
+    }
+
+    /**
+     * Meilleur score d'un joueur pour un thème, null s'il n'en a aucun
+     */
+    public Score findBestForUserAndTheme(int userId, int themeId) {
+        String sql = BEST_FOR_USER_AND_THEME_SQL;
+
         try (Connection c = MySQLConnection.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, score.getUser().getId());
-            ps.setInt(2, score.getTheme().getId());
-            ps.setInt(3, score.getAttempts());
-            ps.setInt(4, score.getTimeSeconds());
-            ps.setTimestamp(5, Timestamp.valueOf(score.getPlayedAt()));
-            ps.setInt(6, score.getId());
-            return ps.executeUpdate() == 1;
+            ps.setInt(1, userId);
+            ps.setInt(2, themeId);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                return createScoreFromResultSet(rs);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * Supprime un score et recalcule les agrégats de son jour
+     */
+    public boolean delete(int id) {
+        String sql = "DELETE FROM scores WHERE id = ?";
+        try (Connection c = MySQLConnection.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                RollupKeys old = lockRollupKeys(c, id);
+                ps.setInt(1, id);
+                boolean deleted = ps.executeUpdate() == 1;
+                if (deleted && old != null) {
+                    RollupDAO.recompute(c, List.of(old.theme()), List.of(old.user()));
+                    RollupDAO.recomputeTotals(c, List.of(old.totals()));
+                }
+                c.commit();
+                return deleted;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return false;
     }
 
+    /**
+     * Modifie un score s'il est toujours à la version lue (score.getVersion()) ;
+     * les agrégats de l'ancien et du nouveau jour/thème/joueur sont recalculés
+     */
+    public UpdateResult update(Score score) {
+        String sql = "UPDATE scores SET user_id = ?, theme_id = ?, attempts = ?, time_seconds = ?, played_at = ?, " +
+                "version = version + 1 WHERE id = ? AND version = ?";
+        try (Connection c = MySQLConnection.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                RollupKeys old = lockRollupKeys(c, score.getId());
+                // Mêmes cinq premières colonnes que l'insertion ; un score sans thème garde theme_id NULL
+                bindInsert(ps, score);
+                ps.setInt(6, score.getId());
+                ps.setInt(7, score.getVersion());
+                if (ps.executeUpdate() != 1) {
+                    c.rollback();
+                    return old == null ? UpdateResult.NOT_FOUND : UpdateResult.CONFLICT;
+                }
+                RollupDAO.recompute(c,
+                        List.of(old.theme(), RollupDAO.themeKey(score)),
+                        List.of(old.user(), RollupDAO.userKey(score)));
+                RollupDAO.recomputeTotals(c, List.of(old.totals(), RollupDAO.totalsKey(score)));
+                c.commit();
+                score.setVersion(score.getVersion() + 1);
+                return UpdateResult.SUCCESS;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return UpdateResult.ERROR;
+    }
+
+    /**
+     * Verrouille un score et retourne ses couples d'agrégats, null s'il n'existe pas
+     */
+    private RollupKeys lockRollupKeys(Connection c, int id) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement(
+                "SELECT user_id, theme_id, played_at FROM scores WHERE id = ? FOR UPDATE")) {
+            ps.setInt(1, id);
+            ResultSet rs = ps.executeQuery();
+            if (!rs.next()) return null;
+            LocalDate day = rs.getTimestamp("played_at").toLocalDateTime().toLocalDate();
+            int themeId = rs.getInt("theme_id");
+            if (rs.wasNull()) themeId = RollupDAO.NO_THEME;
+            int userId = rs.getInt("user_id");
+            return new RollupKeys(new RollupDAO.Key(day, themeId), new RollupDAO.Key(day, userId),
+                    new RollupDAO.TotalsKey(userId, themeId));
+        }
+    }
+
+    private record RollupKeys(RollupDAO.Key theme, RollupDAO.Key user, RollupDAO.TotalsKey totals) {
+    }
+
     /**
      * Méthode utilitaire pour créer un objet Score à partir d'un ResultSet
      * Maintient les relations bidirectionnelles selon le diagramme UML
@@ -193,6 +609,7 @@ public class ScoreDAO {
                 rs.getInt("time_seconds"),
                 rs.getTimestamp("played_at").toLocalDateTime()
         );
+        score.setVersion(rs.getInt("version"));
 
         return score;
     }
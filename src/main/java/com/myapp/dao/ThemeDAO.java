@@ -4,12 +4,33 @@ import com.myapp.config.MySQLConnection;
 import com.myapp.models.Theme;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 public class ThemeDAO {
 
     public List<Theme> findAll() {
+        List<Theme> cached = EntityCache.THEME_LISTS.getOrLoad(EntityCache.ALL, key -> loadAll());
+        List<Theme> list = new ArrayList<>();
+        if (cached != null) {
+            for (Theme t : cached) {
+                list.add(EntityCache.copy(t));
+            }
+        }
+        return list;
+    }
+
+    public Theme findById(int id) {
+        return EntityCache.copy(EntityCache.THEMES.getOrLoad(id, this::loadById));
+    }
+
+    /**
+     * Lu sur le primaire, comme loadById : la liste reste en cache pendant tout le TTL, une copie en retard
+     * du réplica (thème ajouté depuis un autre poste) y resterait aussi longtemps
+     * @return null en cas d'erreur, pour ne pas mettre en cache une liste vide
+     */
+    private List<Theme> loadAll() {
         List<Theme> list = new ArrayList<>();
         String sql = "SELECT id, name FROM themes";
         try (Connection c = MySQLConnection.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
@@ -19,11 +40,12 @@ public class ThemeDAO {
             }
         } catch (SQLException e) {
             e.printStackTrace();
+            return null;
         }
         return list;
     }
 
-    public Theme findById(int id) {
+    private Theme loadById(int id) {
         String sql = "SELECT id, name FROM themes WHERE id = ?";
         try (Connection c = MySQLConnection.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, id);
@@ -45,6 +67,7 @@ public class ThemeDAO {
             if (affected == 1) {
                 ResultSet keys = ps.getGeneratedKeys();
                 if (keys.next()) t.setId(keys.getInt(1));
+                EntityCache.THEME_LISTS.invalidateAll();
                 return true;
             }
         } catch (SQLException e) {
@@ -58,21 +81,45 @@ public class ThemeDAO {
         try (Connection c = MySQLConnection.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, t.getName());
             ps.setInt(2, t.getId());
-            return ps.executeUpdate() == 1;
+            boolean updated = ps.executeUpdate() == 1;
+            invalidate(t.getId());
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return false;
     }
 
+    /**
+     * Supprime un thème ; ses scores passent sans thème, leurs agrégats quotidiens sont déplacés
+     */
     public boolean delete(int id) {
         String sql = "DELETE FROM themes WHERE id = ?";
-        try (Connection c = MySQLConnection.getConnection(); PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            return ps.executeUpdate() == 1;
+        try (Connection c = MySQLConnection.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                List<LocalDate> days = RollupDAO.daysOfTheme(c, id);
+                ps.setInt(1, id);
+                boolean deleted = ps.executeUpdate() == 1;
+                if (deleted) {
+                    RollupDAO.removeTheme(c, id, days);
+                }
+                c.commit();
+                return deleted;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                invalidate(id);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return false;
     }
+
+    private void invalidate(int id) {
+        EntityCache.THEMES.invalidate(id);
+        EntityCache.THEME_LISTS.invalidateAll();
+    }
 }
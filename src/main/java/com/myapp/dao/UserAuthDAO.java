@@ -1,23 +1,55 @@
 package com.myapp.dao;
 
+import com.myapp.config.ExplainQuery;
 import com.myapp.config.MySQLConnection;
+import com.myapp.models.UpdateResult;
 import com.myapp.models.User;
+import com.myapp.models.UserAdminRow;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 /**
  * DAO pour l'authentification et la gestion des utilisateurs
  */
 public class UserAuthDAO {
+    private static final String SELECT_USER = "SELECT id, first_name, last_name, username, password_hash, email, " +
+            "role, is_active, last_login, created_at, updated_at, version FROM users";
+    private static final String FIND_ALL_SQL = SELECT_USER + " ORDER BY id";
+    private static final String FIND_BY_ID_SQL = SELECT_USER + " WHERE id = ?";
+    private static final String FIND_BY_USERNAME_SQL = SELECT_USER + " WHERE username = ?";
+    private static final String FIND_BY_EMAIL_SQL = SELECT_USER + " WHERE email = ?";
+    private static final String USERNAME_TAKEN_SQL = "SELECT 1 FROM users WHERE username = ? LIMIT 1";
+    private static final String EMAIL_TAKEN_SQL = "SELECT 1 FROM users WHERE email = ? LIMIT 1";
+    private static final String FIND_IDENTITIES_SQL = "SELECT username, email FROM users";
+    private static final String SELECT_ADMIN_ROW = "SELECT id, first_name, last_name, username, email, " +
+            "role, is_active, last_login, version FROM users";
+    private static final String FIND_ADMIN_ROWS_SQL = SELECT_ADMIN_ROW + " ORDER BY id";
+    private static final String FIND_ADMIN_ROW_SQL = SELECT_ADMIN_ROW + " WHERE id = ?";
+
+    /**
+     * Requêtes de lecture de ce DAO avec des paramètres d'exemple, pour le contrôle des plans d'exécution
+     */
+    public static List<ExplainQuery> explainQueries() {
+        return List.of(
+                ExplainQuery.fullScan("UserAuthDAO.findAll", FIND_ALL_SQL),
+                ExplainQuery.fullScan("UserAuthDAO.findAdminRows", FIND_ADMIN_ROWS_SQL),
+                ExplainQuery.of("UserAuthDAO.findById", FIND_BY_ID_SQL, 1),
+                ExplainQuery.of("UserAuthDAO.findByUsername", FIND_BY_USERNAME_SQL, "admin"),
+                ExplainQuery.of("UserAuthDAO.findByEmail", FIND_BY_EMAIL_SQL, "admin@memorygame.com"),
+                ExplainQuery.of("UserAuthDAO.isUsernameTaken", USERNAME_TAKEN_SQL, "admin"),
+                ExplainQuery.of("UserAuthDAO.isEmailTaken", EMAIL_TAKEN_SQL, "admin@memorygame.com"),
+                ExplainQuery.fullScan("UserAuthDAO.forEachIdentity", FIND_IDENTITIES_SQL)
+        );
+    }
 
     public List<User> findAll() {
         List<User> list = new ArrayList<>();
-        String sql = "SELECT id, first_name, last_name, username, password_hash, email, " +
-                    "role, is_active, last_login, created_at, updated_at FROM users ORDER BY id";
-        try (Connection c = MySQLConnection.getConnection();
+        String sql = FIND_ALL_SQL;
+        try (Connection c = MySQLConnection.getReadConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ResultSet rs = ps.executeQuery();
             while (rs.next()) {
@@ -29,9 +61,62 @@ public class UserAuthDAO {
         return list;
     }
 
+    /**
+     * Projection pour le tableau de gestion : colonnes affichées uniquement
+     */
+    public List<UserAdminRow> findAdminRows() {
+        List<UserAdminRow> list = new ArrayList<>();
+        try (Connection c = MySQLConnection.getReadConnection();
+             PreparedStatement ps = c.prepareStatement(FIND_ADMIN_ROWS_SQL)) {
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                list.add(createAdminRow(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
+    /**
+     * Relit une ligne du tableau de gestion sur le primaire (après un conflit de version)
+     * @return null si l'utilisateur n'existe plus ou en cas d'erreur
+     */
+    public UserAdminRow findAdminRow(int id) {
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(FIND_ADMIN_ROW_SQL)) {
+            ps.setInt(1, id);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                return createAdminRow(rs);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private static UserAdminRow createAdminRow(ResultSet rs) throws SQLException {
+        Timestamp lastLogin = rs.getTimestamp("last_login");
+        return new UserAdminRow(
+                rs.getInt("id"),
+                rs.getString("first_name"),
+                rs.getString("last_name"),
+                rs.getString("username"),
+                rs.getString("email"),
+                rs.getString("role"),
+                rs.getBoolean("is_active"),
+                lastLogin != null ? lastLogin.toLocalDateTime() : null,
+                rs.getInt("version")
+        );
+    }
+
     public User findById(int id) {
-        String sql = "SELECT id, first_name, last_name, username, password_hash, email, " +
-                    "role, is_active, last_login, created_at, updated_at FROM users WHERE id = ?";
+        return EntityCache.copy(EntityCache.USERS.getOrLoad(id, this::loadById));
+    }
+
+    private User loadById(int id) {
+        String sql = FIND_BY_ID_SQL;
         try (Connection c = MySQLConnection.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, id);
@@ -46,8 +131,7 @@ public class UserAuthDAO {
     }
 
     public User findByUsername(String username) {
-        String sql = "SELECT id, first_name, last_name, username, password_hash, email, " +
-                    "role, is_active, last_login, created_at, updated_at FROM users WHERE username = ?";
+        String sql = FIND_BY_USERNAME_SQL;
         try (Connection c = MySQLConnection.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, username);
@@ -62,8 +146,7 @@ public class UserAuthDAO {
     }
 
     public User findByEmail(String email) {
-        String sql = "SELECT id, first_name, last_name, username, password_hash, email, " +
-                    "role, is_active, last_login, created_at, updated_at FROM users WHERE email = ?";
+        String sql = FIND_BY_EMAIL_SQL;
         try (Connection c = MySQLConnection.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, email);
@@ -77,6 +160,48 @@ public class UserAuthDAO {
         return null;
     }
 
+    /**
+     * Indique si le nom d'utilisateur est pris (lecture d'index seule, sans charger la ligne)
+     */
+    public boolean isUsernameTaken(String username) throws SQLException {
+        return exists(USERNAME_TAKEN_SQL, username);
+    }
+
+    public boolean isEmailTaken(String email) throws SQLException {
+        return exists(EMAIL_TAKEN_SQL, email);
+    }
+
+    private boolean exists(String sql, String value) throws SQLException {
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, value);
+            return ps.executeQuery().next();
+        }
+    }
+
+    public int countUsers() throws SQLException {
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement("SELECT COUNT(*) FROM users")) {
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Parcourt en flux le nom d'utilisateur et l'email (éventuellement null) de tous les comptes
+     */
+    public void forEachIdentity(BiConsumer<String, String> consumer) throws SQLException {
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(FIND_IDENTITIES_SQL,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                consumer.accept(rs.getString(1), rs.getString(2));
+            }
+        }
+    }
+
     public boolean insert(User user) {
         String sql = "INSERT INTO users (first_name, last_name, username, password_hash, email, role, is_active, created_at) " +
                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
@@ -105,9 +230,15 @@ public class UserAuthDAO {
         return false;
     }
 
-    public boolean update(User user) {
+    // Les mises à jour du compte incrémentent version ; le mot de passe et la dernière connexion ne la changent pas,
+    // pour ne pas mettre en conflit un administrateur avec la connexion de l'utilisateur
+
+    /**
+     * Modifie le compte si la ligne est toujours à la version lue (user.getVersion())
+     */
+    public UpdateResult update(User user) {
         String sql = "UPDATE users SET first_name = ?, last_name = ?, username = ?, " +
-                    "email = ?, role = ?, is_active = ? WHERE id = ?";
+                    "email = ?, role = ?, is_active = ?, version = version + 1 WHERE id = ? AND version = ?";
         try (Connection c = MySQLConnection.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, user.getFirstName());
@@ -117,11 +248,56 @@ public class UserAuthDAO {
             ps.setString(5, user.getRole());
             ps.setBoolean(6, user.isActive());
             ps.setInt(7, user.getId());
-            return ps.executeUpdate() == 1;
+            ps.setInt(8, user.getVersion());
+            int affected = ps.executeUpdate();
+            EntityCache.USERS.invalidate(user.getId());
+            if (affected == 1) {
+                user.setVersion(user.getVersion() + 1);
+                return UpdateResult.SUCCESS;
+            }
+            return VersionCheck.explain(c, "users", user.getId());
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return false;
+        return UpdateResult.ERROR;
+    }
+
+    /**
+     * Change le rôle si la ligne est toujours à la version attendue
+     */
+    public UpdateResult updateRole(int userId, String role, int expectedVersion) {
+        String sql = "UPDATE users SET role = ?, version = version + 1 WHERE id = ? AND version = ?";
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, role);
+            ps.setInt(2, userId);
+            ps.setInt(3, expectedVersion);
+            int affected = ps.executeUpdate();
+            EntityCache.USERS.invalidate(userId);
+            return affected == 1 ? UpdateResult.SUCCESS : VersionCheck.explain(c, "users", userId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return UpdateResult.ERROR;
+    }
+
+    /**
+     * Active ou désactive le compte si la ligne est toujours à la version attendue
+     */
+    public UpdateResult setActive(int userId, boolean active, int expectedVersion) {
+        String sql = "UPDATE users SET is_active = ?, version = version + 1 WHERE id = ? AND version = ?";
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setBoolean(1, active);
+            ps.setInt(2, userId);
+            ps.setInt(3, expectedVersion);
+            int affected = ps.executeUpdate();
+            EntityCache.USERS.invalidate(userId);
+            return affected == 1 ? UpdateResult.SUCCESS : VersionCheck.explain(c, "users", userId);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return UpdateResult.ERROR;
     }
 
     public boolean updatePassword(int userId, String newPasswordHash) {
@@ -130,7 +306,29 @@ public class UserAuthDAO {
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, newPasswordHash);
             ps.setInt(2, userId);
-            return ps.executeUpdate() == 1;
+            boolean updated = ps.executeUpdate() == 1;
+            EntityCache.USERS.invalidate(userId);
+            return updated;
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /**
+     * Remplace le hash seulement s'il n'a pas changé depuis sa lecture
+     * (un changement de mot de passe concurrent n'est pas écrasé par une mise à niveau)
+     */
+    public boolean upgradePasswordHash(int userId, String oldHash, String newHash) {
+        String sql = "UPDATE users SET password_hash = ? WHERE id = ? AND password_hash = ?";
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(sql)) {
+            ps.setString(1, newHash);
+            ps.setInt(2, userId);
+            ps.setString(3, oldHash);
+            boolean updated = ps.executeUpdate() == 1;
+            EntityCache.USERS.invalidate(userId);
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -143,7 +341,9 @@ public class UserAuthDAO {
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now()));
             ps.setInt(2, userId);
-            return ps.executeUpdate() == 1;
+            boolean updated = ps.executeUpdate() == 1;
+            EntityCache.USERS.invalidate(userId);
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -151,11 +351,13 @@ public class UserAuthDAO {
     }
 
     public boolean deactivate(int userId) {
-        String sql = "UPDATE users SET is_active = false WHERE id = ?";
+        String sql = "UPDATE users SET is_active = false, version = version + 1 WHERE id = ?";
         try (Connection c = MySQLConnection.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, userId);
-            return ps.executeUpdate() == 1;
+            boolean updated = ps.executeUpdate() == 1;
+            EntityCache.USERS.invalidate(userId);
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -163,11 +365,13 @@ public class UserAuthDAO {
     }
 
     public boolean activate(int userId) {
-        String sql = "UPDATE users SET is_active = true WHERE id = ?";
+        String sql = "UPDATE users SET is_active = true, version = version + 1 WHERE id = ?";
         try (Connection c = MySQLConnection.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, userId);
-            return ps.executeUpdate() == 1;
+            boolean updated = ps.executeUpdate() == 1;
+            EntityCache.USERS.invalidate(userId);
+            return updated;
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -180,11 +384,23 @@ public class UserAuthDAO {
      */
     public boolean deleteUser(int userId) {
         String sql = "DELETE FROM users WHERE id = ?";
-        try (Connection c = MySQLConnection.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, userId);
-            int affected = ps.executeUpdate();
-            return affected == 1;
+        try (Connection c = MySQLConnection.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                List<RollupDAO.Key> themeDays = RollupDAO.themeDaysOfUser(c, userId);
+                ps.setInt(1, userId);
+                int affected = ps.executeUpdate();
+                if (affected == 1) {
+                    RollupDAO.removeUser(c, userId, themeDays);
+                }
+                c.commit();
+                return affected == 1;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                EntityCache.USERS.invalidate(userId);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
             return false;
@@ -219,6 +435,7 @@ public class UserAuthDAO {
         if (updatedAt != null) {
             user.setUpdatedAt(updatedAt.toLocalDateTime());
         }
+        user.setVersion(rs.getInt("version"));
         
         return user;
     }
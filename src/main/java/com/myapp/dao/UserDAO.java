@@ -1,16 +1,50 @@
 package com.myapp.dao;
 
+import com.myapp.config.ExplainQuery;
 import com.myapp.config.MySQLConnection;
+import com.myapp.models.UpdateResult;
 import com.myapp.models.User;
+import com.myapp.models.UserOption;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 
 public class UserDAO {
+    private static final String FIND_OPTIONS_SQL = "SELECT id, first_name, last_name, username FROM users " +
+            "ORDER BY first_name, last_name, id";
+
+    /**
+     * Requêtes de lecture de ce DAO avec des paramètres d'exemple, pour le contrôle des plans d'exécution
+     */
+    public static List<ExplainQuery> explainQueries() {
+        return List.of(ExplainQuery.fullScan("UserDAO.findOptions", FIND_OPTIONS_SQL));
+    }
+
+    /**
+     * Projection pour les listes de choix : identifiant et nom affiché seulement
+     */
+    public List<UserOption> findOptions() {
+        List<UserOption> list = new ArrayList<>();
+        try (Connection c = MySQLConnection.getConnection();
+             PreparedStatement ps = c.prepareStatement(FIND_OPTIONS_SQL)) {
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                list.add(UserOption.of(
+                        rs.getInt("id"),
+                        rs.getString("first_name"),
+                        rs.getString("last_name"),
+                        rs.getString("username")
+                ));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
 
     public List<User> findAll() {
         List<User> list = new ArrayList<>();
-        String sql = "SELECT id, first_name, last_name, username, password_hash, email, role, is_active, last_login, created_at, updated_at FROM users";
+        String sql = "SELECT id, first_name, last_name, username, password_hash, email, role, is_active, last_login, created_at, updated_at, version FROM users";
         try (Connection c = MySQLConnection.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ResultSet rs = ps.executeQuery();
@@ -41,6 +75,7 @@ public class UserDAO {
                 if (updatedAt != null) {
                     user.setUpdatedAt(updatedAt.toLocalDateTime());
                 }
+                user.setVersion(rs.getInt("version"));
                 
                 list.add(user);
             }
@@ -51,7 +86,11 @@ public class UserDAO {
     }
 
     public User findById(int id) {
-        String sql = "SELECT id, first_name, last_name, username, password_hash, email, role, is_active, last_login, created_at, updated_at FROM users WHERE id = ?";
+        return EntityCache.copy(EntityCache.USERS.getOrLoad(id, this::loadById));
+    }
+
+    private User loadById(int id) {
+        String sql = "SELECT id, first_name, last_name, username, password_hash, email, role, is_active, last_login, created_at, updated_at, version FROM users WHERE id = ?";
         try (Connection c = MySQLConnection.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setInt(1, id);
@@ -83,6 +122,7 @@ public class UserDAO {
                 if (updatedAt != null) {
                     user.setUpdatedAt(updatedAt.toLocalDateTime());
                 }
+                user.setVersion(rs.getInt("version"));
                 
                 return user;
             }
@@ -110,29 +150,54 @@ public class UserDAO {
         return false;
     }
 
-    public boolean update(User user) {
-        String sql = "UPDATE users SET first_name = ?, last_name = ?, email = ?, updated_at = CURRENT_TIMESTAMP WHERE id = ?";
+    /**
+     * Modifie le nom et l'email si la ligne est toujours à la version lue (user.getVersion())
+     */
+    public UpdateResult update(User user) {
+        String sql = "UPDATE users SET first_name = ?, last_name = ?, email = ?, updated_at = CURRENT_TIMESTAMP, " +
+                "version = version + 1 WHERE id = ? AND version = ?";
         try (Connection c = MySQLConnection.getConnection();
              PreparedStatement ps = c.prepareStatement(sql)) {
             ps.setString(1, user.getFirstName());
             ps.setString(2, user.getLastName());
             ps.setString(3, user.getEmail());
             ps.setInt(4, user.getId());
+            ps.setInt(5, user.getVersion());
             int affected = ps.executeUpdate();
-            return affected == 1;
+            EntityCache.USERS.invalidate(user.getId());
+            if (affected == 1) {
+                user.setVersion(user.getVersion() + 1);
+                return UpdateResult.SUCCESS;
+            }
+            return VersionCheck.explain(c, "users", user.getId());
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return false;
+        return UpdateResult.ERROR;
     }
 
+    /**
+     * Supprime un utilisateur (et ses scores en cascade) ainsi que ses agrégats quotidiens
+     */
     public boolean delete(int id) {
         String sql = "DELETE FROM users WHERE id = ?";
-        try (Connection c = MySQLConnection.getConnection();
-             PreparedStatement ps = c.prepareStatement(sql)) {
-            ps.setInt(1, id);
-            int affected = ps.executeUpdate();
-            return affected == 1;
+        try (Connection c = MySQLConnection.getConnection()) {
+            c.setAutoCommit(false);
+            try (PreparedStatement ps = c.prepareStatement(sql)) {
+                List<RollupDAO.Key> themeDays = RollupDAO.themeDaysOfUser(c, id);
+                ps.setInt(1, id);
+                int affected = ps.executeUpdate();
+                if (affected == 1) {
+                    RollupDAO.removeUser(c, id, themeDays);
+                }
+                c.commit();
+                return affected == 1;
+            } catch (SQLException e) {
+                c.rollback();
+                throw e;
+            } finally {
+                EntityCache.USERS.invalidate(id);
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
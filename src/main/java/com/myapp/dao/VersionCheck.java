@@ -0,0 +1,27 @@
+package com.myapp.dao;
+
+import com.myapp.models.UpdateResult;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Explique une mise à jour versionnée qui n'a modifié aucune ligne
+ */
+final class VersionCheck {
+
+    private VersionCheck() {
+    }
+
+    /**
+     * CONFLICT si la ligne existe (sa version a changé depuis la lecture), NOT_FOUND sinon
+     * @param table table à clé primaire id (constante du DAO, jamais une saisie)
+     */
+    static UpdateResult explain(Connection c, String table, int id) throws SQLException {
+        try (PreparedStatement ps = c.prepareStatement("SELECT 1 FROM " + table + " WHERE id = ?")) {
+            ps.setInt(1, id);
+            return ps.executeQuery().next() ? UpdateResult.CONFLICT : UpdateResult.NOT_FOUND;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.myapp.models;
+
+/**
+ * Paramètres de la prochaine partie choisis sur l'écran d'accueil
+ * @param theme thème choisi, null tant qu'aucun thème n'a été choisi
+ * @param gridSize taille de grille au format "4x4"
+ */
+public record GameSettings(Theme theme, String gridSize) {
+    public static final String DEFAULT_GRID_SIZE = "4x4";
+    public static final GameSettings DEFAULT = new GameSettings(null, DEFAULT_GRID_SIZE);
+
+    public GameSettings {
+        if (gridSize == null || !gridSize.matches("\\d+x\\d+")) {
+            gridSize = DEFAULT_GRID_SIZE;
+        }
+    }
+}
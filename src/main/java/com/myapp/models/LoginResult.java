@@ -8,7 +8,9 @@ public enum LoginResult {
     INVALID_CREDENTIALS("Nom d'utilisateur ou mot de passe incorrect"),
     ACCOUNT_DISABLED("Ce compte est désactivé. Contactez un administrateur."),
     USER_NOT_FOUND("Utilisateur non trouvé"),
-    EMPTY_FIELDS("Veuillez remplir tous les champs");
+    EMPTY_FIELDS("Veuillez remplir tous les champs"),
+    TOO_MANY_ATTEMPTS("Trop de tentatives de connexion. Réessayez dans quelques minutes."),
+    PASSWORD_RESET_REQUIRED("Le mot de passe de ce compte doit être réinitialisé. Contactez un administrateur.");
 
     private final String message;
 
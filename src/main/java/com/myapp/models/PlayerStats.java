@@ -0,0 +1,34 @@
+package com.myapp.models;
+
+import java.util.List;
+
+/**
+ * Statistiques d'un joueur, calculées en base à partir des agrégats (voir ScoreDAO.findPlayerStats)
+ * @param overall tous thèmes confondus, null si le joueur n'a aucune partie
+ * @param themes un élément par thème joué, du plus joué au moins joué
+ * @param trendDays durée en jours de chacune des deux périodes comparées pour la tendance
+ */
+public record PlayerStats(ThemeStats overall, List<ThemeStats> themes, int trendDays,
+                          long recentGames, double recentAverageAttempts,
+                          long previousGames, double previousAverageAttempts) {
+
+    /**
+     * Totaux d'un thème (themeId 0 : scores dont le thème a été supprimé)
+     */
+    public record ThemeStats(int themeId, String themeName, long games, int bestAttempts, double averageAttempts,
+                             int bestTimeSeconds, double averageTimeSeconds) {
+    }
+
+    public boolean hasGames() {
+        return overall != null && overall.games() > 0;
+    }
+
+    /**
+     * Écart d'essais moyens entre la période récente et la précédente (négatif : progrès),
+     * NaN si l'une des deux périodes n'a aucune partie
+     */
+    public double attemptsTrend() {
+        if (recentGames == 0 || previousGames == 0) return Double.NaN;
+        return recentAverageAttempts - previousAverageAttempts;
+    }
+}
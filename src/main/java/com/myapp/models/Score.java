@@ -9,6 +9,8 @@ public class Score {
     private int attempts;
     private int timeSeconds;
     private LocalDateTime playedAt;
+    // Version de la ligne lue, attendue par ScoreDAO.update
+    private int version;
 
     public Score() {
         this.playedAt = LocalDateTime.now();
@@ -95,6 +97,14 @@ public class Score {
         this.playedAt = playedAt;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Score{" +
@@ -0,0 +1,13 @@
+package com.myapp.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position dans une liste paginée de scores : les clés de tri du dernier score reçu
+ */
+public record ScoreCursor(LocalDateTime playedAt, int attempts, int timeSeconds, int id) {
+
+    public static ScoreCursor of(Score score) {
+        return new ScoreCursor(score.getPlayedAt(), score.getAttempts(), score.getTimeSeconds(), score.getId());
+    }
+}
@@ -0,0 +1,9 @@
+package com.myapp.models;
+
+import java.util.List;
+
+/**
+ * Page de scores et curseur permettant de demander la suivante
+ */
+public record ScorePage(List<Score> scores, ScoreCursor next, boolean hasMore) {
+}
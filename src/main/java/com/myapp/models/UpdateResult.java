@@ -0,0 +1,21 @@
+package com.myapp.models;
+
+/**
+ * Résultat d'une mise à jour versionnée (contrôle de concurrence optimiste)
+ */
+public enum UpdateResult {
+    SUCCESS("Modification enregistrée"),
+    CONFLICT("La ligne a été modifiée entre-temps par quelqu'un d'autre"),
+    NOT_FOUND("La ligne n'existe plus"),
+    ERROR("Erreur lors de la modification");
+
+    private final String message;
+
+    UpdateResult(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
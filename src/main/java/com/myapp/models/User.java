@@ -16,6 +16,8 @@ public class User {
     private LocalDateTime lastLogin;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    // Version de la ligne lue, attendue par les mises à jour versionnées
+    private int version;
     private List<Score> scores;
 
     public User() {
@@ -143,6 +145,14 @@ public class User {
         this.updatedAt = updatedAt;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public boolean isAdmin() {
         return "ADMIN".equalsIgnoreCase(role);
     }
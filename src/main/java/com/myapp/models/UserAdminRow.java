@@ -0,0 +1,19 @@
+package com.myapp.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne du tableau de gestion des utilisateurs : les colonnes affichées, sans le hash du mot de passe
+ * @param version version de la ligne lue, attendue par les modifications faites depuis le tableau
+ */
+public record UserAdminRow(int id, String firstName, String lastName, String username, String email,
+                           String role, boolean active, LocalDateTime lastLogin, int version) {
+
+    public String getFullName() {
+        return firstName + " " + lastName;
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equalsIgnoreCase(role);
+    }
+}
@@ -0,0 +1,18 @@
+package com.myapp.models;
+
+/**
+ * Joueur tel qu'affiché dans une liste de choix : identifiant et nom seulement
+ */
+public record UserOption(int id, String displayName) {
+
+    public static UserOption of(int id, String firstName, String lastName, String username) {
+        String fullName = firstName + " " + lastName;
+        boolean hasUsername = username != null && !username.trim().isEmpty();
+        return new UserOption(id, hasUsername ? fullName + " (" + username + ")" : fullName);
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
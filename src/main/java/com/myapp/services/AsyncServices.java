@@ -0,0 +1,132 @@
+package com.myapp.services;
+
+import com.myapp.models.LoginResult;
+import com.myapp.models.PlayerStats;
+import com.myapp.models.Score;
+import com.myapp.models.ScoreCursor;
+import com.myapp.models.ScorePage;
+import com.myapp.models.Theme;
+import com.myapp.models.User;
+import com.myapp.models.UserOption;
+import com.myapp.utils.DbExecutor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Façade asynchrone des services : chaque appel s'exécute via DbExecutor et
+ * sa future est complétée sur le thread JavaFX.
+ * Les lectures sont liées à l'écran courant ; connexion, inscription et écritures de scores sont détachées
+ * pour aboutir même si l'utilisateur change d'écran entre-temps.
+ */
+public class AsyncServices {
+    private final ScoreService scoreService;
+    private final UserService userService;
+    private final ThemeService themeService;
+    private final AuthenticationService authService;
+
+    public AsyncServices() {
+        this(new AuthenticationService());
+    }
+
+    public AsyncServices(AuthenticationService authService) {
+        this(new ScoreService(), new UserService(), new ThemeService(), authService);
+    }
+
+    public AsyncServices(ScoreService scoreService, UserService userService,
+                         ThemeService themeService, AuthenticationService authService) {
+        this.scoreService = scoreService;
+        this.userService = userService;
+        this.themeService = themeService;
+        this.authService = authService;
+    }
+
+    /**
+     * Service d'authentification sous-jacent (utilisateur connecté après login)
+     */
+    public AuthenticationService auth() {
+        return authService;
+    }
+
+    // --- Authentification ---
+
+    public CompletableFuture<LoginResult> login(String username, String password) {
+        return DbExecutor.supplyDetached(() -> authService.login(username, password));
+    }
+
+    public CompletableFuture<Boolean> register(String firstName, String lastName, String username,
+                                               String email, String password) {
+        return DbExecutor.supplyDetached(() -> authService.register(firstName, lastName, username, email, password));
+    }
+
+    public CompletableFuture<Boolean> isUsernameAvailable(String username) {
+        return DbExecutor.supply(() -> authService.isUsernameAvailable(username));
+    }
+
+    public CompletableFuture<Boolean> isEmailAvailable(String email) {
+        return DbExecutor.supply(() -> authService.isEmailAvailable(email));
+    }
+
+    // --- Utilisateurs ---
+
+    public CompletableFuture<User> getUser(int id) {
+        return DbExecutor.supply(() -> userService.getUser(id));
+    }
+
+    public CompletableFuture<List<User>> getAllUsers() {
+        return DbExecutor.supply(userService::getAllUsers);
+    }
+
+    public CompletableFuture<List<UserOption>> getUserOptions() {
+        return DbExecutor.supply(userService::getUserOptions);
+    }
+
+    // --- Thèmes ---
+
+    public CompletableFuture<List<Theme>> getAllThemes() {
+        return DbExecutor.supply(themeService::getAllThemes);
+    }
+
+    public CompletableFuture<Theme> getTheme(int id) {
+        return DbExecutor.supply(() -> themeService.getTheme(id));
+    }
+
+    // --- Scores ---
+
+    public CompletableFuture<Boolean> saveScore(Score score) {
+        return DbExecutor.supplyDetached(() -> scoreService.saveScore(score));
+    }
+
+    public CompletableFuture<List<Score>> listScoresBy(String orderBy) {
+        return DbExecutor.supply(() -> scoreService.listScoresBy(orderBy));
+    }
+
+    public CompletableFuture<ScorePage> getScorePage(String orderBy, Integer userId, Integer themeId,
+                                                     ScoreCursor after, int limit) {
+        return DbExecutor.supply(() -> scoreService.getScorePage(orderBy, userId, themeId, after, limit));
+    }
+
+    public CompletableFuture<List<Score>> getLeaderboard(Integer themeId, int limit) {
+        return DbExecutor.supply(() -> scoreService.getLeaderboard(themeId, limit));
+    }
+
+    public CompletableFuture<Integer> getLeaderboardRank(Integer themeId, int userId) {
+        return DbExecutor.supply(() -> scoreService.getLeaderboardRank(themeId, userId));
+    }
+
+    public CompletableFuture<Boolean> deleteScore(int id) {
+        return DbExecutor.supplyDetached(() -> scoreService.deleteScore(id));
+    }
+
+    public CompletableFuture<List<Score>> getScoresByUser(int userId) {
+        return DbExecutor.supply(() -> scoreService.getScoresByUser(userId));
+    }
+
+    public CompletableFuture<List<Score>> getScoresByTheme(int themeId) {
+        return DbExecutor.supply(() -> scoreService.getScoresByTheme(themeId));
+    }
+
+    public CompletableFuture<PlayerStats> getPlayerStats(int userId) {
+        return DbExecutor.supply(() -> scoreService.getPlayerStats(userId));
+    }
+}
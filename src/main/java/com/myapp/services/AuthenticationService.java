@@ -3,6 +3,7 @@ package com.myapp.services;
 import com.myapp.dao.UserAuthDAO;
 import com.myapp.models.LoginResult;
 import com.myapp.models.User;
+import com.myapp.utils.DbExecutor;
 import com.myapp.utils.PasswordUtils;
 
 import java.time.LocalDateTime;
@@ -28,25 +29,64 @@ public class AuthenticationService {
             return LoginResult.EMPTY_FIELDS;
         }
 
-        User user = userAuthDAO.findByUsername(username.trim());
-        if (user == null) {
-            return LoginResult.USER_NOT_FOUND;
+        // Refuser avant toute requête ou calcul de hash ; une tentative acceptée occupe une place jusqu'à son issue
+        LoginThrottle throttle = LoginThrottle.getInstance();
+        LoginThrottle.Attempt attempt = throttle.checkAttempt(username, LoginThrottle.LOCAL_SOURCE);
+        if (!attempt.isAllowed()) {
+            return LoginResult.TOO_MANY_ATTEMPTS;
         }
 
-        // Vérifier si le compte est désactivé AVANT de vérifier le mot de passe
-        if (!user.isActive()) {
-            return LoginResult.ACCOUNT_DISABLED;
-        }
+        // Toute issue autre qu'un échec (compte désactivé, réinitialisation, exception) libère la réservation
+        try {
+            User user = userAuthDAO.findByUsername(username.trim());
+            if (user == null) {
+                throttle.recordUnknownUser(attempt, LoginThrottle.LOCAL_SOURCE);
+                return LoginResult.USER_NOT_FOUND;
+            }
+
+            // Vérifier si le compte est désactivé AVANT de vérifier le mot de passe
+            if (!user.isActive()) {
+                return LoginResult.ACCOUNT_DISABLED;
+            }
+
+            // Hash illisible remplacé par la migration des mots de passe : rien à vérifier
+            if (PasswordUtils.RESET_MARKER.equals(user.getPasswordHash())) {
+                return LoginResult.PASSWORD_RESET_REQUIRED;
+            }
 
-        // Vérifier le mot de passe
-        if (PasswordUtils.verifyPassword(password, user.getPasswordHash())) {
-            this.currentUser = user;
-            user.updateLastLogin();
-            userAuthDAO.updateLastLogin(user.getId());
-            return LoginResult.SUCCESS;
+            // Vérifier le mot de passe
+            if (PasswordUtils.verifyPassword(password, user.getPasswordHash())) {
+                throttle.recordSuccess(attempt);
+                this.currentUser = user;
+                user.updateLastLogin();
+                userAuthDAO.updateLastLogin(user.getId());
+                if (PasswordUtils.needsRehash(user.getPasswordHash())) {
+                    upgradeHash(user, password);
+                }
+                return LoginResult.SUCCESS;
+            }
+
+            throttle.recordFailure(attempt);
+            return LoginResult.INVALID_CREDENTIALS;
+        } finally {
+            throttle.release(attempt);
         }
+    }
 
-        return LoginResult.INVALID_CREDENTIALS;
+    /**
+     * Remplace un hash ancien ou trop faible par un hash au format courant, sans retarder la connexion :
+     * le hachage part sur HashExecutor et l'écriture sur DbExecutor
+     */
+    private void upgradeHash(User user, String password) {
+        String oldHash = user.getPasswordHash();
+        PasswordUtils.hashPasswordAsync(password).thenAccept(newHash ->
+                DbExecutor.supplyDetached(() -> userAuthDAO.upgradePasswordHash(user.getId(), oldHash, newHash))
+                        .thenAccept(upgraded -> {
+                            if (upgraded) {
+                                user.setPasswordHash(newHash);
+                                PasswordUtils.recordRehash();
+                            }
+                        }));
     }
 
     /**
@@ -83,7 +123,11 @@ public class AuthenticationService {
                                email != null ? email.trim() : null);
         newUser.setPasswordHash(PasswordUtils.hashPassword(password));
 
-        return userAuthDAO.insert(newUser);
+        boolean inserted = userAuthDAO.insert(newUser);
+        if (inserted) {
+            AvailabilityService.getInstance().onTaken(newUser.getUsername(), newUser.getEmail());
+        }
+        return inserted;
     }
 
     /**
@@ -147,8 +191,8 @@ public class AuthenticationService {
     /**
      * Valide les données d'inscription
      */
-    private boolean isValidRegistrationData(String firstName, String lastName, 
-                                          String username, String email, String password) {
+    static boolean isValidRegistrationData(String firstName, String lastName, 
+                                         String username, String email, String password) {
         return isValidName(firstName) && 
                isValidName(lastName) && 
                isValidUsername(username) && 
@@ -159,14 +203,14 @@ public class AuthenticationService {
     /**
      * Valide un nom (prénom ou nom de famille)
      */
-    private boolean isValidName(String name) {
+    static boolean isValidName(String name) {
         return name != null && name.trim().length() >= 2 && name.trim().length() <= 50;
     }
 
     /**
      * Valide un nom d'utilisateur
      */
-    private boolean isValidUsername(String username) {
+    static boolean isValidUsername(String username) {
         if (username == null || username.trim().isEmpty()) {
             return false;
         }
@@ -178,7 +222,7 @@ public class AuthenticationService {
     /**
      * Valide une adresse email (optionnelle)
      */
-    private boolean isValidEmail(String email) {
+    static boolean isValidEmail(String email) {
         if (email == null || email.trim().isEmpty()) {
             return true; // Email optionnel
         }
@@ -188,30 +232,21 @@ public class AuthenticationService {
     /**
      * Valide un mot de passe
      */
-    private boolean isValidPassword(String password) {
+    static boolean isValidPassword(String password) {
         return password != null && password.length() >= 6 && password.length() <= 100;
     }
 
     /**
-     * Vérifie si un nom d'utilisateur est disponible
+     * Vérifie si un nom d'utilisateur est disponible (aide à la saisie, voir AvailabilityService)
      */
     public boolean isUsernameAvailable(String username) {
-        if (!isValidUsername(username)) {
-            return false;
-        }
-        return userAuthDAO.findByUsername(username.trim()) == null;
+        return AvailabilityService.getInstance().isUsernameAvailable(username);
     }
 
     /**
-     * Vérifie si une adresse email est disponible
+     * Vérifie si une adresse email est disponible (aide à la saisie, voir AvailabilityService)
      */
     public boolean isEmailAvailable(String email) {
-        if (email == null || email.trim().isEmpty()) {
-            return true;
-        }
-        if (!isValidEmail(email)) {
-            return false;
-        }
-        return userAuthDAO.findByEmail(email.trim()) == null;
+        return AvailabilityService.getInstance().isEmailAvailable(email);
     }
 }
\ No newline at end of file
@@ -0,0 +1,197 @@
+package com.myapp.services;
+
+import com.myapp.dao.UserAuthDAO;
+import com.myapp.utils.BloomFilter;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disponibilité des noms d'utilisateur et des emails pendant la saisie.
+ * Un filtre de Bloom des valeurs prises (en minuscules) répond seul quand la valeur est absente ;
+ * la base n'est interrogée que sur une présence possible (valeur prise ou faux positif).
+ * Le filtre est complété à chaque inscription ou import ; une suppression ou un renommage laisse l'ancienne valeur
+ * dans le filtre (faux positif, vérifié en base). Il est reconstruit quand ces valeurs périmées s'accumulent,
+ * qu'il dépasse sa capacité, ou qu'il a plus de availability.maxAgeMs (comptes créés depuis d'autres postes).
+ * La reconstruction (comptage et parcours de tous les comptes) se fait hors du verrou, par un seul thread :
+ * pendant ce temps les vérifications utilisent l'ancien filtre (ou la base s'il n'y en a pas), et les valeurs
+ * prises entre-temps sont rejouées dans le nouveau filtre avant qu'il ne remplace l'ancien.
+ * L'inscription elle-même garde ses contrôles en base : le filtre ne sert qu'à l'aide à la saisie.
+ */
+public class AvailabilityService {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long MAX_AGE_MS = Long.getLong("availability.maxAgeMs", 10 * 60_000L);
+    // Part de valeurs périmées (comptes supprimés ou renommés) au-delà de laquelle le filtre est reconstruit
+    private static final double MAX_STALE_RATIO = 0.2;
+    // Marge de capacité à la construction, pour les inscriptions à venir
+    private static final int GROWTH_FACTOR = 2;
+    private static final int MIN_CAPACITY = 1024;
+
+    private static AvailabilityService instance;
+
+    private final UserAuthDAO dao = new UserAuthDAO();
+
+    private BloomFilter filter;
+    private long capacity;
+    private long builtAt;
+    private long staleEntries;
+    // Non nul pendant une reconstruction : valeurs prises et libérées depuis son début
+    private List<String> takenDuringRebuild;
+    private long releasedDuringRebuild;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong answeredFromIndex = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    private AvailabilityService() {
+    }
+
+    public static synchronized AvailabilityService getInstance() {
+        if (instance == null) {
+            instance = new AvailabilityService();
+        }
+        return instance;
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        if (!AuthenticationService.isValidUsername(username)) {
+            return false;
+        }
+        return isAvailable(usernameKey(username), () -> dao.isUsernameTaken(username.trim()));
+    }
+
+    public boolean isEmailAvailable(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return true;
+        }
+        if (!AuthenticationService.isValidEmail(email)) {
+            return false;
+        }
+        return isAvailable(emailKey(email), () -> dao.isEmailTaken(email.trim()));
+    }
+
+    private interface TakenCheck {
+        boolean isTaken() throws SQLException;
+    }
+
+    private boolean isAvailable(String key, TakenCheck check) {
+        checks.incrementAndGet();
+        if (!mightBeTaken(key)) {
+            answeredFromIndex.incrementAndGet();
+            return true;
+        }
+        try {
+            boolean taken = check.isTaken();
+            if (!taken) falsePositives.incrementAndGet();
+            return !taken;
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Vrai si la valeur est peut-être prise ; vrai aussi quand le filtre ne peut pas être construit
+     */
+    private boolean mightBeTaken(String key) {
+        synchronized (this) {
+            if (takenDuringRebuild != null || !needsRebuild()) {
+                return filter == null || filter.mightContain(key);
+            }
+            takenDuringRebuild = new ArrayList<>();
+            releasedDuringRebuild = 0;
+        }
+        if (!rebuild()) {
+            return true;
+        }
+        synchronized (this) {
+            return filter == null || filter.mightContain(key);
+        }
+    }
+
+    private boolean needsRebuild() {
+        return filter == null
+                || System.currentTimeMillis() - builtAt > MAX_AGE_MS
+                || filter.getInsertions() > capacity
+                || staleEntries > filter.getInsertions() * MAX_STALE_RATIO;
+    }
+
+    /**
+     * Construit un nouveau filtre hors du verrou puis le met en place avec les valeurs prises entre-temps
+     */
+    private boolean rebuild() {
+        long start = System.currentTimeMillis();
+        BloomFilter rebuilt = null;
+        long expected = 0;
+        try {
+            expected = Math.max(MIN_CAPACITY, (long) dao.countUsers() * 2 * GROWTH_FACTOR);
+            BloomFilter building = new BloomFilter(expected, FALSE_POSITIVE_RATE);
+            dao.forEachIdentity((username, email) -> {
+                if (username != null) building.put(usernameKey(username));
+                if (email != null) building.put(emailKey(email));
+            });
+            rebuilt = building;
+        } catch (SQLException e) {
+            System.err.println("Index des identifiants indisponible, vérifications en base: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                if (rebuilt != null) {
+                    for (String key : takenDuringRebuild) {
+                        rebuilt.put(key);
+                    }
+                    capacity = expected;
+                    builtAt = System.currentTimeMillis();
+                    staleEntries = releasedDuringRebuild;
+                }
+                filter = rebuilt;
+                takenDuringRebuild = null;
+            }
+        }
+        if (rebuilt == null) {
+            return false;
+        }
+        System.out.println("Index des identifiants construit: " + rebuilt.getInsertions() + " valeurs en "
+                + (System.currentTimeMillis() - start) + " ms");
+        return true;
+    }
+
+    /**
+     * Un compte a été créé (inscription, import) ou a changé de nom ou d'email
+     */
+    public synchronized void onTaken(String username, String email) {
+        if (username != null) taken(usernameKey(username));
+        if (email != null && !email.isBlank()) taken(emailKey(email));
+    }
+
+    private void taken(String key) {
+        if (takenDuringRebuild != null) takenDuringRebuild.add(key);
+        if (filter != null) filter.put(key);
+    }
+
+    /**
+     * Un nom ou un email a été libéré (suppression ou renommage) : il restera un faux positif jusqu'à la reconstruction
+     */
+    public synchronized void onReleased() {
+        staleEntries += 2;
+        if (takenDuringRebuild != null) releasedDuringRebuild += 2;
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("disponibilité: %d vérifications, %d sans requête, %d faux positifs%s",
+                checks.get(), answeredFromIndex.get(), falsePositives.get(),
+                filter == null ? "" : String.format(", %d valeurs (faux positifs attendus %.2f %%)",
+                        filter.getInsertions(), filter.expectedFalsePositiveRate() * 100));
+    }
+}
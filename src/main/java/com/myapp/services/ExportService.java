@@ -0,0 +1,239 @@
+package com.myapp.services;
+
+import com.myapp.dao.ExportDAO;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Locale;
+
+/**
+ * Export en flux des scores ou des utilisateurs en CSV ou en JSON délimité par lignes (NDJSON).
+ * Les lignes lues en flux sont encodées dans un tampon de taille fixe écrit par FileChannel :
+ * la mémoire utilisée ne dépend pas de la taille de la table.
+ * Le fichier est écrit sous un nom temporaire puis renommé une fois complet.
+ */
+public class ExportService {
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final long PROGRESS_INTERVAL_NANOS = 500_000_000L;
+
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * Format déduit de l'extension du fichier (.json, .jsonl, .ndjson => NDJSON, sinon CSV)
+         */
+        public static Format fromFileName(String fileName) {
+            String lower = fileName.toLowerCase(Locale.ROOT);
+            return lower.endsWith(".ndjson") || lower.endsWith(".jsonl") || lower.endsWith(".json") ? NDJSON : CSV;
+        }
+    }
+
+    /**
+     * Avancement d'un export, appelé depuis le thread qui exporte
+     */
+    public interface ProgressListener {
+        void onProgress(long rows, long bytes, double rowsPerSecond);
+    }
+
+    /**
+     * Bilan d'un export terminé
+     */
+    public record ExportResult(long rows, long bytes, long elapsedMillis) {
+
+        public double rowsPerSecond() {
+            return elapsedMillis == 0 ? rows : rows * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d lignes, %.1f Ko en %d ms (%.0f lignes/s)",
+                    rows, bytes / 1024.0, elapsedMillis, rowsPerSecond());
+        }
+    }
+
+    private final ExportDAO dao = new ExportDAO();
+
+    public ExportResult export(ExportDAO.Dataset dataset, Format format, Path target,
+                               ProgressListener listener) throws IOException, SQLException {
+        Path absolute = target.toAbsolutePath();
+        if (absolute.getParent() != null) {
+            Files.createDirectories(absolute.getParent());
+        }
+        Path partial = absolute.resolveSibling(absolute.getFileName() + ".part");
+        long start = System.nanoTime();
+
+        ChannelWriter writer;
+        try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writer = new ChannelWriter(channel, format, listener, start);
+            dao.stream(dataset, writer);
+            writer.flush();
+            channel.force(false);
+        } catch (IOException | SQLException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        // Renommer une fois le canal fermé (obligatoire sous Windows)
+        Files.move(partial, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        ExportResult result = new ExportResult(writer.rows, writer.bytes, elapsedMillis);
+        if (listener != null) {
+            listener.onProgress(result.rows(), result.bytes(), result.rowsPerSecond());
+        }
+        return result;
+    }
+
+    /**
+     * Encode chaque ligne dans un tampon réutilisé et l'écrit sur le canal quand il est plein
+     */
+    private static final class ChannelWriter implements ExportDAO.RowVisitor {
+        private final FileChannel channel;
+        private final Format format;
+        private final ProgressListener listener;
+        private final long start;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final StringBuilder line = new StringBuilder(256);
+        private String[] columns;
+        private long rows;
+        private long bytes;
+        private long lastProgress;
+
+        ChannelWriter(FileChannel channel, Format format, ProgressListener listener, long start) {
+            this.channel = channel;
+            this.format = format;
+            this.listener = listener;
+            this.start = start;
+            this.lastProgress = start;
+        }
+
+        @Override
+        public void header(String[] columns) throws IOException {
+            this.columns = columns.clone();
+            if (format == Format.CSV) {
+                line.setLength(0);
+                for (int i = 0; i < columns.length; i++) {
+                    if (i > 0) line.append(',');
+                    appendCsv(columns[i]);
+                }
+                writeLine();
+            }
+        }
+
+        @Override
+        public void row(Object[] values) throws IOException {
+            line.setLength(0);
+            if (format == Format.CSV) {
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) line.append(',');
+                    if (values[i] != null) appendCsv(text(values[i]));
+                }
+            } else {
+                line.append('{');
+                for (int i = 0; i < values.length; i++) {
+                    if (i > 0) line.append(',');
+                    appendJsonString(columns[i]);
+                    line.append(':');
+                    appendJsonValue(values[i]);
+                }
+                line.append('}');
+            }
+            writeLine();
+            rows++;
+
+            long now = System.nanoTime();
+            if (listener != null && now - lastProgress >= PROGRESS_INTERVAL_NANOS) {
+                lastProgress = now;
+                listener.onProgress(rows, bytes, rows * 1e9 / (now - start));
+            }
+        }
+
+        private void writeLine() throws IOException {
+            line.append('\n');
+            byte[] encoded = line.toString().getBytes(StandardCharsets.UTF_8);
+            if (encoded.length > buffer.remaining()) {
+                flush();
+            }
+            if (encoded.length > buffer.capacity()) {
+                ByteBuffer large = ByteBuffer.wrap(encoded);
+                while (large.hasRemaining()) {
+                    channel.write(large);
+                }
+            } else {
+                buffer.put(encoded);
+            }
+            bytes += encoded.length;
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private static String text(Object value) {
+            if (value instanceof Timestamp timestamp) {
+                return timestamp.toLocalDateTime().toString();
+            }
+            return value.toString();
+        }
+
+        private void appendCsv(String value) {
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                line.append(value);
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char ch = value.charAt(i);
+                if (ch == '"') line.append('"');
+                line.append(ch);
+            }
+            line.append('"');
+        }
+
+        private void appendJsonValue(Object value) {
+            if (value == null) {
+                line.append("null");
+            } else if (value instanceof Number || value instanceof Boolean) {
+                line.append(value);
+            } else {
+                appendJsonString(text(value));
+            }
+        }
+
+        private void appendJsonString(String value) {
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char ch = value.charAt(i);
+                switch (ch) {
+                    case '"' -> line.append("\\\"");
+                    case '\\' -> line.append("\\\\");
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    case '\t' -> line.append("\\t");
+                    default -> {
+                        if (ch < 0x20) {
+                            line.append(String.format("\\u%04x", (int) ch));
+                        } else {
+                            line.append(ch);
+                        }
+                    }
+                }
+            }
+            line.append('"');
+        }
+    }
+}
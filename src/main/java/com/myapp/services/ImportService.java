@@ -0,0 +1,514 @@
+package com.myapp.services;
+
+import com.myapp.dao.ExportDAO;
+import com.myapp.dao.ImportDAO;
+import com.myapp.dao.ScoreDAO;
+import com.myapp.dao.ThemeDAO;
+import com.myapp.models.Score;
+import com.myapp.models.Theme;
+import com.myapp.models.User;
+import com.myapp.utils.PasswordUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Import en masse d'utilisateurs ou de scores historiques depuis un fichier CSV avec ligne d'en-tête.
+ * Le fichier est traité par lots : validation des lignes en parallèle, recherche des doublons
+ * en une requête IN (...) par lot, hachage des mots de passe sur un pool borné, puis insertion
+ * du lot par batch JDBC dans une transaction.
+ *
+ * Colonnes utilisateurs : first_name, last_name, username, email, password, role (facultative)
+ * Colonnes scores : username, theme_name, attempts, time_seconds, played_at (celles de l'export des scores)
+ */
+public class ImportService {
+    private static final int CHUNK_ROWS = Integer.getInteger("import.chunkRows", 500);
+    private static final int WORKER_THREADS = Integer.getInteger("import.threads",
+            Runtime.getRuntime().availableProcessors());
+    // Au-delà, les erreurs sont seulement comptées
+    private static final int MAX_ISSUES = 1000;
+
+    private static final DateTimeFormatter SQL_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * Ligne rejetée et sa raison
+     */
+    public record Issue(long line, String message) {
+        @Override
+        public String toString() {
+            return "ligne " + line + ": " + message;
+        }
+    }
+
+    /**
+     * Bilan d'un import
+     */
+    public record ImportReport(long rows, long imported, long rejected, List<Issue> issues, long elapsedMillis) {
+
+        public double rowsPerSecond() {
+            return elapsedMillis == 0 ? rows : rows * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d lignes lues, %d importées, %d rejetées en %d ms (%.0f lignes/s)",
+                    rows, imported, rejected, elapsedMillis, rowsPerSecond());
+        }
+    }
+
+    /**
+     * Avancement d'un import, appelé après chaque lot depuis le thread qui importe
+     */
+    public interface ProgressListener {
+        void onProgress(long rows, long imported, long rejected);
+    }
+
+    private final ImportDAO importDAO = new ImportDAO();
+    private final ScoreDAO scoreDAO = new ScoreDAO();
+    private final ThemeDAO themeDAO = new ThemeDAO();
+
+    /**
+     * Importe un fichier CSV
+     * @param dataset USERS ou SCORES
+     */
+    public ImportReport importCsv(ExportDAO.Dataset dataset, Path source, ProgressListener listener)
+            throws IOException, SQLException {
+        long start = System.nanoTime();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, WORKER_THREADS), r -> {
+            Thread t = new Thread(r, "import-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        Run run = new Run();
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            CsvReader csv = new CsvReader(reader);
+            List<String> header = csv.next();
+            if (header == null) {
+                throw new IOException("Fichier vide: " + source);
+            }
+            Columns columns = new Columns(header);
+            ChunkImporter importer = dataset == ExportDAO.Dataset.USERS
+                    ? new UserImporter(columns, workers, run)
+                    : new ScoreImporter(columns, workers, run);
+
+            List<Row> chunk = new ArrayList<>(CHUNK_ROWS);
+            List<String> fields;
+            while ((fields = csv.next()) != null) {
+                if (fields.size() == 1 && fields.get(0).isBlank()) continue;
+                chunk.add(new Row(csv.recordLine, fields));
+                run.rows++;
+                if (chunk.size() == CHUNK_ROWS) {
+                    importer.importChunk(chunk);
+                    chunk = new ArrayList<>(CHUNK_ROWS);
+                    if (listener != null) listener.onProgress(run.rows, run.imported, run.rejected);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importer.importChunk(chunk);
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+
+        if (run.imported > 0 && dataset == ExportDAO.Dataset.SCORES) {
+            LeaderboardIndex.getInstance().invalidate();
+        }
+        ImportReport report = new ImportReport(run.rows, run.imported, run.rejected,
+                List.copyOf(run.issues), (System.nanoTime() - start) / 1_000_000);
+        if (listener != null) listener.onProgress(report.rows(), report.imported(), report.rejected());
+        return report;
+    }
+
+    /**
+     * Compteurs d'un import en cours
+     */
+    private static final class Run {
+        long rows;
+        long imported;
+        long rejected;
+        final List<Issue> issues = new ArrayList<>();
+
+        void reject(long line, String message) {
+            rejected++;
+            if (issues.size() < MAX_ISSUES) {
+                issues.add(new Issue(line, message));
+            }
+        }
+    }
+
+    private record Row(long line, List<String> fields) {
+    }
+
+    /**
+     * Résultat de la validation d'une ligne : la valeur, ou le motif du rejet
+     */
+    private record Checked<T>(Row row, T value, String error) {
+        static <T> Checked<T> ok(Row row, T value) {
+            return new Checked<>(row, value, null);
+        }
+
+        static <T> Checked<T> rejected(Row row, String error) {
+            return new Checked<>(row, null, error);
+        }
+    }
+
+    private interface ChunkImporter {
+        void importChunk(List<Row> chunk) throws SQLException;
+    }
+
+    /**
+     * Applique fn à chaque élément sur le pool, en conservant l'ordre
+     */
+    private static <A, B> List<B> parallelMap(List<A> items, Function<A, B> fn, ExecutorService workers) {
+        List<CompletableFuture<B>> futures = new ArrayList<>(items.size());
+        for (A item : items) {
+            futures.add(CompletableFuture.supplyAsync(() -> fn.apply(item), workers));
+        }
+        List<B> results = new ArrayList<>(items.size());
+        for (CompletableFuture<B> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    private final class UserImporter implements ChunkImporter {
+        private final Columns columns;
+        private final ExecutorService workers;
+        private final Run run;
+        // Doublons à l'intérieur du fichier, en minuscules
+        private final Set<String> seenUsernames = new HashSet<>();
+        private final Set<String> seenEmails = new HashSet<>();
+
+        UserImporter(Columns columns, ExecutorService workers, Run run) throws IOException {
+            this.columns = columns;
+            this.workers = workers;
+            this.run = run;
+            columns.require("first_name", "last_name", "username", "password");
+        }
+
+        @Override
+        public void importChunk(List<Row> chunk) throws SQLException {
+            List<Checked<PendingUser>> checked = parallelMap(chunk, this::validate, workers);
+
+            // Doublons dans le fichier : la première occurrence l'emporte
+            List<PendingUser> candidates = new ArrayList<>();
+            for (Checked<PendingUser> c : checked) {
+                if (c.error() != null) {
+                    run.reject(c.row().line(), c.error());
+                    continue;
+                }
+                PendingUser pending = c.value();
+                if (!seenUsernames.add(pending.usernameKey())) {
+                    run.reject(pending.line(), "nom d'utilisateur en double dans le fichier: " + pending.user().getUsername());
+                } else if (pending.emailKey() != null && !seenEmails.add(pending.emailKey())) {
+                    run.reject(pending.line(), "email en double dans le fichier: " + pending.user().getEmail());
+                } else {
+                    candidates.add(pending);
+                }
+            }
+
+            // Doublons en base : une requête par colonne pour tout le lot
+            Set<String> usernames = new LinkedHashSet<>();
+            Set<String> emails = new LinkedHashSet<>();
+            for (PendingUser pending : candidates) {
+                usernames.add(pending.user().getUsername());
+                if (pending.user().getEmail() != null) emails.add(pending.user().getEmail());
+            }
+            Set<String> existingUsernames = importDAO.findExistingUsernames(usernames);
+            Set<String> existingEmails = importDAO.findExistingEmails(emails);
+
+            List<PendingUser> accepted = new ArrayList<>();
+            for (PendingUser pending : candidates) {
+                if (existingUsernames.contains(pending.usernameKey())) {
+                    run.reject(pending.line(), "nom d'utilisateur déjà utilisé: " + pending.user().getUsername());
+                } else if (pending.emailKey() != null && existingEmails.contains(pending.emailKey())) {
+                    run.reject(pending.line(), "email déjà utilisé: " + pending.user().getEmail());
+                } else {
+                    accepted.add(pending);
+                }
+            }
+            if (accepted.isEmpty()) return;
+
+            // Hachage uniquement pour les lignes retenues
+            List<User> users = parallelMap(accepted, pending -> {
+                pending.user().setPasswordHash(PasswordUtils.hashPassword(pending.password()));
+                return pending.user();
+            }, workers);
+
+            try {
+                importDAO.insertUsers(users);
+                run.imported += users.size();
+                for (User user : users) {
+                    AvailabilityService.getInstance().onTaken(user.getUsername(), user.getEmail());
+                }
+            } catch (SQLException e) {
+                System.err.println("Import: lot de " + users.size() + " utilisateurs rejeté: " + e.getMessage());
+                for (PendingUser pending : accepted) {
+                    run.reject(pending.line(), "lot rejeté par la base: " + e.getMessage());
+                }
+            }
+        }
+
+        private Checked<PendingUser> validate(Row row) {
+            String firstName = columns.get(row, "first_name");
+            String lastName = columns.get(row, "last_name");
+            String username = columns.get(row, "username");
+            String email = columns.get(row, "email");
+            String password = columns.get(row, "password");
+            String role = columns.get(row, "role");
+
+            if (!AuthenticationService.isValidName(firstName) || !AuthenticationService.isValidName(lastName)) {
+                return Checked.rejected(row, "prénom et nom de 2 à 50 caractères requis");
+            }
+            if (!AuthenticationService.isValidUsername(username)) {
+                return Checked.rejected(row, "nom d'utilisateur invalide: " + username);
+            }
+            if (!AuthenticationService.isValidEmail(email)) {
+                return Checked.rejected(row, "email invalide: " + email);
+            }
+            if (!AuthenticationService.isValidPassword(password)) {
+                return Checked.rejected(row, "mot de passe de 6 à 100 caractères requis");
+            }
+            if (role != null && !role.isBlank() && !"USER".equalsIgnoreCase(role.trim())
+                    && !"ADMIN".equalsIgnoreCase(role.trim())) {
+                return Checked.rejected(row, "rôle inconnu: " + role);
+            }
+
+            String trimmedEmail = email != null && !email.isBlank() ? email.trim() : null;
+            User user = new User(firstName.trim(), lastName.trim(), username.trim(), trimmedEmail);
+            if (role != null && !role.isBlank()) {
+                user.setRole(role.trim().toUpperCase(Locale.ROOT));
+            }
+            return Checked.ok(row, new PendingUser(row.line(), user, password));
+        }
+    }
+
+    private record PendingUser(long line, User user, String password) {
+        String usernameKey() {
+            return user.getUsername().toLowerCase(Locale.ROOT);
+        }
+
+        String emailKey() {
+            return user.getEmail() != null ? user.getEmail().toLowerCase(Locale.ROOT) : null;
+        }
+    }
+
+    private final class ScoreImporter implements ChunkImporter {
+        private final Columns columns;
+        private final ExecutorService workers;
+        private final Run run;
+        private final Map<String, Theme> themesByName = new HashMap<>();
+
+        ScoreImporter(Columns columns, ExecutorService workers, Run run) throws IOException {
+            this.columns = columns;
+            this.workers = workers;
+            this.run = run;
+            columns.require("username", "attempts", "time_seconds", "played_at");
+            for (Theme theme : themeDAO.findAll()) {
+                themesByName.put(theme.getName().toLowerCase(Locale.ROOT), theme);
+            }
+        }
+
+        @Override
+        public void importChunk(List<Row> chunk) throws SQLException {
+            List<Checked<PendingScore>> checked = parallelMap(chunk, this::validate, workers);
+
+            Set<String> usernames = new LinkedHashSet<>();
+            for (Checked<PendingScore> c : checked) {
+                if (c.error() == null) usernames.add(c.value().username());
+            }
+            Map<String, Integer> userIds = importDAO.findUserIds(usernames);
+
+            List<Score> scores = new ArrayList<>();
+            List<Long> lines = new ArrayList<>();
+            for (Checked<PendingScore> c : checked) {
+                if (c.error() != null) {
+                    run.reject(c.row().line(), c.error());
+                    continue;
+                }
+                PendingScore pending = c.value();
+                Integer userId = userIds.get(pending.username().toLowerCase(Locale.ROOT));
+                if (userId == null) {
+                    run.reject(c.row().line(), "utilisateur inconnu: " + pending.username());
+                    continue;
+                }
+                scores.add(new Score(0, new User(userId, null, null), pending.theme(),
+                        pending.attempts(), pending.timeSeconds(), pending.playedAt()));
+                lines.add(c.row().line());
+            }
+            if (scores.isEmpty()) return;
+
+            if (scoreDAO.insertBatch(scores)) {
+                run.imported += scores.size();
+            } else {
+                for (Long line : lines) {
+                    run.reject(line, "lot rejeté par la base");
+                }
+            }
+        }
+
+        private Checked<PendingScore> validate(Row row) {
+            String username = columns.get(row, "username");
+            if (username == null || username.isBlank()) {
+                return Checked.rejected(row, "nom d'utilisateur manquant");
+            }
+            String themeName = columns.get(row, "theme_name");
+            Theme theme = null;
+            if (themeName != null && !themeName.isBlank()) {
+                theme = themesByName.get(themeName.trim().toLowerCase(Locale.ROOT));
+                if (theme == null) {
+                    return Checked.rejected(row, "thème inconnu: " + themeName);
+                }
+            }
+            int attempts;
+            int timeSeconds;
+            try {
+                attempts = Integer.parseInt(columns.get(row, "attempts").trim());
+                timeSeconds = Integer.parseInt(columns.get(row, "time_seconds").trim());
+            } catch (NumberFormatException | NullPointerException e) {
+                return Checked.rejected(row, "essais et temps doivent être des entiers");
+            }
+            if (attempts <= 0 || timeSeconds < 0) {
+                return Checked.rejected(row, "essais ou temps hors limites");
+            }
+            LocalDateTime playedAt = parseDateTime(columns.get(row, "played_at"));
+            if (playedAt == null) {
+                return Checked.rejected(row, "date invalide: " + columns.get(row, "played_at"));
+            }
+            return Checked.ok(row, new PendingScore(username.trim(), theme, attempts, timeSeconds, playedAt));
+        }
+    }
+
+    private record PendingScore(String username, Theme theme, int attempts, int timeSeconds, LocalDateTime playedAt) {
+    }
+
+    /**
+     * Date au format ISO (celui de l'export) ou "yyyy-MM-dd HH:mm:ss"
+     */
+    private static LocalDateTime parseDateTime(String value) {
+        if (value == null || value.isBlank()) return null;
+        String trimmed = value.trim();
+        try {
+            return LocalDateTime.parse(trimmed);
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(trimmed, SQL_DATE_TIME);
+            } catch (DateTimeParseException ignored) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Position des colonnes d'après la ligne d'en-tête (noms insensibles à la casse)
+     */
+    private static final class Columns {
+        private final Map<String, Integer> index = new HashMap<>();
+
+        Columns(List<String> header) {
+            for (int i = 0; i < header.size(); i++) {
+                index.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        void require(String... names) throws IOException {
+            for (String name : names) {
+                if (!index.containsKey(name)) {
+                    throw new IOException("Colonne obligatoire absente de l'en-tête: " + name);
+                }
+            }
+        }
+
+        String get(Row row, String name) {
+            Integer i = index.get(name);
+            return i != null && i < row.fields().size() ? row.fields().get(i) : null;
+        }
+    }
+
+    /**
+     * Lecteur CSV minimal (RFC 4180) : séparateur virgule, champs entre guillemets
+     * avec guillemets doublés et retours à la ligne possibles
+     */
+    private static final class CsvReader {
+        private final BufferedReader reader;
+        private long line;
+        // Numéro de la première ligne physique du dernier enregistrement lu
+        long recordLine;
+
+        CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        List<String> next() throws IOException {
+            String text = reader.readLine();
+            if (text == null) return null;
+            line++;
+            recordLine = line;
+            if (line == 1 && !text.isEmpty() && text.charAt(0) == '\uFEFF') {
+                text = text.substring(1);
+            }
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (!quoted) break;
+                    // Champ entre guillemets sur plusieurs lignes
+                    String more = reader.readLine();
+                    if (more == null) break;
+                    line++;
+                    field.append('\n');
+                    text = more;
+                    i = 0;
+                    continue;
+                }
+                char ch = text.charAt(i++);
+                if (quoted) {
+                    if (ch == '"') {
+                        if (i < text.length() && text.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(ch);
+                    }
+                } else if (ch == '"') {
+                    quoted = true;
+                } else if (ch == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(ch);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
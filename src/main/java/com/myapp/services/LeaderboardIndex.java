@@ -0,0 +1,176 @@
+package com.myapp.services;
+
+import com.myapp.models.Score;
+import com.myapp.utils.OrderStatisticTree;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Index en mémoire du classement : pour chaque thème (et pour tous les thèmes confondus),
+ * le meilleur score de chaque joueur, trié par essais puis temps.
+ * Chargé une fois depuis la base, puis tenu à jour à chaque score enregistré ou supprimé.
+ * Le top K et le rang d'un joueur sont obtenus en temps logarithmique.
+ */
+public class LeaderboardIndex {
+    public static final int ALL_THEMES = -1;
+
+    private static LeaderboardIndex instance;
+
+    private final Map<Integer, Board> boards = new HashMap<>();
+    private boolean loaded;
+
+    private LeaderboardIndex() {
+    }
+
+    public static synchronized LeaderboardIndex getInstance() {
+        if (instance == null) {
+            instance = new LeaderboardIndex();
+        }
+        return instance;
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Charge l'index si nécessaire
+     * @param bestPerUserAndTheme fournit le meilleur score de chaque couple joueur/thème
+     */
+    public synchronized void loadIfNeeded(Supplier<List<Score>> bestPerUserAndTheme) {
+        if (loaded) return;
+        boards.clear();
+        List<Score> scores = bestPerUserAndTheme.get();
+        for (Score score : scores) {
+            offer(score);
+        }
+        loaded = true;
+        System.out.println("Index du classement chargé: " + scores.size() + " meilleurs scores, " +
+                (boards.size() - (boards.containsKey(ALL_THEMES) ? 1 : 0)) + " thème(s)");
+    }
+
+    /**
+     * Oublie l'index ; il sera rechargé au prochain accès (suppression de joueur ou de thème...)
+     */
+    public synchronized void invalidate() {
+        boards.clear();
+        loaded = false;
+    }
+
+    /**
+     * Prend en compte un nouveau score s'il améliore le meilleur score du joueur
+     */
+    public synchronized void onScoreSaved(Score score) {
+        if (!loaded || score.getUser() == null || score.getTheme() == null) return;
+        offer(score);
+    }
+
+    /**
+     * Remplace le meilleur score d'un joueur pour un thème (après suppression d'un score)
+     * @param best nouveau meilleur score, null si le joueur n'a plus de score pour ce thème
+     */
+    public synchronized void replaceBest(int userId, int themeId, Score best) {
+        if (!loaded) return;
+        Board board = boards.computeIfAbsent(themeId, id -> new Board());
+        board.put(userId, best != null ? new Entry(best) : null);
+
+        // Le meilleur score tous thèmes confondus est le minimum des meilleurs scores par thème
+        Entry overall = null;
+        for (Map.Entry<Integer, Board> e : boards.entrySet()) {
+            if (e.getKey() == ALL_THEMES) continue;
+            Entry candidate = e.getValue().bestByUser.get(userId);
+            if (candidate != null && (overall == null || Entry.ORDER.compare(candidate, overall) < 0)) {
+                overall = candidate;
+            }
+        }
+        boards.computeIfAbsent(ALL_THEMES, id -> new Board()).put(userId, overall);
+    }
+
+    /**
+     * Les limit meilleurs joueurs, du meilleur au moins bon
+     * @param themeId thème, null ou ALL_THEMES pour tous les thèmes
+     */
+    public synchronized List<Score> top(Integer themeId, int limit) {
+        Board board = boards.get(themeId != null ? themeId : ALL_THEMES);
+        List<Score> result = new ArrayList<>();
+        if (board == null) return result;
+        for (Entry entry : board.ranking.first(limit)) {
+            result.add(entry.score);
+        }
+        return result;
+    }
+
+    /**
+     * Rang (1 = premier) d'un joueur, 0 s'il n'a pas de score
+     */
+    public synchronized int rankOf(Integer themeId, int userId) {
+        Board board = boards.get(themeId != null ? themeId : ALL_THEMES);
+        if (board == null) return 0;
+        Entry entry = board.bestByUser.get(userId);
+        return entry == null ? 0 : board.ranking.rank(entry) + 1;
+    }
+
+    public synchronized int playerCount(Integer themeId) {
+        Board board = boards.get(themeId != null ? themeId : ALL_THEMES);
+        return board == null ? 0 : board.ranking.size();
+    }
+
+    private void offer(Score score) {
+        Entry entry = new Entry(score);
+        boards.computeIfAbsent(score.getTheme().getId(), id -> new Board()).offer(entry);
+        boards.computeIfAbsent(ALL_THEMES, id -> new Board()).offer(entry);
+    }
+
+    /**
+     * Classement d'un thème : meilleur score par joueur et arbre trié de ces scores
+     */
+    private static class Board {
+        final Map<Integer, Entry> bestByUser = new HashMap<>();
+        final OrderStatisticTree<Entry> ranking = new OrderStatisticTree<>(Entry.ORDER);
+
+        void offer(Entry entry) {
+            Entry current = bestByUser.get(entry.userId);
+            if (current == null || Entry.ORDER.compare(entry, current) < 0) {
+                put(entry.userId, entry);
+            }
+        }
+
+        void put(int userId, Entry entry) {
+            Entry previous = entry != null ? bestByUser.put(userId, entry) : bestByUser.remove(userId);
+            if (previous != null) ranking.remove(previous);
+            if (entry != null) ranking.add(entry);
+        }
+    }
+
+    /**
+     * Clés de tri figées au moment de l'indexation : l'identifiant du score peut encore changer
+     * (attribué lors de l'écriture différée), il n'entre donc pas dans l'ordre.
+     */
+    private static final class Entry {
+        static final Comparator<Entry> ORDER = Comparator
+                .comparingInt((Entry e) -> e.attempts)
+                .thenComparingInt(e -> e.timeSeconds)
+                .thenComparing(e -> e.playedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingInt(e -> e.userId);
+
+        final int userId;
+        final int attempts;
+        final int timeSeconds;
+        final LocalDateTime playedAt;
+        final Score score;
+
+        Entry(Score score) {
+            this.userId = score.getUser().getId();
+            this.attempts = score.getAttempts();
+            this.timeSeconds = score.getTimeSeconds();
+            this.playedAt = score.getPlayedAt();
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.myapp.services;
+
+import java.net.InetAddress;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limitation des tentatives de connexion, en mémoire, avant toute requête ou calcul de hash.
+ * Deux fenêtres glissantes d'échecs : par nom d'utilisateur (verrouillage du compte visé) et par source
+ * (poste d'où partent les tentatives). Un poste en libre accès est partagé par tous les joueurs : la fenêtre
+ * de la source ne compte que les noms d'utilisateur inconnus (balayage de noms) et sa limite est bien plus haute,
+ * pour qu'un joueur qui se trompe de mot de passe ne bloque pas les autres.
+ * checkAttempt réserve une place pour la tentative dans la fenêtre du compte, sous le même verrou que la vérification :
+ * des tentatives simultanées sur un même compte ne peuvent pas dépasser la limite. La réservation (Attempt) compte
+ * comme un échec en cours jusqu'à son issue : recordFailure ou recordUnknownUser la changent en échec daté,
+ * recordSuccess ou release la libèrent. Elle n'occupe aucune case du tampon : libérer une tentative n'efface
+ * jamais l'échec d'une autre.
+ * Chaque fenêtre garde les horodatages de ses derniers échecs dans un tampon circulaire de la taille de la limite :
+ * la limite est atteinte quand les réservations en cours et les échecs encore dans la fenêtre la remplissent.
+ * Les fenêtres sont protégées par des verrous répartis (STRIPES) : deux noms différents ne se bloquent presque jamais.
+ */
+public class LoginThrottle {
+    private static final int MAX_USER_FAILURES = Math.max(1, Integer.getInteger("login.maxUserFailures", 5));
+    private static final long USER_WINDOW_MS = Long.getLong("login.userWindowMs", 15 * 60_000L);
+    private static final int MAX_SOURCE_FAILURES = Math.max(1, Integer.getInteger("login.maxSourceFailures", 100));
+    private static final long SOURCE_WINDOW_MS = Long.getLong("login.sourceWindowMs", 15 * 60_000L);
+    // Au-delà, les fenêtres expirées sont purgées (noms inventés d'une attaque par dictionnaire)
+    private static final int MAX_TRACKED = Integer.getInteger("login.maxTracked", 10_000);
+    private static final int STRIPES = 64;
+
+    /**
+     * Source des tentatives faites depuis ce poste
+     */
+    public static final String LOCAL_SOURCE = localSource();
+
+    private static LoginThrottle instance;
+
+    private final Object[] locks = new Object[STRIPES];
+    private final Map<String, Window> users = new ConcurrentHashMap<>();
+    private final Map<String, Window> sources = new ConcurrentHashMap<>();
+
+    private final AtomicLong allowed = new AtomicLong();
+    private final AtomicLong rejectedUser = new AtomicLong();
+    private final AtomicLong rejectedSource = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private LoginThrottle() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public static synchronized LoginThrottle getInstance() {
+        if (instance == null) {
+            instance = new LoginThrottle();
+        }
+        return instance;
+    }
+
+    /**
+     * Tentative acceptée ou refusée par checkAttempt ; une tentative acceptée est réglée une seule fois
+     * (échec, succès ou libération), les appels suivants sont sans effet. Propre au thread de la connexion.
+     */
+    public static final class Attempt {
+        private final String key;
+        private final long waitMillis;
+        private boolean settled;
+
+        private Attempt(String key, long waitMillis) {
+            this.key = key;
+            this.waitMillis = waitMillis;
+            this.settled = waitMillis > 0; // refusée : rien n'a été réservé
+        }
+
+        /**
+         * @return délai d'attente restant en millisecondes, 0 si la tentative peut avoir lieu
+         */
+        public long waitMillis() {
+            return waitMillis;
+        }
+
+        public boolean isAllowed() {
+            return waitMillis == 0;
+        }
+    }
+
+    /**
+     * Échecs récents d'une clé, dans un tampon circulaire, et réservations en cours (accès sous le verrou de la clé)
+     */
+    private static final class Window {
+        private final long[] failures;
+        private final long windowMillis;
+        private int next;
+        private int count;
+        private int pending;
+
+        Window(int limit, long windowMillis) {
+            this.failures = new long[limit];
+            this.windowMillis = windowMillis;
+        }
+
+        /**
+         * Instant à partir duquel une nouvelle tentative sera acceptée, 0 si elle l'est déjà
+         */
+        long blockedUntil(long now) {
+            // Échecs datés encore nécessaires pour atteindre la limite, les réservations comptant comme des échecs
+            int needed = failures.length - pending;
+            if (needed <= 0) return now + windowMillis;
+            if (count < needed) return 0;
+            long until = failures[(next + failures.length - needed) % failures.length] + windowMillis;
+            return until > now ? until : 0;
+        }
+
+        void record(long now) {
+            failures[next] = now;
+            next = (next + 1) % failures.length;
+            count = Math.min(count + 1, failures.length);
+        }
+
+        void forgetFailures() {
+            next = 0;
+            count = 0;
+        }
+
+        boolean isExpired(long now) {
+            return pending == 0
+                    && (count == 0 || failures[(next + failures.length - 1) % failures.length] + windowMillis <= now);
+        }
+    }
+
+    /**
+     * Vérifie qu'une tentative est permise et, si oui, lui réserve une place dans la fenêtre du compte
+     * @return la tentative, à régler par recordFailure, recordUnknownUser, recordSuccess ou release si elle est permise
+     */
+    public Attempt checkAttempt(String username, String source) {
+        long now = System.currentTimeMillis();
+        String key = userKey(username);
+        long sourceWait = waitFor(sources, source, now);
+        if (sourceWait > 0) {
+            rejectedSource.incrementAndGet();
+            return new Attempt(key, sourceWait);
+        }
+        long userWait;
+        synchronized (lockFor(key)) {
+            Window window = users.computeIfAbsent(key, k -> new Window(MAX_USER_FAILURES, USER_WINDOW_MS));
+            long until = window.blockedUntil(now);
+            userWait = until == 0 ? 0 : until - now;
+            if (userWait == 0) {
+                window.pending++;
+            }
+        }
+        if (userWait > 0) {
+            rejectedUser.incrementAndGet();
+            return new Attempt(key, userWait);
+        }
+        if (users.size() > MAX_TRACKED) {
+            evictExpired(users, now);
+        }
+        allowed.incrementAndGet();
+        return new Attempt(key, 0);
+    }
+
+    /**
+     * Mot de passe incorrect : la réservation devient un échec du compte
+     */
+    public void recordFailure(Attempt attempt) {
+        if (settle(attempt, true)) {
+            failures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Nom d'utilisateur inconnu : échec du compte et de la source
+     */
+    public void recordUnknownUser(Attempt attempt, String source) {
+        if (settle(attempt, true)) {
+            failures.incrementAndGet();
+            record(sources, source, MAX_SOURCE_FAILURES, SOURCE_WINDOW_MS, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Connexion réussie : les échecs du compte sont oubliés (ceux de la source restent comptés) ;
+     * les réservations des autres tentatives en cours sur le compte sont conservées
+     */
+    public void recordSuccess(Attempt attempt) {
+        if (attempt.settled) return;
+        synchronized (lockFor(attempt.key)) {
+            Window window = users.get(attempt.key);
+            if (window != null) {
+                window.forgetFailures();
+            }
+        }
+        settle(attempt, false);
+    }
+
+    /**
+     * Tentative terminée sans échec de mot de passe (compte désactivé, réinitialisation, exception) :
+     * libère sa réservation. Sans effet si la tentative est déjà réglée, ce qui permet l'appel dans un finally.
+     */
+    public void release(Attempt attempt) {
+        settle(attempt, false);
+    }
+
+    /**
+     * Règle la réservation d'une tentative, en échec daté si failed
+     * @return false si la tentative était déjà réglée (ou refusée)
+     */
+    private boolean settle(Attempt attempt, boolean failed) {
+        if (attempt.settled) return false;
+        attempt.settled = true;
+        long now = System.currentTimeMillis();
+        synchronized (lockFor(attempt.key)) {
+            Window window = users.get(attempt.key);
+            if (window == null) {
+                // Fenêtre purgée entre-temps : impossible tant qu'une réservation est en cours, par prudence
+                if (failed) {
+                    users.computeIfAbsent(attempt.key, k -> new Window(MAX_USER_FAILURES, USER_WINDOW_MS)).record(now);
+                }
+                return true;
+            }
+            if (window.pending > 0) {
+                window.pending--;
+            }
+            if (failed) {
+                window.record(now);
+            } else if (window.pending == 0 && window.count == 0) {
+                users.remove(attempt.key);
+            }
+        }
+        return true;
+    }
+
+    private long waitFor(Map<String, Window> windows, String key, long now) {
+        synchronized (lockFor(key)) {
+            Window window = windows.get(key);
+            if (window == null) return 0;
+            long until = window.blockedUntil(now);
+            return until == 0 ? 0 : until - now;
+        }
+    }
+
+    private void record(Map<String, Window> windows, String key, int limit, long windowMillis, long now) {
+        synchronized (lockFor(key)) {
+            windows.computeIfAbsent(key, k -> new Window(limit, windowMillis)).record(now);
+        }
+        if (windows.size() > MAX_TRACKED) {
+            evictExpired(windows, now);
+        }
+    }
+
+    private void evictExpired(Map<String, Window> windows, long now) {
+        Iterator<Map.Entry<String, Window>> it = windows.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Window> entry = it.next();
+            synchronized (lockFor(entry.getKey())) {
+                if (entry.getValue().isExpired(now)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private Object lockFor(String key) {
+        return locks[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static String userKey(String username) {
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String localSource() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "local";
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("connexions: %d permises, %d refusées (compte), %d refusées (source), %d échecs, %d compte(s) suivi(s)",
+                allowed.get(), rejectedUser.get(), rejectedSource.get(), failures.get(), users.size());
+    }
+}
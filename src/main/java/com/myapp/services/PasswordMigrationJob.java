@@ -0,0 +1,169 @@
+package com.myapp.services;
+
+import com.myapp.dao.PasswordMigrationDAO;
+import com.myapp.dao.PasswordMigrationDAO.Checkpoint;
+import com.myapp.dao.PasswordMigrationDAO.HashRow;
+import com.myapp.dao.PasswordMigrationDAO.HashUpdate;
+import com.myapp.utils.HashExecutor;
+import com.myapp.utils.PasswordUtils;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Migration des anciens hashes de mots de passe, sans arrêt de l'application :
+ * 1. la table users est lue par pages de PAGE_SIZE comptes, par clé (id croissant) ;
+ * 2. chaque hash est classé (PasswordUtils.classify) :
+ *    - un mot de passe seulement encodé en Base64 est re-haché au format courant, en parallèle sur HashExecutor,
+ *      au plus MAX_IN_FLIGHT à la fois : le reste de l'exécuteur reste libre pour les connexions ;
+ *    - un hash absent ou illisible est remplacé par PasswordUtils.RESET_MARKER (réinitialisation par un administrateur) ;
+ *    - un ancien hash reconnu est laissé tel quel : il sera re-haché à la prochaine connexion ;
+ * 3. les modifications de la page sont écrites en un lot JDBC, avec le point de reprise, dans une transaction.
+ * Une migration interrompue reprend après le dernier compte enregistré.
+ */
+public class PasswordMigrationJob {
+    public static final String JOB = "legacy-password-hashes";
+    // Comptes lus, hachés et écrits par transaction
+    private static final int PAGE_SIZE = Math.max(1, Integer.getInteger("passwordMigration.pageSize", 500));
+    // Pause entre deux pages
+    private static final long PAUSE_MS = Long.getLong("passwordMigration.pauseMs", 20);
+    // Hachages de la migration en cours ou en file sur HashExecutor (file FIFO partagée avec les connexions) :
+    // une page entière soumise d'un coup ferait attendre chaque connexion derrière des secondes de calcul
+    private static final int MAX_IN_FLIGHT = Math.max(1, Integer.getInteger("passwordMigration.maxInFlight",
+            HashExecutor.THREADS / 2));
+
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+
+    private final PasswordMigrationDAO dao = new PasswordMigrationDAO();
+
+    /**
+     * Avancement : comptes parcourus sur le total estimé, et débit depuis le début de cette exécution
+     */
+    public interface ProgressListener {
+        void onProgress(long scanned, long total, long rehashed, long reset, double usersPerSecond);
+    }
+
+    /**
+     * Bilan cumulé (y compris les exécutions précédentes interrompues)
+     * @param upgradeOnLogin anciens hashes reconnus, laissés pour la mise à niveau à la connexion (cette exécution)
+     * @param skipped hashes modifiés par ailleurs pendant la migration, non écrasés (cette exécution)
+     */
+    public record MigrationReport(long scanned, long rehashed, long reset, long upgradeOnLogin, long skipped,
+                                  boolean resumed, long elapsedMillis) {
+        public double usersPerSecond() {
+            return elapsedMillis == 0 ? 0 : scanned * 1000.0 / elapsedMillis;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d compte(s) parcouru(s), %d re-haché(s), %d à réinitialiser, "
+                            + "%d à mettre à niveau à la connexion, %d ignoré(s)%s, %.1f s (%.0f comptes/s)",
+                    scanned, rehashed, reset, upgradeOnLogin, skipped, resumed ? " (reprise)" : "",
+                    elapsedMillis / 1000.0, usersPerSecond());
+        }
+    }
+
+    public MigrationReport run(ProgressListener listener) throws SQLException {
+        long start = System.currentTimeMillis();
+        Checkpoint saved = dao.loadCheckpoint(JOB);
+        boolean resumed = saved != null;
+        Checkpoint checkpoint = resumed ? saved : Checkpoint.START;
+        if (resumed) {
+            System.out.println("Migration des mots de passe reprise après le compte " + checkpoint.lastUserId());
+        }
+        long total = checkpoint.scanned() + dao.countAfter(checkpoint.lastUserId());
+        long scannedThisRun = 0;
+        long upgradeOnLogin = 0;
+        long skipped = 0;
+
+        List<HashRow> page;
+        while (!(page = dao.findPage(checkpoint.lastUserId(), PAGE_SIZE)).isEmpty()) {
+            List<HashUpdate> updates = new ArrayList<>();
+            List<CompletableFuture<HashUpdate>> rehashes = new ArrayList<>();
+            for (HashRow row : page) {
+                switch (PasswordUtils.classify(row.passwordHash())) {
+                    case BASE64_PLAINTEXT -> rehashes.add(rehash(row));
+                    case UNKNOWN -> updates.add(new HashUpdate(row.id(), row.passwordHash(), PasswordUtils.RESET_MARKER));
+                    case UPGRADE_ON_LOGIN -> upgradeOnLogin++;
+                    case CURRENT, RESET -> { }
+                }
+            }
+            for (CompletableFuture<HashUpdate> rehash : rehashes) {
+                updates.add(join(rehash));
+            }
+
+            Checkpoint previous = checkpoint;
+            int lastId = page.get(page.size() - 1).id();
+            long scanned = previous.scanned() + page.size();
+            checkpoint = dao.applyPage(JOB, updates, applied -> {
+                // Seules les modifications appliquées comptent ; un mot de passe changé entre la lecture
+                // et l'écriture garde son nouveau hash
+                long rehashed = previous.rehashed();
+                long reset = previous.reset();
+                for (int i = 0; i < applied.length; i++) {
+                    if (!applied[i]) continue;
+                    if (PasswordUtils.RESET_MARKER.equals(updates.get(i).newHash())) reset++;
+                    else rehashed++;
+                }
+                return new Checkpoint(lastId, scanned, rehashed, reset);
+            });
+            skipped += updates.size() - (checkpoint.rehashed() - previous.rehashed())
+                    - (checkpoint.reset() - previous.reset());
+            scannedThisRun += page.size();
+
+            if (listener != null) {
+                double elapsed = Math.max(1, System.currentTimeMillis() - start) / 1000.0;
+                listener.onProgress(checkpoint.scanned(), Math.max(total, checkpoint.scanned()),
+                        checkpoint.rehashed(), checkpoint.reset(), scannedThisRun / elapsed);
+            }
+            if (page.size() < PAGE_SIZE) break;
+            pause();
+        }
+
+        dao.clearCheckpoint(JOB);
+        long elapsed = System.currentTimeMillis() - start;
+        return new MigrationReport(checkpoint.scanned(), checkpoint.rehashed(), checkpoint.reset(),
+                upgradeOnLogin, skipped, resumed, elapsed);
+    }
+
+    /**
+     * Re-hache un mot de passe encodé en Base64 ; bloque tant que MAX_IN_FLIGHT hachages de la migration sont en cours
+     */
+    private CompletableFuture<HashUpdate> rehash(HashRow row) throws SQLException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Migration des mots de passe interrompue", e);
+        }
+        String password = PasswordUtils.legacyPlaintext(row.passwordHash());
+        return PasswordUtils.hashPasswordAsync(password)
+                .whenComplete((hash, error) -> inFlight.release())
+                .thenApply(hash -> new HashUpdate(row.id(), row.passwordHash(), hash));
+    }
+
+    private static HashUpdate join(CompletableFuture<HashUpdate> rehash) throws SQLException {
+        try {
+            return rehash.join();
+        } catch (CompletionException e) {
+            throw new SQLException("Hachage impossible pendant la migration", e.getCause());
+        }
+    }
+
+    /**
+     * Laisse passer les connexions et parties des autres postes entre deux pages
+     */
+    private static void pause() throws SQLException {
+        if (PAUSE_MS <= 0) return;
+        try {
+            Thread.sleep(PAUSE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Migration des mots de passe interrompue", e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.myapp.services;
+
+import com.myapp.dao.RollupDAO;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Maintenance des tables d'agrégats (score_daily_theme, score_daily_user, score_user_theme).
+ * Les agrégats sont tenus à jour par les DAO dans les transactions d'écriture ;
+ * rebuild() les recalcule entièrement, par tranches de jours puis de joueurs.
+ */
+public class RollupService {
+    // Nombre de jours (agrégats quotidiens) et de joueurs (totaux) recalculés par transaction lors d'une reconstruction
+    private static final int REBUILD_DAYS = Math.max(1, Integer.getInteger("rollup.rebuildDays", 31));
+    private static final int REBUILD_USERS = Math.max(1, Integer.getInteger("rollup.rebuildUsers", 500));
+
+    private final RollupDAO dao = new RollupDAO();
+
+    /**
+     * Avancement d'une reconstruction
+     */
+    public interface ProgressListener {
+        void onProgress(LocalDate doneUntil, LocalDate last, int rowsWritten);
+    }
+
+    /**
+     * Recalcule tous les agrégats depuis la table scores, une transaction par tranche de jours puis de joueurs
+     * @return nombre de lignes d'agrégats écrites
+     */
+    public int rebuild(ProgressListener listener) throws SQLException {
+        return rebuildDays(listener) + rebuildTotals();
+    }
+
+    private int rebuildDays(ProgressListener listener) throws SQLException {
+        LocalDate[] range = dao.findScoreDayRange();
+        if (range == null) {
+            return 0;
+        }
+        LocalDate last = range[1];
+        int written = 0;
+        for (LocalDate from = range[0]; !from.isAfter(last); from = from.plusDays(REBUILD_DAYS)) {
+            LocalDate to = from.plusDays(REBUILD_DAYS);
+            written += dao.rebuildRange(from, to);
+            if (listener != null) {
+                listener.onProgress(to.isAfter(last) ? last : to.minusDays(1), last, written);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Totaux joueur/thème, une transaction par tranche d'identifiants de joueurs
+     */
+    private int rebuildTotals() throws SQLException {
+        int[] range = dao.findScoreUserRange();
+        if (range == null) {
+            return 0;
+        }
+        int written = 0;
+        for (long from = range[0]; from <= range[1]; from += REBUILD_USERS) {
+            written += dao.rebuildTotals((int) from, (int) Math.min(from + REBUILD_USERS, (long) range[1] + 1));
+        }
+        return written;
+    }
+
+    /**
+     * Remplit les agrégats en arrière-plan s'ils sont vides (première exécution après une migration)
+     */
+    public void rebuildIfEmptyAsync() {
+        Thread worker = new Thread(() -> {
+            try {
+                boolean days = dao.isEmpty();
+                boolean totals = dao.isTotalsEmpty();
+                if (!days && !totals) return;
+                long start = System.currentTimeMillis();
+                int written = (days ? rebuildDays(null) : 0) + (totals ? rebuildTotals() : 0);
+                if (written > 0) {
+                    System.out.println("Agrégats des scores reconstruits: " + written + " lignes en "
+                            + (System.currentTimeMillis() - start) + " ms");
+                }
+            } catch (SQLException e) {
+                System.err.println("Reconstruction des agrégats impossible: " + e.getMessage());
+            }
+        }, "rollup-rebuild");
+        worker.setDaemon(true);
+        worker.start();
+    }
+}
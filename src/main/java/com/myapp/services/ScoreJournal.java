@@ -0,0 +1,493 @@
+package com.myapp.services;
+
+import com.myapp.config.CircuitBreaker;
+import com.myapp.dao.ScoreDAO;
+import com.myapp.models.Score;
+import com.myapp.models.Theme;
+import com.myapp.models.User;
+import com.myapp.utils.LatencyHistogram;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Journal local des scores (write-ahead log), en ajout seul via FileChannel.
+ * Chaque score est écrit et synchronisé sur disque avant d'être confié à la base ; les appels
+ * concurrents partagent un même fsync (group commit). Une fois le score validé en base, un
+ * enregistrement d'acquittement est ajouté.
+ * Les scores non acquittés (base indisponible, arrêt brutal) sont rejoués par un thread de fond
+ * avec une insertion idempotente dès que la base répond. Un score que la base refuse définitivement
+ * est recopié dans un fichier des rejets (scores.rejected) puis acquitté.
+ *
+ * Format d'un enregistrement : [longueur int][crc32 int][type byte][données].
+ * Un enregistrement incomplet ou corrompu en fin de fichier (écriture interrompue) est tronqué à l'ouverture.
+ */
+public class ScoreJournal {
+    private static final Path PATH = Paths.get(System.getProperty("scores.journal.path",
+            Paths.get(System.getProperty("user.home"), ".memory-game", "scores.journal").toString()));
+    // Scores refusés définitivement par la base, écartés du journal pour ne pas bloquer les suivants
+    private static final Path REJECTED_PATH = Paths.get(System.getProperty("scores.journal.rejectedPath",
+            PATH.resolveSibling("scores.rejected").toString()));
+    private static final long REPLAY_INTERVAL_MS = Long.getLong("scores.journal.replayIntervalMs", 5000);
+    private static final long COMPACT_THRESHOLD_BYTES = Long.getLong("scores.journal.compactBytes", 1024 * 1024);
+
+    private static final byte TYPE_SCORE = 1;
+    private static final byte TYPE_ACK = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int SCORE_PAYLOAD_BYTES = 1 + 8 + 4 * 4 + 8;
+    private static final int ACK_PAYLOAD_BYTES = 1 + 8;
+
+    private static ScoreJournal instance;
+
+    private final ScoreDAO dao;
+    private final Object lock = new Object();
+    private final Object syncLock = new Object();
+    private final Map<Long, Entry> unacked = new LinkedHashMap<>();
+    // Scores confiés à la file d'écriture : ils seront acquittés par elle, le rejeu les ignore
+    private final Map<Score, Long> pending = new IdentityHashMap<>();
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong acknowledged = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong quarantined = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+    private final LatencyHistogram appendLatency = new LatencyHistogram();
+    private final Thread replayer;
+
+    private FileChannel channel;
+    private long nextSeq = 1;
+    private long writtenPosition;
+    private long syncedPosition;
+    private volatile boolean available;
+    private volatile boolean stopping;
+    private boolean replayBlocked;
+
+    private ScoreJournal(ScoreDAO dao) {
+        this.dao = dao;
+        try {
+            open();
+            available = true;
+        } catch (IOException e) {
+            System.err.println("Journal des scores indisponible (" + PATH + "): " + e.getMessage());
+        }
+        this.replayer = new Thread(this::runReplayer, "score-journal-replayer");
+        this.replayer.setDaemon(true);
+        if (available) {
+            this.replayer.start();
+        }
+    }
+
+    public static synchronized ScoreJournal getInstance() {
+        if (instance == null) {
+            instance = new ScoreJournal(new ScoreDAO());
+        }
+        return instance;
+    }
+
+    /**
+     * Écrit un score dans le journal et attend qu'il soit sur disque.
+     * Le score est considéré comme confié à la file d'écriture jusqu'à acknowledge ou release.
+     * @return false si le journal est indisponible
+     */
+    public boolean append(Score score) {
+        if (!available || stopping) return false;
+        long start = System.nanoTime();
+        long end;
+        try {
+            synchronized (lock) {
+                long seq = nextSeq++;
+                Entry entry = Entry.of(seq, score);
+                writeFully(entry.encode());
+                end = writtenPosition;
+                unacked.put(seq, entry);
+                pending.put(score, seq);
+            }
+            sync(end);
+        } catch (IOException e) {
+            System.err.println("Erreur d'écriture du journal des scores: " + e.getMessage());
+            available = false;
+            return false;
+        }
+        appended.incrementAndGet();
+        appendLatency.recordNanos(System.nanoTime() - start);
+        return true;
+    }
+
+    /**
+     * Marque des scores comme validés en base.
+     * L'acquittement n'est pas synchronisé sur disque : s'il est perdu, le rejeu idempotent ne crée pas de doublon.
+     */
+    public void acknowledge(Collection<Score> scores) {
+        if (!available) return;
+        synchronized (lock) {
+            try {
+                for (Score score : scores) {
+                    Long seq = pending.remove(score);
+                    if (seq != null) {
+                        acknowledgeSeq(seq);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Erreur d'écriture du journal des scores: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Écarte un score que la base refuse définitivement (contrainte violée, donnée invalide) :
+     * il est recopié dans le fichier des rejets puis acquitté, pour que les scores suivants passent
+     */
+    public void quarantine(Score score, SQLException cause) {
+        Long seq;
+        synchronized (lock) {
+            seq = pending.remove(score);
+        }
+        Entry entry = seq != null ? unackedEntry(seq) : null;
+        writeRejected(entry != null ? entry : Entry.of(0, score), cause);
+        if (seq != null) {
+            acknowledgeQuietly(seq);
+        }
+    }
+
+    /**
+     * Rend au rejeu un score que la file d'écriture n'a pas pris en charge
+     */
+    public void release(Score score) {
+        synchronized (lock) {
+            pending.remove(score);
+        }
+    }
+
+    private Entry unackedEntry(long seq) {
+        synchronized (lock) {
+            return unacked.get(seq);
+        }
+    }
+
+    private void acknowledgeQuietly(long seq) {
+        if (!available) return;
+        synchronized (lock) {
+            try {
+                acknowledgeSeq(seq);
+            } catch (IOException e) {
+                System.err.println("Erreur d'écriture du journal des scores: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Ajoute une ligne au fichier des rejets : date du rejet, score, puis l'erreur SQL
+     */
+    private void writeRejected(Entry entry, SQLException cause) {
+        quarantined.incrementAndGet();
+        String line = LocalDateTime.now() + "\t" + entry.userId + "\t" + entry.themeId + "\t" + entry.attempts
+                + "\t" + entry.timeSeconds + "\t" + entry.playedAt + "\t" + cause.getSQLState()
+                + "\t" + cause.getErrorCode() + "\t" + cause.getMessage() + System.lineSeparator();
+        System.err.println("Score du joueur " + entry.userId + " refusé par la base, écarté dans "
+                + REJECTED_PATH + ": " + cause.getMessage());
+        try {
+            Files.createDirectories(REJECTED_PATH.toAbsolutePath().getParent());
+            Files.writeString(REJECTED_PATH, line, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Erreur d'écriture du fichier des rejets: " + e.getMessage());
+        }
+    }
+
+    private void acknowledgeSeq(long seq) throws IOException {
+        if (unacked.remove(seq) == null) return;
+        ByteBuffer payload = ByteBuffer.allocate(ACK_PAYLOAD_BYTES);
+        payload.put(TYPE_ACK).putLong(seq).flip();
+        writeFully(frame(payload));
+        acknowledged.incrementAndGet();
+    }
+
+    /**
+     * Synchronise le fichier au moins jusqu'à target ; un seul fsync couvre toutes les écritures déjà faites
+     */
+    private void sync(long target) throws IOException {
+        synchronized (syncLock) {
+            if (syncedPosition >= target) return;
+            long upTo;
+            synchronized (lock) {
+                upTo = writtenPosition;
+            }
+            channel.force(false);
+            fsyncs.incrementAndGet();
+            syncedPosition = upTo;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        writtenPosition = channel.position();
+    }
+
+    private void runReplayer() {
+        while (!stopping) {
+            replayOrphans();
+            compactIfNeeded();
+            try {
+                Thread.sleep(REPLAY_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Insère en base les scores non acquittés qui ne sont pas dans la file d'écriture
+     */
+    private void replayOrphans() {
+        List<Entry> orphans = new ArrayList<>();
+        synchronized (lock) {
+            Set<Long> handedOff = new HashSet<>(pending.values());
+            for (Entry entry : unacked.values()) {
+                if (!handedOff.contains(entry.seq)) orphans.add(entry);
+            }
+        }
+        if (orphans.isEmpty()) return;
+
+        int count = 0;
+        for (Entry entry : orphans) {
+            if (stopping) break;
+            try {
+                dao.writeIfAbsent(entry.toScore());
+            } catch (SQLException e) {
+                if (CircuitBreaker.isOutage(e)) {
+                    // Base injoignable : inutile d'essayer les suivants, un seul message par panne
+                    if (!replayBlocked) {
+                        replayBlocked = true;
+                        System.err.println("Journal des scores: rejeu suspendu, base indisponible (" + e.getMessage() + ")");
+                    }
+                    break;
+                }
+                // Délai ou interblocage : le score sera retenté au prochain passage ; refus définitif : il est écarté
+                if (!CircuitBreaker.isTransient(e)) {
+                    writeRejected(entry, e);
+                    acknowledgeQuietly(entry.seq);
+                }
+                continue;
+            }
+            replayBlocked = false;
+            acknowledgeQuietly(entry.seq);
+            count++;
+        }
+        if (count > 0) {
+            replayed.addAndGet(count);
+            // Les scores rejoués ne portent que des identifiants : recharger le classement
+            LeaderboardIndex.getInstance().invalidate();
+            System.out.println("Journal des scores: " + count + " score(s) rejoué(s) en base");
+        }
+    }
+
+    /**
+     * Vide le fichier quand tout est acquitté, ou le réécrit avec les seuls scores en attente s'il devient trop gros
+     */
+    private void compactIfNeeded() {
+        synchronized (syncLock) {
+            synchronized (lock) {
+                try {
+                    long size = channel.size();
+                    if (unacked.isEmpty() && size > 0) {
+                        channel.truncate(0);
+                        channel.position(0);
+                        writtenPosition = 0;
+                        syncedPosition = 0;
+                    } else if (size >= COMPACT_THRESHOLD_BYTES) {
+                        rewriteUnacked();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Erreur lors du compactage du journal des scores: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void rewriteUnacked() throws IOException {
+        Path tmp = PATH.resolveSibling(PATH.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (Entry entry : unacked.values()) {
+                ByteBuffer buffer = entry.encode();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+            out.force(true);
+        }
+        channel.close();
+        Files.move(tmp, PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(PATH, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        writtenPosition = channel.position();
+        syncedPosition = writtenPosition;
+    }
+
+    /**
+     * Ouvre le journal et reconstruit la liste des scores non acquittés
+     */
+    private void open() throws IOException {
+        Files.createDirectories(PATH.toAbsolutePath().getParent());
+        channel = FileChannel.open(PATH, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        long size = channel.size();
+        long position = 0;
+        long maxSeq = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        CRC32 crc = new CRC32();
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            channel.read(header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || length > SCORE_PAYLOAD_BYTES || position + HEADER_BYTES + length > size) break;
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            channel.read(payload, position + HEADER_BYTES);
+            payload.flip();
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) break;
+
+            byte type = payload.get();
+            long seq = payload.getLong();
+            if (type == TYPE_SCORE && length == SCORE_PAYLOAD_BYTES) {
+                unacked.put(seq, Entry.decode(seq, payload));
+            } else if (type == TYPE_ACK) {
+                unacked.remove(seq);
+            } else {
+                break;
+            }
+            maxSeq = Math.max(maxSeq, seq);
+            position += HEADER_BYTES + length;
+        }
+
+        if (position < size) {
+            System.err.println("Journal des scores: fin de fichier incomplète ignorée (" + (size - position) + " octets)");
+            channel.truncate(position);
+            channel.force(false);
+        }
+        channel.position(position);
+        writtenPosition = position;
+        syncedPosition = position;
+        nextSeq = maxSeq + 1;
+        if (!unacked.isEmpty()) {
+            System.out.println("Journal des scores: " + unacked.size() + " score(s) à rejouer");
+        }
+    }
+
+    private static ByteBuffer frame(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + payload.remaining());
+        buffer.putInt(payload.remaining()).putInt((int) crc.getValue()).put(payload).flip();
+        return buffer;
+    }
+
+    /**
+     * Arrête le rejeu et ferme le fichier ; les scores non acquittés seront rejoués au prochain démarrage
+     */
+    public void shutdown() {
+        if (stopping) return;
+        stopping = true;
+        replayer.interrupt();
+        try {
+            replayer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!available) return;
+        available = false;
+        synchronized (syncLock) {
+            synchronized (lock) {
+                try {
+                    channel.force(false);
+                    channel.close();
+                } catch (IOException e) {
+                    System.err.println("Erreur lors de la fermeture du journal des scores: " + e.getMessage());
+                }
+            }
+        }
+        System.out.println("Journal des scores: " + getStats());
+    }
+
+    public Stats getStats() {
+        int unackedCount;
+        int pendingCount;
+        long bytes;
+        synchronized (lock) {
+            unackedCount = unacked.size();
+            pendingCount = pending.size();
+            bytes = writtenPosition;
+        }
+        return new Stats(unackedCount, pendingCount, appended.get(), acknowledged.get(), replayed.get(),
+                quarantined.get(), fsyncs.get(), appendLatency.getMeanMillis(), appendLatency.getPercentileMillis(99), bytes);
+    }
+
+    /**
+     * Instantané des compteurs du journal ; latences d'ajout (écriture + fsync) en millisecondes
+     */
+    public record Stats(int unacked, int pending, long appended, long acknowledged, long replayed,
+                        long quarantined, long fsyncs, double appendMeanMillis, double appendP99Millis, long fileBytes) {
+    }
+
+    /**
+     * Score tel qu'enregistré dans le journal (identifiants seulement)
+     */
+    private record Entry(long seq, int userId, int themeId, int attempts, int timeSeconds, LocalDateTime playedAt) {
+
+        static Entry of(long seq, Score score) {
+            int themeId = score.getTheme() != null ? score.getTheme().getId() : 0;
+            return new Entry(seq, score.getUser().getId(), themeId, score.getAttempts(),
+                    score.getTimeSeconds(), score.getPlayedAt());
+        }
+
+        static Entry decode(long seq, ByteBuffer payload) {
+            int userId = payload.getInt();
+            int themeId = payload.getInt();
+            int attempts = payload.getInt();
+            int timeSeconds = payload.getInt();
+            LocalDateTime playedAt = LocalDateTime.ofEpochSecond(payload.getLong(), 0, ZoneOffset.UTC);
+            return new Entry(seq, userId, themeId, attempts, timeSeconds, playedAt);
+        }
+
+        ByteBuffer encode() {
+            ByteBuffer payload = ByteBuffer.allocate(SCORE_PAYLOAD_BYTES);
+            payload.put(TYPE_SCORE).putLong(seq)
+                    .putInt(userId).putInt(themeId).putInt(attempts).putInt(timeSeconds)
+                    .putLong(playedAt.toEpochSecond(ZoneOffset.UTC))
+                    .flip();
+            return frame(payload);
+        }
+
+        Score toScore() {
+            User user = new User();
+            user.setId(userId);
+            Theme theme = themeId != 0 ? new Theme(themeId, null) : null;
+            return new Score(0, user, theme, attempts, timeSeconds, playedAt);
+        }
+    }
+}
@@ -1,27 +1,101 @@
 package com.myapp.services;
 
 import com.myapp.dao.ScoreDAO;
+import com.myapp.models.PlayerStats;
 import com.myapp.models.Score;
+import com.myapp.models.ScoreCursor;
+import com.myapp.models.ScorePage;
 
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service pour la gestion des scores
  * Respecte les relations UML Score-User-Theme
  */
 public class ScoreService {
+    // Délai maximal accordé à la file d'écriture avant une lecture, pour relire ses propres scores
+    private static final long READ_AFTER_WRITE_WAIT_MS = 2000;
+    // Durée de chacune des deux périodes comparées pour la tendance du profil
+    private static final int STATS_TREND_DAYS = Math.max(1, Integer.getInteger("stats.trendDays", 30));
+
     private final ScoreDAO dao = new ScoreDAO();
+    private final ScoreJournal journal = ScoreJournal.getInstance();
+    private final ScoreWriteBehindQueue writeBehind = ScoreWriteBehindQueue.getInstance();
+    private final LeaderboardIndex leaderboard = LeaderboardIndex.getInstance();
 
+    /**
+     * Enregistre un score : journal local d'abord (sur disque), puis file d'écriture différée, sans attendre la base.
+     * Si la file est saturée, le score est inséré directement ; si la base est indisponible,
+     * le journal le rejouera plus tard.
+     */
     public boolean saveScore(Score s) { 
-        return dao.insert(s); 
+        // La base ne conserve que la seconde : le journal et le rejeu doivent voir la même date
+        if (s.getPlayedAt() != null) {
+            s.setPlayedAt(s.getPlayedAt().truncatedTo(ChronoUnit.SECONDS));
+        }
+        boolean journaled = journal.append(s);
+
+        boolean saved;
+        if (writeBehind.submit(s)) {
+            saved = true;
+        } else if (dao.insert(s)) {
+            journal.acknowledge(List.of(s));
+            saved = true;
+        } else {
+            journal.release(s);
+            saved = journaled;
+        }
+        if (saved) {
+            leaderboard.onScoreSaved(s);
+        }
+        return saved;
     }
 
     public List<Score> listScoresBy(String orderBy) { 
+        awaitPendingWrites();
         return dao.findAll(orderBy); 
     }
 
+    /**
+     * Page de scores triée ("date", "date_asc", "score" ou "time"), filtrée par joueur et/ou thème (null = tous)
+     * @param after curseur de la page précédente, null pour la première page
+     */
+    public ScorePage getScorePage(String orderBy, Integer userId, Integer themeId, ScoreCursor after, int limit) {
+        if (after == null) {
+            awaitPendingWrites();
+        }
+        return dao.findPage(orderBy, userId, themeId, after, limit);
+    }
+
+    /**
+     * Meilleur score de chaque joueur, éventuellement pour un seul thème (null = tous).
+     * Servi par l'index en mémoire, chargé depuis la base au premier appel.
+     */
+    public List<Score> getLeaderboard(Integer themeId, int limit) {
+        ensureLeaderboardLoaded();
+        return leaderboard.top(themeId, limit);
+    }
+
+    /**
+     * Rang d'un joueur dans le classement (1 = premier), 0 s'il n'a pas de score
+     */
+    public int getLeaderboardRank(Integer themeId, int userId) {
+        ensureLeaderboardLoaded();
+        return leaderboard.rankOf(themeId, userId);
+    }
+
     public boolean deleteScore(int id) { 
-        return dao.delete(id); 
+        Score existing = leaderboard.isLoaded() ? dao.findById(id) : null;
+        boolean deleted = dao.delete(id);
+        if (deleted && existing != null) {
+            // Le score supprimé était peut-être le meilleur du joueur : relire celui qui le remplace
+            int userId = existing.getUser().getId();
+            int themeId = existing.getTheme().getId();
+            leaderboard.replaceBest(userId, themeId, dao.findBestForUserAndTheme(userId, themeId));
+        }
+        return deleted;
     }
 
     public Score getScore(int id) {
@@ -29,10 +103,33 @@ public class ScoreService {
     }
 
     public List<Score> getScoresByUser(int userId) {
+        awaitPendingWrites();
         return dao.findByUserId(userId);
     }
 
     public List<Score> getScoresByTheme(int themeId) {
+        awaitPendingWrites();
         return dao.findByThemeId(themeId);
     }
+
+    /**
+     * Statistiques agrégées d'un joueur pour son profil, sans charger son historique
+     */
+    public PlayerStats getPlayerStats(int userId) {
+        awaitPendingWrites();
+        return dao.findPlayerStats(userId, STATS_TREND_DAYS);
+    }
+
+    private void ensureLeaderboardLoaded() {
+        if (!leaderboard.isLoaded()) {
+            awaitPendingWrites();
+            leaderboard.loadIfNeeded(dao::findBestPerUserAndTheme);
+        }
+    }
+
+    private void awaitPendingWrites() {
+        if (writeBehind.getPendingCount() > 0) {
+            writeBehind.awaitDrained(READ_AFTER_WRITE_WAIT_MS, TimeUnit.MILLISECONDS);
+        }
+    }
 }
@@ -0,0 +1,280 @@
+package com.myapp.services;
+
+import com.myapp.config.CircuitBreaker;
+import com.myapp.dao.ScoreDAO;
+import com.myapp.models.Score;
+import com.myapp.utils.LatencyHistogram;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File d'écriture différée des scores.
+ * Les scores soumis sont regroupés par un thread dédié et insérés par lots (executeBatch dans une transaction),
+ * dès que le lot est plein ou que le plus ancien score attend depuis maxDelay.
+ * Après une erreur passagère (base injoignable, délai, interblocage), le lot est remis en tête de file
+ * et retenté avec un délai croissant, par insertion idempotente : un lot validé juste avant la perte
+ * de la connexion n'est pas inséré deux fois. Après une erreur définitive, le lot est rejoué ligne par ligne :
+ * les scores refusés sont écartés dans le fichier des rejets du journal et les autres sont écrits.
+ * Les scores validés sont acquittés dans le journal local (ScoreJournal).
+ */
+public class ScoreWriteBehindQueue {
+    private static final int BATCH_SIZE = Integer.getInteger("scores.writeBehind.batchSize", 50);
+    private static final long MAX_DELAY_MS = Long.getLong("scores.writeBehind.maxDelayMs", 250);
+    private static final int CAPACITY = Integer.getInteger("scores.writeBehind.capacity", 10_000);
+    private static final long INITIAL_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+
+    private static ScoreWriteBehindQueue instance;
+
+    private final ScoreDAO dao;
+    private final LinkedBlockingDeque<Score> queue = new LinkedBlockingDeque<>(CAPACITY);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final LatencyHistogram flushLatency = new LatencyHistogram();
+    private final Object drainMonitor = new Object();
+    // Scores dont l'écriture a échoué sur une erreur passagère : le serveur a peut-être validé avant l'erreur
+    // (perte de connexion pendant le commit). Utilisé par le seul thread d'écriture.
+    private final Set<Score> uncertain = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Thread writer;
+    private volatile boolean stopping;
+
+    private ScoreWriteBehindQueue(ScoreDAO dao) {
+        this.dao = dao;
+        this.writer = new Thread(this::runWriter, "score-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "score-write-behind-shutdown"));
+    }
+
+    public static synchronized ScoreWriteBehindQueue getInstance() {
+        if (instance == null) {
+            instance = new ScoreWriteBehindQueue(new ScoreDAO());
+        }
+        return instance;
+    }
+
+    /**
+     * Soumet un score sans attendre la base
+     * @return false si la file est pleine ou arrêtée
+     */
+    public boolean submit(Score score) {
+        if (stopping || !queue.offerLast(score)) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        submitted.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Nombre de scores soumis mais pas encore validés en base
+     */
+    public int getPendingCount() {
+        return queue.size() + inFlight.get();
+    }
+
+    /**
+     * Attend que tous les scores soumis soient écrits, au plus le délai donné
+     * @return true si la file est vide
+     */
+    public boolean awaitDrained(long timeout, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (drainMonitor) {
+            while (getPendingCount() > 0) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) return false;
+                try {
+                    drainMonitor.wait(remainingMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void runWriter() {
+        List<Score> batch = new ArrayList<>(BATCH_SIZE);
+        long backoff = INITIAL_BACKOFF_MS;
+        while (true) {
+            try {
+                Score first = queue.pollFirst(MAX_DELAY_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (stopping) return;
+                    continue;
+                }
+                inFlight.incrementAndGet();
+                batch.add(first);
+                fillBatch(batch);
+
+                List<Score> retry = flush(batch);
+                boolean failed = !retry.isEmpty();
+                // Remis en file avant de vider le lot : une interruption pendant l'attente ne doit pas le dupliquer
+                requeue(retry);
+                batch.clear();
+                if (!failed) {
+                    backoff = INITIAL_BACKOFF_MS;
+                } else {
+                    if (stopping) return;
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+                }
+            } catch (InterruptedException e) {
+                requeue(batch);
+                batch.clear();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Complète le lot jusqu'à BATCH_SIZE ou jusqu'à l'échéance du premier score
+     */
+    private void fillBatch(List<Score> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_DELAY_MS);
+        while (batch.size() < BATCH_SIZE) {
+            long remaining = stopping ? 0 : deadline - System.nanoTime();
+            Score next = remaining > 0 ? queue.pollFirst(remaining, TimeUnit.NANOSECONDS) : queue.pollFirst();
+            if (next == null) break;
+            inFlight.incrementAndGet();
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Écrit un lot ; une erreur définitive fait repasser le lot ligne par ligne pour isoler les scores fautifs.
+     * Un lot contenant un score déjà tenté (erreur passagère) passe directement ligne par ligne, en insertion idempotente.
+     * @return les scores à retenter après une erreur passagère (vide si tout le lot est traité)
+     */
+    private List<Score> flush(List<Score> batch) {
+        long start = System.nanoTime();
+        try {
+            if (!Collections.disjoint(uncertain, batch)) {
+                return flushRowByRow(batch);
+            }
+            dao.writeBatch(batch);
+            completed(batch);
+            return List.of();
+        } catch (SQLException e) {
+            if (CircuitBreaker.isTransient(e)) {
+                failures.incrementAndGet();
+                uncertain.addAll(batch);
+                return batch;
+            }
+            System.err.println("Lot de " + batch.size() + " score(s) refusé, écriture ligne par ligne: " + e.getMessage());
+            return flushRowByRow(batch);
+        } finally {
+            flushLatency.recordNanos(System.nanoTime() - start);
+            flushes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Insertion idempotente score par score : un score déjà écrit avant une panne n'est pas dupliqué
+     */
+    private List<Score> flushRowByRow(List<Score> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            Score score = batch.get(i);
+            try {
+                dao.writeIfAbsent(score);
+                completed(List.of(score));
+            } catch (SQLException e) {
+                if (CircuitBreaker.isTransient(e)) {
+                    failures.incrementAndGet();
+                    List<Score> retry = new ArrayList<>(batch.subList(i, batch.size()));
+                    uncertain.addAll(retry);
+                    return retry;
+                }
+                uncertain.remove(score);
+                deadLettered.incrementAndGet();
+                ScoreJournal.getInstance().quarantine(score, e);
+                release(1);
+            }
+        }
+        return List.of();
+    }
+
+    private void completed(List<Score> scores) {
+        if (!uncertain.isEmpty()) {
+            scores.forEach(uncertain::remove);
+        }
+        ScoreJournal.getInstance().acknowledge(scores);
+        flushed.addAndGet(scores.size());
+        release(scores.size());
+    }
+
+    private void release(int count) {
+        inFlight.addAndGet(-count);
+        synchronized (drainMonitor) {
+            drainMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * Remet un lot en tête de file en conservant l'ordre de soumission
+     */
+    private void requeue(List<Score> batch) {
+        for (int i = batch.size() - 1; i >= 0; i--) {
+            queue.offerFirst(batch.get(i));
+        }
+        inFlight.addAndGet(-batch.size());
+    }
+
+    /**
+     * Arrête la file après avoir tenté d'écrire tous les scores en attente
+     */
+    public void shutdown() {
+        if (stopping) return;
+        stopping = true;
+        try {
+            writer.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int lost = getPendingCount();
+        if (lost > 0) {
+            System.err.println("File d'écriture des scores arrêtée avec " + lost + " score(s) non écrit(s)");
+        }
+        System.out.println("File d'écriture des scores: " + getStats());
+    }
+
+    public Stats getStats() {
+        return new Stats(
+                queue.size(),
+                inFlight.get(),
+                submitted.get(),
+                rejected.get(),
+                flushed.get(),
+                flushes.get(),
+                failures.get(),
+                deadLettered.get(),
+                flushLatency.getMeanMillis(),
+                flushLatency.getPercentileMillis(95),
+                flushLatency.getMaxMillis()
+        );
+    }
+
+    /**
+     * Instantané des compteurs de la file ; latences en millisecondes
+     */
+    public record Stats(int queueDepth, int inFlight, long submitted, long rejected, long flushed,
+                        long flushes, long failures, long deadLettered, double flushMeanMillis, double flushP95Millis,
+                        double flushMaxMillis) {
+    }
+}
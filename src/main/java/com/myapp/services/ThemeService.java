@@ -16,7 +16,15 @@ public class ThemeService {
 
     public boolean addTheme(Theme t) { return dao.insert(t); }
 
-    public boolean updateTheme(Theme t) { return dao.update(t); }
+    public boolean updateTheme(Theme t) {
+        boolean updated = dao.update(t);
+        if (updated) LeaderboardIndex.getInstance().invalidate();
+        return updated;
+    }
 
-    public boolean deleteTheme(int id) { return dao.delete(id); }
+    public boolean deleteTheme(int id) {
+        boolean deleted = dao.delete(id);
+        if (deleted) LeaderboardIndex.getInstance().invalidate();
+        return deleted;
+    }
 }
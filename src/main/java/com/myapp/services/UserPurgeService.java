@@ -0,0 +1,95 @@
+package com.myapp.services;
+
+import com.myapp.dao.PurgeDAO;
+import com.myapp.dao.UserAuthDAO;
+
+import java.sql.SQLException;
+
+/**
+ * Suppression définitive d'un joueur sans bloquer les autres postes :
+ * 1. le compte est désactivé (plus de connexion ni de nouvelle partie) ;
+ * 2. ses scores sont supprimés par tranches de CHUNK_SIZE, avec une pause entre deux tranches ;
+ *    les agrégats touchés par une tranche sont recalculés dans sa transaction ;
+ * 3. le compte est supprimé (ses derniers scores éventuels partent en cascade), puis le classement est invalidé.
+ * Une purge interrompue peut être relancée : elle reprend là où elle s'était arrêtée.
+ */
+public class UserPurgeService {
+    private static final int CHUNK_SIZE = Math.max(1, Integer.getInteger("purge.chunkSize", 1000));
+    private static final long PAUSE_MS = Long.getLong("purge.pauseMs", 50);
+
+    private final PurgeDAO purgeDAO = new PurgeDAO();
+    private final UserAuthDAO userAuthDAO = new UserAuthDAO();
+
+    public enum Phase {
+        SCORES("Suppression des scores"),
+        ACCOUNT("Suppression du compte");
+
+        private final String label;
+
+        Phase(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Avancement : done éléments traités sur total pour la phase en cours
+     */
+    public interface ProgressListener {
+        void onProgress(Phase phase, long done, long total);
+    }
+
+    public record PurgeResult(int userId, long scoresDeleted, long elapsedMillis) {
+        @Override
+        public String toString() {
+            return String.format("%d score(s) supprimé(s) en %.1f s", scoresDeleted, elapsedMillis / 1000.0);
+        }
+    }
+
+    public PurgeResult purge(int userId, ProgressListener listener) throws SQLException {
+        long start = System.currentTimeMillis();
+        userAuthDAO.deactivate(userId);
+
+        long total = purgeDAO.countScores(userId);
+        long deleted = 0;
+        notify(listener, Phase.SCORES, 0, total);
+        int count;
+        while ((count = purgeDAO.deleteScoreChunk(userId, CHUNK_SIZE)) > 0) {
+            deleted += count;
+            notify(listener, Phase.SCORES, deleted, Math.max(total, deleted));
+            if (count < CHUNK_SIZE) break;
+            pause();
+        }
+
+        notify(listener, Phase.ACCOUNT, 0, 1);
+        if (!userAuthDAO.deleteUser(userId)) {
+            throw new SQLException("Suppression du compte " + userId + " impossible");
+        }
+        LeaderboardIndex.getInstance().invalidate();
+        AvailabilityService.getInstance().onReleased();
+        notify(listener, Phase.ACCOUNT, 1, 1);
+        return new PurgeResult(userId, deleted, System.currentTimeMillis() - start);
+    }
+
+    private static void notify(ProgressListener listener, Phase phase, long done, long total) {
+        if (listener != null) {
+            listener.onProgress(phase, done, total);
+        }
+    }
+
+    /**
+     * Laisse passer les insertions des autres postes entre deux tranches
+     */
+    private static void pause() throws SQLException {
+        if (PAUSE_MS <= 0) return;
+        try {
+            Thread.sleep(PAUSE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Purge interrompue", e);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.myapp.services;
 
 import com.myapp.dao.UserDAO;
+import com.myapp.models.UpdateResult;
 import com.myapp.models.User;
+import com.myapp.models.UserOption;
+import com.myapp.utils.UserSession;
 import java.util.List;
 
 public class UserService {
@@ -11,6 +14,13 @@ public class UserService {
         return dao.findAll();
     }
 
+    /**
+     * Joueurs pour une liste de choix, sans charger les comptes complets
+     */
+    public List<UserOption> getUserOptions() {
+        return dao.findOptions();
+    }
+
     public User getUser(int id) {
         return dao.findById(id);
     }
@@ -19,11 +29,28 @@ public class UserService {
         return dao.insert(user);
     }
 
-    public boolean updateUser(User user) {
-        return dao.update(user);
+    /**
+     * Modifie un joueur lu à la version user.getVersion() ; CONFLICT s'il a été modifié entre-temps
+     */
+    public UpdateResult updateUser(User user) {
+        UpdateResult result = dao.update(user);
+        if (result == UpdateResult.SUCCESS) {
+            // Le classement affiche le nom des joueurs
+            LeaderboardIndex.getInstance().invalidate();
+            AvailabilityService.getInstance().onTaken(user.getUsername(), user.getEmail());
+            AvailabilityService.getInstance().onReleased();
+            // Profil de l'utilisateur connecté modifié : la session garde la version à jour
+            UserSession.getInstance().refreshUser(user);
+        }
+        return result;
     }
 
     public boolean deleteUser(int id) {
-        return dao.delete(id);
+        boolean deleted = dao.delete(id);
+        if (deleted) {
+            LeaderboardIndex.getInstance().invalidate();
+            AvailabilityService.getInstance().onReleased();
+        }
+        return deleted;
     }
 }
@@ -0,0 +1,129 @@
+package com.myapp.utils;
+
+import com.myapp.config.MySQLConnection;
+import com.myapp.config.QueryScope;
+import javafx.application.Platform;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Exécute les accès base de données sur des threads virtuels.
+ * Le nombre de tâches simultanées vers la base est borné par la taille du pool de connexions ;
+ * les futures sont complétées sur le thread JavaFX quand celui-ci est démarré, de sorte que
+ * les callbacks (thenAccept, whenComplete...) peuvent manipuler l'interface directement.
+ *
+ * Les tâches soumises par supply/run appartiennent à l'écran affiché : quand SceneManager change d'écran,
+ * leurs requêtes en cours sont annulées et leurs futures ne sont jamais complétées (l'écran qui les
+ * attendait n'existe plus). Les écritures qui doivent aboutir passent par supplyDetached.
+ */
+public final class DbExecutor {
+    private static final ExecutorService EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-task-", 0).factory());
+    private static final Semaphore DB_PERMITS = new Semaphore(MySQLConnection.MAX_POOL_SIZE, true);
+    // Génération de navigation : incrémentée à chaque changement d'écran
+    private static final AtomicLong NAVIGATION = new AtomicLong();
+    private static final long DETACHED = -1;
+
+    private DbExecutor() {
+    }
+
+    /**
+     * Tâche liée à l'écran courant, annulée si l'utilisateur le quitte
+     */
+    public static <T> CompletableFuture<T> supply(Supplier<T> task) {
+        long generation = NAVIGATION.get();
+        return submit(() -> QueryScope.call(generation, task), generation);
+    }
+
+    /**
+     * Tâche indépendante de l'écran (écritures, exports...) : jamais annulée par la navigation
+     */
+    public static <T> CompletableFuture<T> supplyDetached(Supplier<T> task) {
+        return submit(task, DETACHED);
+    }
+
+    private static <T> CompletableFuture<T> submit(Supplier<T> task, long generation) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        EXECUTOR.execute(() -> {
+            T result;
+            try {
+                DB_PERMITS.acquire();
+                try {
+                    // Écran quitté, ou future annulée par l'appelant (recherche remplacée par une plus récente)
+                    if (isStale(generation) || future.isDone()) return;
+                    result = task.get();
+                } finally {
+                    DB_PERMITS.release();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                completeOnFxThread(future, null, e);
+                return;
+            } catch (Throwable t) {
+                if (!isStale(generation)) completeOnFxThread(future, null, t);
+                return;
+            }
+            if (!isStale(generation)) completeOnFxThread(future, result, null);
+        });
+        return future;
+    }
+
+    private static boolean isStale(long generation) {
+        return generation != DETACHED && generation != NAVIGATION.get();
+    }
+
+    /**
+     * Appelé par SceneManager avant d'afficher un nouvel écran : annule les requêtes de l'écran quitté
+     */
+    public static void onNavigation() {
+        long generation = NAVIGATION.incrementAndGet();
+        int cancelled = QueryScope.cancelBefore(generation);
+        if (cancelled > 0) {
+            System.out.println("Navigation: " + cancelled + " requête(s) de l'écran précédent annulée(s)");
+        }
+    }
+
+    public static CompletableFuture<Void> run(Runnable task) {
+        return supply(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private static <T> void completeOnFxThread(CompletableFuture<T> future, T result, Throwable error) {
+        Runnable completion = () -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(result);
+            }
+        };
+        try {
+            Platform.runLater(completion);
+        } catch (IllegalStateException toolkitNotStarted) {
+            // Pas d'interface (outils en ligne de commande) : compléter directement
+            completion.run();
+        }
+    }
+
+    /**
+     * Retourne la cause réelle d'une erreur remontée par une future
+     */
+    public static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    public static int getWaitingTasks() {
+        return DB_PERMITS.getQueueLength();
+    }
+
+    public static void shutdown() {
+        EXECUTOR.shutdown();
+    }
+}
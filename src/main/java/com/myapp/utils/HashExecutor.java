@@ -0,0 +1,77 @@
+package com.myapp.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Exécuteur borné réservé aux calculs de hachage des mots de passe.
+ * Un hash PBKDF2 occupe un cœur pendant des dizaines de millisecondes : exécuté sur les threads virtuels
+ * de DbExecutor ou sur le thread JavaFX, une vague de connexions ou un import monopoliserait tous les cœurs.
+ * Ici, au plus THREADS hachages tournent en même temps, sur des threads de priorité réduite ;
+ * les autres attendent dans la file.
+ */
+public final class HashExecutor {
+    // Un cœur reste libre pour l'interface et les accès base
+    public static final int THREADS = Math.max(1, Integer.getInteger("password.hashThreads",
+            Runtime.getRuntime().availableProcessors() - 1));
+
+    private static final ThreadLocal<Boolean> HASH_THREAD = ThreadLocal.withInitial(() -> false);
+    private static final AtomicInteger QUEUED = new AtomicInteger();
+    private static final LatencyHistogram QUEUE_WAIT = new LatencyHistogram();
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(() -> {
+                HASH_THREAD.set(true);
+                r.run();
+            }, "password-hash-" + count.getAndIncrement());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        }
+    });
+
+    private HashExecutor() {
+    }
+
+    public static <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        QUEUED.incrementAndGet();
+        return CompletableFuture.supplyAsync(() -> {
+            QUEUED.decrementAndGet();
+            QUEUE_WAIT.recordNanos(System.nanoTime() - queuedAt);
+            return task.get();
+        }, EXECUTOR);
+    }
+
+    /**
+     * Exécute la tâche sur l'exécuteur et attend son résultat (directement si l'appelant en fait déjà partie)
+     */
+    public static <T> T call(Supplier<T> task) {
+        if (HASH_THREAD.get()) {
+            return task.get();
+        }
+        try {
+            return submit(task).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    public static int getQueued() {
+        return QUEUED.get();
+    }
+
+    public static LatencyHistogram getQueueWait() {
+        return QUEUE_WAIT;
+    }
+}
@@ -0,0 +1,66 @@
+package com.myapp.utils;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Ancien format : Base64(salt de 16 octets + SHA-256(salt + mot de passe)), une seule itération.
+ * Conservé pour vérifier les comptes existants ; ils sont re-hachés au format courant à la connexion.
+ */
+public class LegacySha256PasswordHasher implements PasswordHasher {
+    private static final String ALGORITHM = "SHA-256";
+    private static final int SALT_LENGTH = 16;
+    private static final int DIGEST_LENGTH = 32;
+
+    @Override
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_LENGTH];
+        new SecureRandom().nextBytes(salt);
+        byte[] hashedPassword = digest(salt, password);
+
+        // Combiner salt et hash, puis encoder en Base64
+        byte[] combined = new byte[salt.length + hashedPassword.length];
+        System.arraycopy(salt, 0, combined, 0, salt.length);
+        System.arraycopy(hashedPassword, 0, combined, salt.length, hashedPassword.length);
+        return Base64.getEncoder().encodeToString(combined);
+    }
+
+    @Override
+    public boolean verify(String password, String storedHash) {
+        try {
+            byte[] combined = Base64.getDecoder().decode(storedHash);
+            if (combined.length != SALT_LENGTH + DIGEST_LENGTH) return false;
+
+            byte[] salt = new byte[SALT_LENGTH];
+            System.arraycopy(combined, 0, salt, 0, SALT_LENGTH);
+            byte[] originalHash = new byte[DIGEST_LENGTH];
+            System.arraycopy(combined, SALT_LENGTH, originalHash, 0, DIGEST_LENGTH);
+
+            return MessageDigest.isEqual(originalHash, digest(salt, password));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean recognizes(String storedHash) {
+        if (storedHash == null || storedHash.indexOf('$') >= 0) return false;
+        try {
+            return Base64.getDecoder().decode(storedHash).length == SALT_LENGTH + DIGEST_LENGTH;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static byte[] digest(byte[] salt, String password) {
+        try {
+            MessageDigest md = MessageDigest.getInstance(ALGORITHM);
+            md.update(salt);
+            return md.digest(password.getBytes());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("Error hashing password", e);
+        }
+    }
+}
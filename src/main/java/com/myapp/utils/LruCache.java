@@ -0,0 +1,114 @@
+package com.myapp.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Cache borné en taille (éviction LRU) dont les entrées expirent après un délai (TTL).
+ * Les valeurs null ne sont pas mises en cache. Thread-safe.
+ */
+public class LruCache<K, V> {
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Timed<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    // Incrémenté à chaque invalidation : une valeur chargée avant ne doit pas être remise en cache
+    private long generation;
+
+    public LruCache(String name, int maxSize, long ttlMillis) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Timed<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Valeur en cache, ou chargée par loader (hors verrou) puis mise en cache
+     */
+    public V getOrLoad(K key, Function<K, V> loader) {
+        long loadGeneration;
+        synchronized (this) {
+            Timed<V> timed = entries.get(key);
+            if (timed != null) {
+                if (System.nanoTime() - timed.loadedAt < ttlNanos) {
+                    hits.incrementAndGet();
+                    return timed.value;
+                }
+                entries.remove(key);
+                expirations.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            loadGeneration = generation;
+        }
+
+        V value = loader.apply(key);
+        if (value != null) {
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entries.put(key, new Timed<>(value, System.nanoTime()));
+                }
+            }
+        }
+        return value;
+    }
+
+    public synchronized void invalidate(K key) {
+        generation++;
+        if (entries.remove(key) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public Stats getStats() {
+        return new Stats(name, size(), maxSize, hits.get(), misses.get(), evictions.get(),
+                expirations.get(), invalidations.get());
+    }
+
+    private record Timed<V>(V value, long loadedAt) {
+    }
+
+    /**
+     * Instantané des compteurs du cache
+     */
+    public record Stats(String name, int size, int maxSize, long hits, long misses, long evictions,
+                        long expirations, long invalidations) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0.0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: size=%d/%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, expirations=%d, invalidations=%d",
+                    name, size, maxSize, hits, misses, hitRate() * 100, evictions, expirations, invalidations);
+        }
+    }
+}
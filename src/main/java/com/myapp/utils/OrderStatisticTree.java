@@ -0,0 +1,197 @@
+package com.myapp.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Arbre de recherche équilibré (treap) augmenté de la taille des sous-arbres.
+ * Insertion, suppression, rang d'un élément et accès au k-ième élément en O(log n).
+ * Les éléments doivent être distincts selon le comparateur. Non thread-safe.
+ */
+public class OrderStatisticTree<T> {
+    private static final class Node<T> {
+        final T value;
+        final int priority;
+        Node<T> left;
+        Node<T> right;
+        int size = 1;
+
+        Node(T value) {
+            this.value = value;
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    private final Comparator<? super T> comparator;
+    private Node<T> root;
+
+    public OrderStatisticTree(Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    /**
+     * Ajoute un élément
+     * @return false si un élément égal est déjà présent
+     */
+    public boolean add(T value) {
+        if (contains(value)) return false;
+        root = insert(root, new Node<>(value));
+        return true;
+    }
+
+    /**
+     * Retire un élément
+     * @return false s'il n'était pas présent
+     */
+    public boolean remove(T value) {
+        if (!contains(value)) return false;
+        root = delete(root, value);
+        return true;
+    }
+
+    public boolean contains(T value) {
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(value, node.value);
+            if (cmp == 0) return true;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /**
+     * Nombre d'éléments strictement inférieurs à value (position 0-based si value est présent)
+     */
+    public int rank(T value) {
+        int rank = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = comparator.compare(value, node.value);
+            if (cmp <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Élément de position index (0-based) dans l'ordre du comparateur
+     */
+    public T get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " hors de [0, " + size() + ")");
+        }
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.value;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Les k premiers éléments dans l'ordre, en O(log n + k)
+     */
+    public List<T> first(int k) {
+        List<T> result = new ArrayList<>(Math.min(Math.max(k, 0), size()));
+        collect(root, result, k);
+        return result;
+    }
+
+    private void collect(Node<T> node, List<T> out, int limit) {
+        if (node == null || out.size() >= limit) return;
+        collect(node.left, out, limit);
+        if (out.size() < limit) {
+            out.add(node.value);
+            collect(node.right, out, limit);
+        }
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> created) {
+        if (node == null) return created;
+        if (comparator.compare(created.value, node.value) < 0) {
+            node.left = insert(node.left, created);
+            if (node.left.priority > node.priority) node = rotateRight(node);
+        } else {
+            node.right = insert(node.right, created);
+            if (node.right.priority > node.priority) node = rotateLeft(node);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> delete(Node<T> node, T value) {
+        int cmp = comparator.compare(value, node.value);
+        if (cmp < 0) {
+            node.left = delete(node.left, value);
+        } else if (cmp > 0) {
+            node.right = delete(node.right, value);
+        } else {
+            return merge(node.left, node.right);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> int size(Node<T> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+}
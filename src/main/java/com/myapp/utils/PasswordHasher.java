@@ -0,0 +1,23 @@
+package com.myapp.utils;
+
+/**
+ * Format de hachage des mots de passe. Chaque implémentation reconnaît ses propres hashes stockés,
+ * ce qui permet de vérifier les anciens formats pendant la migration vers le format courant.
+ */
+public interface PasswordHasher {
+
+    /**
+     * Hache un mot de passe avec un salt aléatoire
+     */
+    String hash(String password);
+
+    /**
+     * Vérifie un mot de passe contre un hash produit par ce format
+     */
+    boolean verify(String password, String storedHash);
+
+    /**
+     * Indique si le hash stocké est dans ce format
+     */
+    boolean recognizes(String storedHash);
+}
@@ -1,71 +1,190 @@
 package com.myapp.utils;
 
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
- * Utilitaires pour le hachage et la vérification des mots de passe
+ * Utilitaires pour le hachage et la vérification des mots de passe.
+ * Les nouveaux hashes sont au format PBKDF2 (Pbkdf2PasswordHasher) ; les anciens formats restent vérifiables
+ * et needsRehash() signale ceux à remplacer. Le nombre d'itérations est calibré au démarrage pour qu'un hash
+ * prenne environ password.hashTargetMs sur ce poste, ou fixé par password.iterations.
+ * Tous les calculs passent par HashExecutor.
  */
 public class PasswordUtils {
-    private static final String ALGORITHM = "SHA-256";
-    private static final int SALT_LENGTH = 16;
+    private static final long TARGET_MILLIS = Long.getLong("password.hashTargetMs", 100);
+    private static final int MIN_ITERATIONS = Integer.getInteger("password.minIterations", 50_000);
+    private static final int MAX_ITERATIONS = Integer.getInteger("password.maxIterations", 2_000_000);
+    private static final int PROBE_ITERATIONS = 20_000;
+    private static final int PROBE_RUNS = 5;
+    // Écart toléré avant de re-hacher : les postes calibrés différemment ne se renvoient pas les comptes
+    private static final double REHASH_RATIO = 0.75;
+
+    /**
+     * Hash posé sur un compte dont le mot de passe doit être redéfini par un administrateur
+     */
+    public static final String RESET_MARKER = "reset$required";
+
+    /**
+     * Format d'un hash stocké, du point de vue de la migration
+     */
+    public enum HashFormat {
+        CURRENT,          // format et coût courants
+        UPGRADE_ON_LOGIN, // format reconnu mais ancien ou trop faible : re-haché à la prochaine connexion
+        BASE64_PLAINTEXT, // mot de passe seulement encodé en Base64 (anciens scripts d'initialisation)
+        RESET,            // déjà marqué pour réinitialisation
+        UNKNOWN           // absent ou illisible : le mot de passe ne peut être ni vérifié ni retrouvé
+    }
+
+    private static final List<PasswordHasher> LEGACY = List.of(new LegacySha256PasswordHasher());
+    private static volatile Pbkdf2PasswordHasher current;
+
+    private static final LatencyHistogram HASH_LATENCY = new LatencyHistogram();
+    private static final LatencyHistogram VERIFY_LATENCY = new LatencyHistogram();
+    private static final AtomicLong REHASHED = new AtomicLong();
+
+    /**
+     * Fixe le coût du hachage (appelé au démarrage ; sinon au premier hachage)
+     */
+    public static synchronized Pbkdf2PasswordHasher calibrate() {
+        if (current != null) return current;
+        Integer fixed = Integer.getInteger("password.iterations");
+        if (fixed != null) {
+            current = new Pbkdf2PasswordHasher(fixed);
+            return current;
+        }
+        current = HashExecutor.call(() -> {
+            Pbkdf2PasswordHasher probe = new Pbkdf2PasswordHasher(PROBE_ITERATIONS);
+            probe.hash("calibration"); // préchauffage du JIT
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < PROBE_RUNS; i++) {
+                long start = System.nanoTime();
+                probe.hash("calibration");
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            long iterations = PROBE_ITERATIONS * TARGET_MILLIS * 1_000_000L / Math.max(1, best);
+            iterations = Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, iterations / 1000 * 1000));
+            return new Pbkdf2PasswordHasher((int) iterations);
+        });
+        System.out.println("Hachage des mots de passe: PBKDF2, " + current.getIterations()
+                + " itérations (cible " + TARGET_MILLIS + " ms), " + HashExecutor.THREADS + " thread(s)");
+        return current;
+    }
+
+    private static Pbkdf2PasswordHasher current() {
+        Pbkdf2PasswordHasher hasher = current;
+        return hasher != null ? hasher : calibrate();
+    }
 
     /**
      * Hache un mot de passe avec un salt aléatoire
      */
     public static String hashPassword(String password) {
-        try {
-            // Générer un salt aléatoire
-            SecureRandom random = new SecureRandom();
-            byte[] salt = new byte[SALT_LENGTH];
-            random.nextBytes(salt);
-
-            // Hacher le mot de passe avec le salt
-            MessageDigest md = MessageDigest.getInstance(ALGORITHM);
-            md.update(salt);
-            byte[] hashedPassword = md.digest(password.getBytes());
-
-            // Combiner salt et hash, puis encoder en Base64
-            byte[] combined = new byte[salt.length + hashedPassword.length];
-            System.arraycopy(salt, 0, combined, 0, salt.length);
-            System.arraycopy(hashedPassword, 0, combined, salt.length, hashedPassword.length);
-
-            return Base64.getEncoder().encodeToString(combined);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("Error hashing password", e);
-        }
+        Pbkdf2PasswordHasher hasher = current();
+        return HashExecutor.call(() -> timed(HASH_LATENCY, () -> hasher.hash(password)));
     }
 
     /**
-     * Vérifie si un mot de passe correspond au hash stocké
+     * Hache sans attendre le résultat (mise à niveau d'un hash après connexion)
+     */
+    public static CompletableFuture<String> hashPasswordAsync(String password) {
+        Pbkdf2PasswordHasher hasher = current();
+        return HashExecutor.submit(() -> timed(HASH_LATENCY, () -> hasher.hash(password)));
+    }
+
+    /**
+     * Vérifie si un mot de passe correspond au hash stocké, quel que soit son format
      */
     public static boolean verifyPassword(String password, String storedHash) {
-        try {
-            // Décoder le hash stocké
-            byte[] combined = Base64.getDecoder().decode(storedHash);
+        PasswordHasher hasher = hasherFor(storedHash);
+        if (hasher == null) {
+            return false;
+        }
+        return HashExecutor.call(() -> timed(VERIFY_LATENCY, () -> hasher.verify(password, storedHash)));
+    }
+
+    /**
+     * Indique si le hash stocké doit être remplacé par un hash au format et au coût courants
+     */
+    public static boolean needsRehash(String storedHash) {
+        if (storedHash == null || !storedHash.startsWith(Pbkdf2PasswordHasher.PREFIX)) {
+            return true;
+        }
+        return Pbkdf2PasswordHasher.iterationsOf(storedHash) < current().getIterations() * REHASH_RATIO;
+    }
+
+    public static HashFormat classify(String storedHash) {
+        if (storedHash == null || storedHash.isBlank()) return HashFormat.UNKNOWN;
+        if (RESET_MARKER.equals(storedHash)) return HashFormat.RESET;
+        if (hasherFor(storedHash) != null) {
+            return needsRehash(storedHash) ? HashFormat.UPGRADE_ON_LOGIN : HashFormat.CURRENT;
+        }
+        return legacyPlaintext(storedHash) != null ? HashFormat.BASE64_PLAINTEXT : HashFormat.UNKNOWN;
+    }
 
-            // Extraire le salt
-            byte[] salt = new byte[SALT_LENGTH];
-            System.arraycopy(combined, 0, salt, 0, SALT_LENGTH);
+    /**
+     * Mot de passe d'un hash qui n'est que son encodage Base64 (ex. "YWRtaW4xMjM="), null sinon
+     */
+    public static String legacyPlaintext(String storedHash) {
+        try {
+            byte[] decoded = Base64.getDecoder().decode(storedHash);
+            String password = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(decoded)).toString();
+            if (password.isEmpty() || password.length() > 100) return null;
+            for (int i = 0; i < password.length(); i++) {
+                if (Character.isISOControl(password.charAt(i))) return null;
+            }
+            return password;
+        } catch (IllegalArgumentException | CharacterCodingException e) {
+            return null;
+        }
+    }
 
-            // Extraire le hash original
-            byte[] originalHash = new byte[combined.length - SALT_LENGTH];
-            System.arraycopy(combined, SALT_LENGTH, originalHash, 0, originalHash.length);
+    public static void recordRehash() {
+        REHASHED.incrementAndGet();
+    }
 
-            // Hacher le mot de passe fourni avec le même salt
-            MessageDigest md = MessageDigest.getInstance(ALGORITHM);
-            md.update(salt);
-            byte[] testHash = md.digest(password.getBytes());
+    private static PasswordHasher hasherFor(String storedHash) {
+        if (storedHash == null) return null;
+        Pbkdf2PasswordHasher hasher = current();
+        if (hasher.recognizes(storedHash)) return hasher;
+        for (PasswordHasher legacy : LEGACY) {
+            if (legacy.recognizes(storedHash)) return legacy;
+        }
+        return null;
+    }
 
-            // Comparer les hashes
-            return MessageDigest.isEqual(originalHash, testHash);
-        } catch (Exception e) {
-            return false;
+    private static <T> T timed(LatencyHistogram histogram, Supplier<T> task) {
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            histogram.recordNanos(System.nanoTime() - start);
         }
     }
 
+    /**
+     * Résumé des latences de hachage, affiché à l'arrêt
+     */
+    public static String getStats() {
+        Pbkdf2PasswordHasher hasher = current;
+        return String.format("hachage: %s, %d hash (moy %.1f ms, p95 %.1f ms), %d vérifications (moy %.1f ms, p95 %.1f ms), "
+                        + "attente file p95 %.1f ms, %d hash mis à niveau",
+                hasher == null ? "non calibré" : hasher.getIterations() + " itérations",
+                HASH_LATENCY.getCount(), HASH_LATENCY.getMeanMillis(), HASH_LATENCY.getPercentileMillis(95),
+                VERIFY_LATENCY.getCount(), VERIFY_LATENCY.getMeanMillis(), VERIFY_LATENCY.getPercentileMillis(95),
+                HashExecutor.getQueueWait().getPercentileMillis(95), REHASHED.get());
+    }
+
     /**
      * Génère un mot de passe temporaire aléatoire
      */
@@ -80,4 +199,4 @@ public class PasswordUtils {
 
         return sb.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package com.myapp.utils;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * PBKDF2-HMAC-SHA256, stocké sous la forme pbkdf2$sha256$itérations$salt$hash (salt et hash en Base64).
+ * Le nombre d'itérations fait partie du hash : un hash plus ancien reste vérifiable après un changement de coût.
+ */
+public class Pbkdf2PasswordHasher implements PasswordHasher {
+    public static final String PREFIX = "pbkdf2$sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_LENGTH = 16;
+    private static final int KEY_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final int iterations;
+
+    public Pbkdf2PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Nombre d'itérations invalide: " + iterations);
+        }
+        this.iterations = iterations;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + encoder.encodeToString(salt) + "$"
+                + encoder.encodeToString(derive(password, salt, iterations, KEY_BITS));
+    }
+
+    @Override
+    public boolean verify(String password, String storedHash) {
+        try {
+            String[] parts = storedHash.substring(PREFIX.length()).split("\\$");
+            if (parts.length != 3) return false;
+            int storedIterations = Integer.parseInt(parts[0]);
+            byte[] salt = Base64.getDecoder().decode(parts[1]);
+            byte[] expected = Base64.getDecoder().decode(parts[2]);
+            byte[] actual = derive(password, salt, storedIterations, expected.length * 8);
+            return MessageDigest.isEqual(expected, actual);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean recognizes(String storedHash) {
+        return storedHash != null && storedHash.startsWith(PREFIX);
+    }
+
+    /**
+     * Nombre d'itérations d'un hash de ce format, -1 s'il est illisible
+     */
+    public static int iterationsOf(String storedHash) {
+        try {
+            String rest = storedHash.substring(PREFIX.length());
+            return Integer.parseInt(rest.substring(0, rest.indexOf('$')));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations, int keyBits) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, keyBits);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("PBKDF2 indisponible", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
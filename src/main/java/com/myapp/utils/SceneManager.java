@@ -34,6 +34,8 @@ public class SceneManager {
     }
 
     public static void show(String viewName) {
+        // Annuler les requêtes de l'écran quitté avant que le nouveau ne lance les siennes
+        DbExecutor.onNavigation();
         try {
             String fxmlPath = "/views/" + viewName + ".fxml";
             FXMLLoader loader = new FXMLLoader(SceneManager.class.getResource(fxmlPath));
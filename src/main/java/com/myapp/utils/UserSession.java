@@ -1,60 +1,148 @@
 package com.myapp.utils;
 
+import com.myapp.models.GameSettings;
 import com.myapp.models.User;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
- * Classe pour gérer les sessions utilisateur
- * Singleton pattern pour maintenir la session active
+ * Session de l'application, partagée par tous les contrôleurs : utilisateur connecté (ou invité),
+ * paramètres de partie et numéro de génération.
+ * L'état est un instantané immuable remplacé atomiquement : un thread d'arrière-plan lit toujours
+ * un utilisateur et des paramètres cohérents entre eux. Les écrans lisent l'identité et le rôle ici,
+ * sans requête en base ; la génération change à chaque connexion ou déconnexion, ce qui permet
+ * d'ignorer un résultat asynchrone arrivé après un changement d'utilisateur.
  */
 public class UserSession {
-    private static UserSession instance;
-    private User currentUser;
-    private LocalDateTime loginTime;
-    private boolean isLoggedIn;
+    private static final UserSession INSTANCE = new UserSession();
+    private static final int GUEST_ID = -1;
+
+    /**
+     * État de la session à un instant donné
+     * @param user utilisateur connecté, ou utilisateur fictif (id -1) en mode invité, null sans session
+     */
+    public record Snapshot(User user, boolean guest, GameSettings settings, LocalDateTime loginTime, long generation) {
+
+        public boolean isAuthenticated() {
+            return user != null && !guest;
+        }
+
+        public boolean isAdmin() {
+            return isAuthenticated() && user.isAdmin();
+        }
+
+        /**
+         * Identifiant de l'utilisateur connecté, -1 pour un invité ou sans session
+         */
+        public int userId() {
+            return isAuthenticated() ? user.getId() : GUEST_ID;
+        }
+    }
+
+    private final AtomicLong generations = new AtomicLong();
+    private final AtomicReference<Snapshot> state =
+            new AtomicReference<>(new Snapshot(null, false, GameSettings.DEFAULT, null, 0));
 
     private UserSession() {
-        this.isLoggedIn = false;
     }
 
     public static UserSession getInstance() {
-        if (instance == null) {
-            instance = new UserSession();
-        }
-        return instance;
+        return INSTANCE;
+    }
+
+    public Snapshot snapshot() {
+        return state.get();
     }
 
     public void login(User user) {
-        this.currentUser = user;
-        this.loginTime = LocalDateTime.now();
-        this.isLoggedIn = true;
-        
-        // Mettre à jour le dernier login de l'utilisateur
-        if (user != null) {
-            user.updateLastLogin();
+        if (user == null) {
+            logout();
+            return;
         }
+        state.set(new Snapshot(user, false, GameSettings.DEFAULT, LocalDateTime.now(), generations.incrementAndGet()));
+    }
+
+    /**
+     * Ouvre une session invité (parties sans sauvegarde des scores)
+     */
+    public void startGuest() {
+        User guest = new User("Invité", "Anonyme");
+        guest.setId(GUEST_ID);
+        state.set(new Snapshot(guest, true, GameSettings.DEFAULT, LocalDateTime.now(), generations.incrementAndGet()));
     }
 
     public void logout() {
-        this.currentUser = null;
-        this.loginTime = null;
-        this.isLoggedIn = false;
+        state.set(new Snapshot(null, false, GameSettings.DEFAULT, null, generations.incrementAndGet()));
+    }
+
+    /**
+     * Remplace l'utilisateur de la session par une version plus récente du même compte (après modification)
+     */
+    public void refreshUser(User user) {
+        update(s -> s.isAuthenticated() && user != null && s.user().getId() == user.getId()
+                ? new Snapshot(user, false, s.settings(), s.loginTime(), s.generation())
+                : s);
+    }
+
+    public void setGameSettings(GameSettings settings) {
+        update(s -> new Snapshot(s.user(), s.guest(), settings != null ? settings : GameSettings.DEFAULT,
+                s.loginTime(), s.generation()));
+    }
+
+    private void update(UnaryOperator<Snapshot> change) {
+        state.updateAndGet(change);
     }
 
     public User getCurrentUser() {
-        return currentUser;
+        return state.get().user();
     }
 
+    /**
+     * Vrai pour un utilisateur authentifié (pas pour un invité)
+     */
     public boolean isLoggedIn() {
-        return isLoggedIn && currentUser != null;
+        return state.get().isAuthenticated();
+    }
+
+    public boolean isGuest() {
+        return state.get().guest();
+    }
+
+    /**
+     * Vrai si un utilisateur ou un invité est en session
+     */
+    public boolean hasUser() {
+        return state.get().user() != null;
+    }
+
+    public boolean isAdmin() {
+        return state.get().isAdmin();
+    }
+
+    public GameSettings getGameSettings() {
+        return state.get().settings();
+    }
+
+    public long getGeneration() {
+        return state.get().generation();
+    }
+
+    /**
+     * Indique si la session est toujours celle de la génération donnée (même connexion)
+     */
+    public boolean isCurrent(long generation) {
+        return state.get().generation() == generation;
     }
 
     public LocalDateTime getLoginTime() {
-        return loginTime;
+        return state.get().loginTime();
     }
 
     public String getSessionDuration() {
+        LocalDateTime loginTime = getLoginTime();
         if (loginTime == null) return "0 min";
         
         LocalDateTime now = LocalDateTime.now();
@@ -70,20 +158,21 @@ public class UserSession {
     }
 
     public boolean isSessionValid() {
-        if (!isLoggedIn || currentUser == null || loginTime == null) {
+        Snapshot s = state.get();
+        if (!s.isAuthenticated() || s.loginTime() == null) {
             return false;
         }
         
         // Session expire après 24 heures
         LocalDateTime now = LocalDateTime.now();
-        long hours = java.time.Duration.between(loginTime, now).toHours();
+        long hours = java.time.Duration.between(s.loginTime(), now).toHours();
         
         return hours < 24;
     }
 
     public void refreshSession() {
-        if (isLoggedIn && currentUser != null) {
-            this.loginTime = LocalDateTime.now();
-        }
+        update(s -> s.isAuthenticated()
+                ? new Snapshot(s.user(), false, s.settings(), LocalDateTime.now(), s.generation())
+                : s);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+-- Index couvrant les filtres et tris de ScoreDAO.
+-- InnoDB ajoute la clé primaire (id) à chaque index secondaire : elle sert de départage dans les tris.
+
+-- Scores d'un joueur par date (findByUserId, pagination par joueur)
+CREATE INDEX idx_scores_user_played ON scores (user_id, played_at);
+
+-- Scores d'un thème par date (findByThemeId)
+CREATE INDEX idx_scores_theme_played ON scores (theme_id, played_at);
+
+-- Classement d'un thème (pagination par score, meilleur score par joueur filtré par thème)
+CREATE INDEX idx_scores_theme_best ON scores (theme_id, attempts, time_seconds);
+
+-- Historique global par date (findAll, pagination sans filtre)
+CREATE INDEX idx_scores_played ON scores (played_at);
+
+-- Classement global (findAll par score, pagination par score)
+CREATE INDEX idx_scores_best ON scores (attempts, time_seconds);
+
+-- Meilleur score par joueur et thème (index du classement, rejeu idempotent du journal)
+CREATE INDEX idx_scores_user_theme_best ON scores (user_id, theme_id, attempts, time_seconds, played_at);
@@ -0,0 +1,28 @@
+-- Agrégats quotidiens des scores, tenus à jour par ScoreDAO et reconstruits par RollupService.
+-- theme_id = 0 regroupe les scores sans thème (thème supprimé).
+
+-- Parties par jour et par thème (tableaux de bord)
+CREATE TABLE IF NOT EXISTS score_daily_theme (
+    day DATE NOT NULL,
+    theme_id INT NOT NULL,
+    games INT NOT NULL,
+    attempts_sum BIGINT NOT NULL,
+    attempts_min INT NOT NULL,
+    time_sum BIGINT NOT NULL,
+    time_min INT NOT NULL,
+    PRIMARY KEY (day, theme_id),
+    INDEX idx_daily_theme_theme (theme_id, day)
+);
+
+-- Parties par jour et par joueur (page de profil)
+CREATE TABLE IF NOT EXISTS score_daily_user (
+    user_id INT NOT NULL,
+    day DATE NOT NULL,
+    games INT NOT NULL,
+    attempts_sum BIGINT NOT NULL,
+    attempts_min INT NOT NULL,
+    time_sum BIGINT NOT NULL,
+    time_min INT NOT NULL,
+    PRIMARY KEY (user_id, day),
+    INDEX idx_daily_user_day (day)
+);
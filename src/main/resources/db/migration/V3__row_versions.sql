@@ -0,0 +1,7 @@
+-- Numéro de version des lignes modifiables, pour le contrôle de concurrence optimiste.
+-- Chaque modification versionnée incrémente version ; une mise à jour portant une version
+-- dépassée n'affecte aucune ligne et est signalée comme conflit.
+
+ALTER TABLE users ADD COLUMN version INT NOT NULL DEFAULT 0;
+
+ALTER TABLE scores ADD COLUMN version INT NOT NULL DEFAULT 0;
@@ -0,0 +1,15 @@
+-- Totaux par joueur et par thème, tenus à jour par ScoreDAO comme les agrégats quotidiens
+-- et remplis par RollupService au premier démarrage. theme_id = 0 regroupe les scores sans thème.
+-- Les statistiques du profil lisent une ligne par thème joué, quelle que soit la taille de l'historique.
+
+CREATE TABLE IF NOT EXISTS score_user_theme (
+    user_id INT NOT NULL,
+    theme_id INT NOT NULL,
+    games INT NOT NULL,
+    attempts_sum BIGINT NOT NULL,
+    attempts_min INT NOT NULL,
+    time_sum BIGINT NOT NULL,
+    time_min INT NOT NULL,
+    PRIMARY KEY (user_id, theme_id),
+    INDEX idx_user_theme_theme (theme_id)
+);
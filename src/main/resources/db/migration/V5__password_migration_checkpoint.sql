@@ -0,0 +1,13 @@
+-- Point de reprise de la migration des anciens hashes de mots de passe (PasswordMigrationJob).
+-- Une ligne par exécution en cours : dernier identifiant traité et compteurs cumulés.
+-- La ligne est supprimée quand la migration arrive au bout de la table users.
+
+CREATE TABLE IF NOT EXISTS password_migration_checkpoint (
+    job VARCHAR(50) NOT NULL PRIMARY KEY,
+    last_user_id INT NOT NULL,
+    scanned BIGINT NOT NULL DEFAULT 0,
+    rehashed BIGINT NOT NULL DEFAULT 0,
+    reset BIGINT NOT NULL DEFAULT 0,
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
@@ -0,0 +1,8 @@
+-- Tri par temps du tableau des scores (pagination « Temps le plus rapide », tous joueurs).
+-- InnoDB ajoute la clé primaire (id) à chaque index secondaire : l'ordre (time_seconds, id) est servi sans tri.
+
+-- Tous les scores par temps
+CREATE INDEX idx_scores_time ON scores (time_seconds);
+
+-- Scores d'un thème par temps
+CREATE INDEX idx_scores_theme_time ON scores (theme_id, time_seconds);